@@ -0,0 +1,86 @@
+package local.dev.storemanager.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON result with the result of an earlier run and fails when a benchmark got slower by more than
+ * the given percentage. Benchmarks missing from either file are skipped, so adding one does not break the check.
+ * <p>
+ * Arguments: {@code <current result> <threshold percent> [<baseline result>]}; without a baseline there is nothing
+ * to compare and the check passes.
+ */
+public final class BenchmarkRegressionCheck {
+
+    private BenchmarkRegressionCheck() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3 || args[2].isBlank()) {
+            System.out.println("No benchmark baseline given, skipping the regression check");
+            return;
+        }
+
+        final var current = read(Path.of(args[0]));
+        final double threshold = Double.parseDouble(args[1]);
+        final var baseline = read(Path.of(args[2]));
+
+        final var regressions = new ArrayList<String>();
+        current.forEach((name, result) -> {
+            final var previous = baseline.get(name);
+            if (previous == null) {
+                return;
+            }
+
+            final double change = result.changePercent(previous);
+            System.out.printf("%-100s %12.3f -> %12.3f %s (%+.1f%%)%n",
+                    name, previous.score(), result.score(), result.unit(), change);
+            if (change > threshold) {
+                regressions.add(name);
+            }
+        });
+
+        if (!regressions.isEmpty()) {
+            System.err.printf("%d benchmark(s) regressed by more than %.1f%%: %s%n", regressions.size(), threshold, regressions);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return the results by benchmark name plus parameters
+     */
+    private static Map<String, Result> read(Path file) throws IOException {
+        final var results = new LinkedHashMap<String, Result>();
+        for (final JsonNode run : new ObjectMapper().readTree(Files.readAllBytes(file))) {
+            final var name = new StringBuilder(run.path("benchmark").asText());
+            run.path("params").fields().forEachRemaining(param ->
+                    name.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+
+            final var metric = run.path("primaryMetric");
+            results.put(name.toString(), new Result(run.path("mode").asText(),
+                    metric.path("score").asDouble(), metric.path("scoreUnit").asText()));
+        }
+        return results;
+    }
+
+    private record Result(String mode, double score, String unit) {
+
+        /**
+         * How much worse this result is, in percent: a higher time or a lower throughput is positive.
+         */
+        double changePercent(Result previous) {
+            if (previous.score() == 0) {
+                return 0;
+            }
+            final double change = (score - previous.score()) / previous.score() * 100;
+            return "thrpt".equals(mode) ? -change : change;
+        }
+    }
+}
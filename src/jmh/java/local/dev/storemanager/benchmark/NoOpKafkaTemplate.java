@@ -0,0 +1,29 @@
+package local.dev.storemanager.benchmark;
+
+import local.dev.storemanager.application.event.ProductEvent;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Drops every event, so the benchmarks measure the application code rather than a Kafka broker.
+ * The producer factory is never asked for a producer.
+ */
+class NoOpKafkaTemplate extends KafkaTemplate<String, ProductEvent> {
+
+    NoOpKafkaTemplate() {
+        super(new DefaultKafkaProducerFactory<>(Map.of()));
+    }
+
+    @Override
+    public CompletableFuture<SendResult<String, ProductEvent>> send(String topic, ProductEvent data) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void flush() {
+    }
+}
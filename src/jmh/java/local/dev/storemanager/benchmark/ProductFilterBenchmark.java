@@ -0,0 +1,124 @@
+package local.dev.storemanager.benchmark;
+
+import local.dev.storemanager.StoreManagerApplication;
+import local.dev.storemanager.domain.model.product.Book;
+import local.dev.storemanager.domain.model.product.Clothing;
+import local.dev.storemanager.domain.model.product.Electronics;
+import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.domain.model.product.ProductFilter;
+import local.dev.storemanager.domain.model.product.ProductPage;
+import local.dev.storemanager.domain.model.product.ProductSort;
+import local.dev.storemanager.domain.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtered reads over catalogues of growing size, against the in-memory H2 database of the {@code h2} profile. The
+ * filters run in SQL over indexed columns, so a selective filter should cost about the same whatever the catalogue
+ * size; {@code byTypeAndAuthor} matches a handful of books, {@code byTypePage} a quarter of the catalogue. The price
+ * queries read the first products off the price indexes, however many are in the range.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductFilterBenchmark {
+
+    private static final int INSERT_BATCH = 10_000;
+
+    @Param({"10000", "100000"})
+    private int products;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+
+    @Setup(Level.Trial)
+    public void createCatalogue() {
+        context = new SpringApplicationBuilder(StoreManagerApplication.class, ProductImportBenchmark.NoKafka.class)
+                .profiles("h2")
+                .properties(
+                        "server.port=0",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN",
+                        "logging.level.local.dev.storemanager=WARN")
+                .run();
+        productService = context.getBean("productServiceImpl", ProductService.class);
+
+        final var batch = new ArrayList<Product>(INSERT_BATCH);
+        for (int i = 0; i < products; i++) {
+            batch.add(new Product(null, "Product-" + i, 10.0 + i % 500, i % 100, switch (i % 4) {
+                case 0 -> new Book("Author-" + i % 1000, "Genre-" + i % 20);
+                case 1 -> new Electronics("Brand-" + i % 50, "2 years");
+                case 2 -> new Clothing(i % 8 == 2 ? "M" : "L", "Cotton");
+                default -> null;
+            }));
+            if (batch.size() == INSERT_BATCH) {
+                productService.addProducts(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            productService.addProducts(batch);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public ProductPage byTypePage() {
+        return productService.findPage(new ProductFilter("Electronics", null, null, null), null, 100);
+    }
+
+    @Benchmark
+    public List<Product> byTypeAndBrand() {
+        return productService.findAllFiltered("Electronics", null, "Brand-7", null);
+    }
+
+    @Benchmark
+    public List<Product> byTypeAndAuthor() {
+        return productService.findAllFiltered("Book", "Author-42", null, null);
+    }
+
+    @Benchmark
+    public List<Product> cheapestOfType() {
+        return productService.findSorted(new ProductFilter("Electronics", null, null, null), ProductSort.PRICE_ASC, 20);
+    }
+
+    @Benchmark
+    public List<Product> dearestInPriceRange() {
+        return productService.findSorted(new ProductFilter(null, null, null, null, 100.0, 200.0),
+                ProductSort.PRICE_DESC, 20);
+    }
+
+    @Benchmark
+    public ProductPage priceRangePage() {
+        return productService.findPage(new ProductFilter(null, null, null, null, 100.0, 200.0), null, 100);
+    }
+
+    @Benchmark
+    public ProductPage unfilteredPage() {
+        return productService.findPage(ProductFilter.none(), null, 100);
+    }
+}
@@ -0,0 +1,110 @@
+package local.dev.storemanager.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import local.dev.storemanager.StoreManagerApplication;
+import local.dev.storemanager.application.dto.BulkImportResponse;
+import local.dev.storemanager.application.dto.ProductRequestDto;
+import local.dev.storemanager.application.event.ProductEvent;
+import local.dev.storemanager.application.importer.ImportProgress;
+import local.dev.storemanager.domain.model.product.ImportFormat;
+import local.dev.storemanager.domain.model.product.ImportMode;
+import local.dev.storemanager.domain.service.ProductBulkImportService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole bulk import per invocation, in every {@link ImportMode}, against the in-memory H2 database of the
+ * {@code h2} profile. Kafka is replaced by {@link NoOpKafkaTemplate}; the table is emptied after every invocation,
+ * since importing the same products again would write them without their taken natural keys, or update them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductImportBenchmark {
+
+    @Param
+    private ImportMode mode;
+
+    @Param({"2000"})
+    private int products;
+
+    private ConfigurableApplicationContext context;
+    private ProductBulkImportService bulkImportService;
+    private JdbcTemplate jdbcTemplate;
+    private byte[] upload;
+
+    @Configuration
+    static class NoKafka {
+        @Bean
+        KafkaTemplate<String, ProductEvent> kafkaTemplate() {
+            return new NoOpKafkaTemplate();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void startApplication() throws Exception {
+        context = new SpringApplicationBuilder(StoreManagerApplication.class, NoKafka.class)
+                .profiles("h2")
+                .properties(
+                        "server.port=0",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN",
+                        "logging.level.local.dev.storemanager=WARN")
+                .run();
+        bulkImportService = context.getBean(ProductBulkImportService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        final var rows = new ArrayList<ProductRequestDto>(products);
+        for (int i = 0; i < products; i++) {
+            rows.add(switch (i % 3) {
+                case 0 -> new ProductRequestDto("Book-" + i, 10.0 + i, i + 1,
+                        "Book", "Author-" + i, "Fiction", null, null, null, null);
+                case 1 -> new ProductRequestDto("Laptop-" + i, 900.0 + i, i + 1,
+                        "Electronics", null, null, "Brand-" + i % 20, "2 years", null, null);
+                default -> new ProductRequestDto("Shirt-" + i, 20.0 + i, i + 1,
+                        "Clothing", null, null, null, null, "M", "Cotton");
+            });
+        }
+        upload = new ObjectMapper().writeValueAsBytes(rows);
+    }
+
+    @TearDown(Level.Invocation)
+    public void emptyTable() {
+        jdbcTemplate.update("DELETE FROM products");
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public BulkImportResponse importProducts() throws Exception {
+        return bulkImportService.importProducts(new ByteArrayInputStream(upload), ImportFormat.JSON, mode,
+                new ImportProgress());
+    }
+}
@@ -0,0 +1,66 @@
+package local.dev.storemanager.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import local.dev.storemanager.application.mapper.ProductMapper;
+import local.dev.storemanager.domain.model.product.Book;
+import local.dev.storemanager.domain.model.product.Electronics;
+import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.infrastructure.rest.ProductJsonCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The body of a default page of 100 products: {@code serialize} maps every product to its response DTO and has
+ * Jackson write the list, as the controller does without the JSON cache; {@code cachedFragments} joins the bytes
+ * {@link ProductJsonCache} kept from an earlier read of the same, unchanged products.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductJsonBenchmark {
+
+    private static final int PAGE = 100;
+
+    private final ProductMapper mapper = new ProductMapper();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ProductJsonCache jsonCache = new ProductJsonCache(mapper, objectMapper, true, false, 10_000);
+
+    private List<Product> products;
+
+    @Setup
+    public void createPage() {
+        products = new ArrayList<>(PAGE);
+        for (int i = 0; i < PAGE; i++) {
+            products.add(new Product((long) i, "Product-" + i, 10.0 + i, i % 50, i % 2 == 0
+                    ? new Book("Author-" + i, "Sci-Fi")
+                    : new Electronics("Brand-" + i, "2 years")));
+        }
+        jsonCache.jsonArray(products);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(products.stream().map(mapper::toResponseDto).toList());
+    }
+
+    @Benchmark
+    public byte[] cachedFragments() {
+        return jsonCache.jsonArray(products);
+    }
+}
@@ -0,0 +1,65 @@
+package local.dev.storemanager.benchmark;
+
+import local.dev.storemanager.application.dto.ProductRequestDto;
+import local.dev.storemanager.application.dto.ProductResponseDto;
+import local.dev.storemanager.application.mapper.ProductMapper;
+import local.dev.storemanager.domain.model.product.Book;
+import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.infrastructure.persistence.entity.ProductEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The conversions every product goes through on its way in (DTO → domain → entity) and out (entity → domain → DTO).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductMapperBenchmark {
+
+    private final ProductMapper mapper = new ProductMapper();
+
+    private ProductRequestDto dto;
+    private Product product;
+    private ProductEntity entity;
+
+    @Setup
+    public void createProducts() {
+        dto = new ProductRequestDto("Dune", 12.5, 3, "Book", "Frank Herbert", "Sci-Fi", null, null, null, null);
+        product = new Product(1L, "Dune", 12.5, 3, new Book("Frank Herbert", "Sci-Fi"));
+        entity = new ProductEntity(1L, "Dune", 12.5, 3, new Book("Frank Herbert", "Sci-Fi"));
+    }
+
+    @Benchmark
+    public Product dtoToDomain() {
+        return mapper.toDomain(dto);
+    }
+
+    @Benchmark
+    public ProductEntity domainToEntity() {
+        return mapper.toEntity(product);
+    }
+
+    @Benchmark
+    public Product entityToDomain() {
+        return mapper.toDomain(entity);
+    }
+
+    @Benchmark
+    public ProductResponseDto domainToResponse() {
+        return mapper.toResponseDto(product);
+    }
+}
@@ -0,0 +1,94 @@
+package local.dev.storemanager.benchmark;
+
+import local.dev.storemanager.application.service.product.ProductSearchIndex;
+import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.domain.repository.ProductRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Name searches over the in-memory index, sampled so the report shows percentiles as well as the mean. The index is
+ * loaded from a stand-in repository, which keeps the 1M-product catalogue out of the database. Names are an adjective,
+ * a noun and a model number: {@code exactToken} matches one product in 10, {@code twoTokens} one in 500,
+ * {@code rareToken} about a hundred and {@code shortPrefix}, the shortest prefix matched as one, three adjectives.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductSearchBenchmark {
+
+    private static final int PAGE = 20;
+    private static final List<String> ADJECTIVES = List.of("red", "blue", "green", "black", "white", "small",
+            "large", "smart", "classic", "modern", "silver", "golden", "wooden", "steel", "soft", "light", "heavy",
+            "slim", "compact", "deluxe", "vintage", "sport", "premium", "basic", "portable", "wireless", "digital",
+            "organic", "fresh", "cozy", "bright", "dark", "warm", "cool", "quiet", "rapid", "solid", "tiny", "giant",
+            "royal", "urban", "rustic", "sleek", "bold", "pure", "prime", "smooth", "sturdy", "glossy", "matte");
+    private static final List<String> NOUNS = List.of("laptop", "shirt", "novel", "lamp", "chair", "table", "phone",
+            "jacket", "mug", "speaker");
+
+    @Param({"100000", "1000000"})
+    private int products;
+
+    private ProductSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void createIndex() {
+        final ProductRepository repository = (ProductRepository) Proxy.newProxyInstance(
+                ProductRepository.class.getClassLoader(), new Class<?>[]{ProductRepository.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("forEach")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    @SuppressWarnings("unchecked") final var consumer = (Consumer<Product>) args[0];
+                    for (int i = 0; i < products; i++) {
+                        consumer.accept(new Product((long) i + 1, name(i), 10.0, 1, null));
+                    }
+                    return (long) products;
+                });
+        index = new ProductSearchIndex(repository);
+        index.search("warm-up", 0, 1);
+    }
+
+    @Benchmark
+    public ProductSearchIndex.Hits exactToken() {
+        return index.search("laptop", 0, PAGE);
+    }
+
+    @Benchmark
+    public ProductSearchIndex.Hits twoTokens() {
+        return index.search("red laptop", 0, PAGE);
+    }
+
+    @Benchmark
+    public ProductSearchIndex.Hits rareToken() {
+        return index.search("m4242", 0, PAGE);
+    }
+
+    @Benchmark
+    public ProductSearchIndex.Hits shortPrefix() {
+        return index.search("sm", 0, PAGE);
+    }
+
+    private static String name(int i) {
+        return ADJECTIVES.get(i % ADJECTIVES.size()) + " " + NOUNS.get(i / ADJECTIVES.size() % NOUNS.size())
+                + " m" + i % 100_000;
+    }
+}
@@ -0,0 +1,101 @@
+package local.dev.storemanager.benchmark;
+
+import local.dev.storemanager.StoreManagerApplication;
+import local.dev.storemanager.domain.model.product.Book;
+import local.dev.storemanager.domain.model.product.Clothing;
+import local.dev.storemanager.domain.model.product.Electronics;
+import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.domain.model.product.ProductStats;
+import local.dev.storemanager.domain.repository.ProductRepository;
+import local.dev.storemanager.domain.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inventory totals over catalogues of growing size, on the in-memory H2 database of the {@code h2} profile:
+ * {@code runningTotals} reads the counters every write keeps current, {@code groupBy} runs the aggregate query the
+ * reconciliation checks them against, which reads the whole table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductStatsBenchmark {
+
+    private static final int INSERT_BATCH = 10_000;
+
+    @Param({"10000", "100000"})
+    private int products;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private ProductRepository productRepository;
+    private int threshold;
+
+    @Setup(Level.Trial)
+    public void createCatalogue() {
+        context = new SpringApplicationBuilder(StoreManagerApplication.class, ProductImportBenchmark.NoKafka.class)
+                .profiles("h2")
+                .properties(
+                        "server.port=0",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN",
+                        "logging.level.local.dev.storemanager=WARN")
+                .run();
+        productService = context.getBean("productServiceImpl", ProductService.class);
+        productRepository = context.getBean(ProductRepository.class);
+
+        final var batch = new ArrayList<Product>(INSERT_BATCH);
+        for (int i = 0; i < products; i++) {
+            batch.add(new Product(null, "Product-" + i, 10.0 + i % 500, i % 100, switch (i % 4) {
+                case 0 -> new Book("Author-" + i % 1000, "Genre-" + i % 20);
+                case 1 -> new Electronics("Brand-" + i % 50, "2 years");
+                case 2 -> new Clothing("M", "Cotton");
+                default -> null;
+            }));
+            if (batch.size() == INSERT_BATCH) {
+                productService.addProducts(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            productService.addProducts(batch);
+        }
+        // the first request loads the counters
+        productService.stats();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public ProductStats runningTotals() {
+        return productService.stats();
+    }
+
+    @Benchmark
+    public ProductStats groupBy() {
+        // H2 reuses the result of a query repeated with the same parameters over an unchanged table
+        return productRepository.stats(1 + threshold++ % 50);
+    }
+}
@@ -0,0 +1,11 @@
+package local.dev.storemanager.application.dto;
+
+import java.util.List;
+
+/**
+ * IDs of the created products, in the order they were sent.
+ */
+public record BulkCreateResponse(
+        int created,
+        List<Long> ids
+) {}
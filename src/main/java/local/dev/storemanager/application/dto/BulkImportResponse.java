@@ -1,8 +1,15 @@
 package local.dev.storemanager.application.dto;
 
+import java.util.List;
+
 public record BulkImportResponse(
         int total,
         int success,
         int failed,
-        long durationMs
-) {}
+        long durationMs,
+        List<RejectedRow> rejected
+) {
+    public BulkImportResponse(int total, int success, int failed, long durationMs) {
+        this(total, success, failed, durationMs, List.of());
+    }
+}
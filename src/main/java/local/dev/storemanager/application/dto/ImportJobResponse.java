@@ -0,0 +1,19 @@
+package local.dev.storemanager.application.dto;
+
+import local.dev.storemanager.domain.model.product.ImportFormat;
+import local.dev.storemanager.domain.model.product.ImportJobStatus;
+import local.dev.storemanager.domain.model.product.ImportMode;
+
+public record ImportJobResponse(
+        String jobId,
+        ImportMode mode,
+        ImportFormat format,
+        ImportJobStatus status,
+        int parsed,
+        int persisted,
+        int failed,
+        double rowsPerSecond,
+        Long etaMs,
+        BulkImportResponse result,
+        String error
+) {}
@@ -0,0 +1,11 @@
+package local.dev.storemanager.application.dto;
+
+import java.util.List;
+
+/**
+ * Products of a multi-get, in the order their IDs were sent, and the IDs that have no product.
+ */
+public record ProductLookupResponse(
+        List<ProductResponseDto> products,
+        List<Long> notFound
+) {}
@@ -0,0 +1,15 @@
+package local.dev.storemanager.application.dto;
+
+import java.util.Map;
+
+/**
+ * Inventory totals over the whole catalog: product counts, overall and per type, the stock value (price times
+ * quantity, summed) and how many products have fewer than {@code lowStockThreshold} in stock.
+ */
+public record ProductStatsResponse(
+        long products,
+        Map<String, Long> productsByType,
+        double stockValue,
+        long lowStock,
+        int lowStockThreshold
+) {}
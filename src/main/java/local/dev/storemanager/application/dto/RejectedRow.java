@@ -0,0 +1,10 @@
+package local.dev.storemanager.application.dto;
+
+/**
+ * A row of an import that was not persisted, by its 0-based position in the uploaded array.
+ */
+public record RejectedRow(
+        int index,
+        String name,
+        String reason
+) {}
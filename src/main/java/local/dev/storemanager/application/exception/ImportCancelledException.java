@@ -0,0 +1,7 @@
+package local.dev.storemanager.application.exception;
+
+public class ImportCancelledException extends RuntimeException {
+    public ImportCancelledException() {
+        super("Import was cancelled.");
+    }
+}
@@ -0,0 +1,7 @@
+package local.dev.storemanager.application.exception;
+
+public class ImportJobNotFoundException extends RuntimeException {
+    public ImportJobNotFoundException(String jobId) {
+        super("Import job with id " + jobId + " was not found.");
+    }
+}
@@ -0,0 +1,7 @@
+package local.dev.storemanager.application.exception;
+
+public class InvalidImportPathException extends RuntimeException {
+    public InvalidImportPathException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,109 @@
+package local.dev.storemanager.application.importer;
+
+import local.dev.storemanager.domain.model.product.Product;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Chooses the batch size of one import from the commits it has seen, additive-increase / multiplicative-decrease:
+ * <ul>
+ *     <li>a full batch committed within the target latency, at no less throughput than the one before, grows the
+ *     size by a fixed step;</li>
+ *     <li>a batch over the target latency, or one that had to be bisected because it failed, shrinks it by a
+ *     factor;</li>
+ *     <li>anything else, e.g. a throughput drop within the target, keeps it.</li>
+ * </ul>
+ * Commits may be reported from several writer threads. Batches larger than the current size were cut before the last
+ * decrease and are not held against it again, so a decrease is not repeated by every batch already in flight.
+ */
+@Slf4j
+public final class AdaptiveBatchSizer implements IntSupplier {
+
+    // a throughput this much below the last one still counts as no worse, it is measurement noise
+    private static final double THROUGHPUT_TOLERANCE = 0.05;
+
+    private final int minSize;
+    private final int maxSize;
+    private final int step;
+    private final double decreaseFactor;
+    private final long targetNanos;
+    private final CommitListener listener;
+
+    private volatile int size;
+    // rows per second of the last full batch committed within the target
+    private double lastThroughput;
+
+    /**
+     * Told about every commit of a top-level batch and the size chosen after it.
+     */
+    @FunctionalInterface
+    interface CommitListener {
+        void committed(long nanos, int chosenSize);
+    }
+
+    AdaptiveBatchSizer(int initialSize, int minSize, int maxSize, int step, double decreaseFactor,
+                       long targetNanos, CommitListener listener) {
+        this.minSize = Math.max(1, Math.min(minSize, initialSize));
+        this.maxSize = Math.max(maxSize, initialSize);
+        this.step = Math.max(1, step);
+        this.decreaseFactor = decreaseFactor;
+        this.targetNanos = targetNanos;
+        this.listener = listener;
+        this.size = initialSize;
+    }
+
+    /**
+     * @return the size the next batch should have
+     */
+    @Override
+    public int getAsInt() {
+        return size;
+    }
+
+    /**
+     * Writes the batch through {@link BisectingBatchWriter} and feeds the time the whole write took back into the
+     * size. Same contract as {@link BisectingBatchWriter#write}.
+     */
+    public void write(List<ImportRow<Product>> rows, Consumer<List<Product>> persist, ImportProgress progress) {
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        final var attempts = new AtomicInteger(0);
+        final long start = System.nanoTime();
+        BisectingBatchWriter.write(rows, batch -> {
+            attempts.incrementAndGet();
+            persist.accept(batch);
+        }, progress);
+
+        record(rows.size(), System.nanoTime() - start, attempts.get() == 1);
+    }
+
+    synchronized void record(int rows, long nanos, boolean succeeded) {
+        final int previous = size;
+
+        if (!succeeded || nanos > targetNanos) {
+            if (rows <= previous) {
+                size = Math.max(minSize, (int) (previous * decreaseFactor));
+                lastThroughput = 0;
+            }
+        } else if (rows >= previous) {
+            final double throughput = rows * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(nanos, 1);
+            if (throughput >= lastThroughput * (1 - THROUGHPUT_TOLERANCE)) {
+                size = Math.min(maxSize, previous + step);
+            }
+            lastThroughput = throughput;
+        }
+
+        if (size != previous) {
+            log.debug("Import batch size {} -> {} after {} rows in {} ms{}", previous, size, rows,
+                    TimeUnit.NANOSECONDS.toMillis(nanos), succeeded ? "" : " with failures");
+        }
+        listener.committed(nanos, size);
+    }
+}
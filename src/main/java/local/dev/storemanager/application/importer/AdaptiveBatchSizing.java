@@ -0,0 +1,92 @@
+package local.dev.storemanager.application.importer;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import local.dev.storemanager.domain.model.product.ImportMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static local.dev.storemanager.config.Metrics.PRODUCT_IMPORT_BATCH_SIZE;
+import static local.dev.storemanager.config.Metrics.PRODUCT_IMPORT_BATCH_SIZE_CHOSEN;
+import static local.dev.storemanager.config.Metrics.PRODUCT_IMPORT_COMMIT_DURATION;
+
+/**
+ * Hands every import an {@link AdaptiveBatchSizer} set up from the {@code import.bulk.adaptive.*} properties, and
+ * publishes what the sizers choose: the current size per mode, the sizes chosen over time and the commit latency they
+ * react to.
+ */
+@Component
+public class AdaptiveBatchSizing {
+
+    private final MeterRegistry meterRegistry;
+    // last size chosen by an import of each mode
+    private final Map<ImportMode, AtomicInteger> currentSizes = new EnumMap<>(ImportMode.class);
+
+    @Value("${import.bulk.adaptive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${import.bulk.adaptive.target-commit-ms:250}")
+    private long targetCommitMs;
+
+    @Value("${import.bulk.adaptive.min-batch-size:10}")
+    private int minBatchSize;
+
+    @Value("${import.bulk.adaptive.max-batch-size:5000}")
+    private int maxBatchSize;
+
+    @Value("${import.bulk.adaptive.increase-percent:25}")
+    private int increasePercent;
+
+    @Value("${import.bulk.adaptive.decrease-factor:0.5}")
+    private double decreaseFactor;
+
+    public AdaptiveBatchSizing(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+
+        for (final var mode : ImportMode.values()) {
+            final var current = new AtomicInteger(0);
+            currentSizes.put(mode, current);
+            Gauge.builder(PRODUCT_IMPORT_BATCH_SIZE, current, AtomicInteger::get)
+                    .description("Batch size last chosen by a bulk import")
+                    .tag("mode", mode.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * @param initialSize the configured batch size of the mode, which the import starts from
+     */
+    public AdaptiveBatchSizer start(ImportMode mode, int initialSize) {
+        final var current = currentSizes.get(mode);
+        current.set(initialSize);
+
+        final var chosen = DistributionSummary.builder(PRODUCT_IMPORT_BATCH_SIZE_CHOSEN)
+                .description("Batch sizes chosen by bulk imports, one sample per committed batch")
+                .tag("mode", mode.name())
+                .register(meterRegistry);
+        final var commits = Timer.builder(PRODUCT_IMPORT_COMMIT_DURATION)
+                .description("Time a bulk import takes to commit one batch, including retries of its halves")
+                .tag("mode", mode.name())
+                .register(meterRegistry);
+
+        final AdaptiveBatchSizer.CommitListener listener = (nanos, chosenSize) -> {
+            commits.record(nanos, TimeUnit.NANOSECONDS);
+            chosen.record(chosenSize);
+            current.set(chosenSize);
+        };
+
+        if (!enabled) {
+            return new AdaptiveBatchSizer(initialSize, initialSize, initialSize, 1, 1.0, Long.MAX_VALUE, listener);
+        }
+        return new AdaptiveBatchSizer(initialSize, minBatchSize, maxBatchSize,
+                initialSize * increasePercent / 100, decreaseFactor,
+                TimeUnit.MILLISECONDS.toNanos(targetCommitMs), listener);
+    }
+}
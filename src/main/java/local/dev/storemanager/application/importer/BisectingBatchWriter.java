@@ -0,0 +1,47 @@
+package local.dev.storemanager.application.importer;
+
+import local.dev.storemanager.domain.model.product.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedExceptionUtils;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Writes a batch of rows in one transaction and, when that fails, splits it in half and retries each half,
+ * down to single rows. A batch with one bad row therefore costs about {@code 2 * log2(size)} extra attempts,
+ * and only the rows that fail on their own are rejected.
+ */
+@Slf4j
+public final class BisectingBatchWriter {
+
+    private BisectingBatchWriter() {
+    }
+
+    /**
+     * @param persist writes all the given products in one transaction, or none of them
+     */
+    public static void write(List<ImportRow<Product>> rows, Consumer<List<Product>> persist, ImportProgress progress) {
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        try {
+            persist.accept(rows.stream().map(ImportRow::value).toList());
+            progress.persisted(rows.size());
+        } catch (Exception e) {
+            if (rows.size() == 1) {
+                final var row = rows.get(0);
+                final var reason = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                progress.rejected(row.index(), row.value().getName(), reason);
+                log.warn("Rejected product at index {}: {}", row.index(), reason);
+                return;
+            }
+
+            log.debug("Batch of {} products starting at index {} failed, splitting it", rows.size(), rows.get(0).index());
+            final int half = rows.size() / 2;
+            write(rows.subList(0, half), persist, progress);
+            write(rows.subList(half, rows.size()), persist, progress);
+        }
+    }
+}
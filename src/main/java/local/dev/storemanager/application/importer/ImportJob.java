@@ -0,0 +1,96 @@
+package local.dev.storemanager.application.importer;
+
+import local.dev.storemanager.application.dto.BulkImportResponse;
+import local.dev.storemanager.domain.model.product.ImportFormat;
+import local.dev.storemanager.domain.model.product.ImportJobStatus;
+import local.dev.storemanager.domain.model.product.ImportMode;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.Future;
+
+/**
+ * One asynchronous bulk import: what was submitted, where it is now and, once finished, how it ended.
+ */
+@Getter
+public class ImportJob {
+
+    private final String id;
+    private final ImportMode mode;
+    private final ImportFormat format;
+    private final Path file;
+    // uploads are copied to a temporary file owned by the job, server-side files are only read
+    private final boolean temporary;
+    private final long totalBytes;
+    private final Instant submittedAt = Instant.now();
+    private final ImportProgress progress = new ImportProgress();
+
+    private volatile ImportJobStatus status = ImportJobStatus.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile BulkImportResponse result;
+    private volatile String error;
+
+    @Setter
+    private volatile Future<?> future;
+
+    public ImportJob(String id, ImportMode mode, ImportFormat format, Path file, boolean temporary, long totalBytes) {
+        this.id = id;
+        this.mode = mode;
+        this.format = format;
+        this.file = file;
+        this.temporary = temporary;
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * @return false if the job was cancelled before it could start
+     */
+    public synchronized boolean start() {
+        if (status != ImportJobStatus.QUEUED) {
+            return false;
+        }
+        startedAt = Instant.now();
+        status = ImportJobStatus.RUNNING;
+        return true;
+    }
+
+    /**
+     * Cancels the job if it has not started yet; a running job only stops once its import sees
+     * {@link ImportProgress#cancel()}.
+     *
+     * @return whether the job was still queued
+     */
+    public synchronized boolean cancelQueued() {
+        if (status != ImportJobStatus.QUEUED) {
+            return false;
+        }
+        finish(ImportJobStatus.CANCELLED);
+        return true;
+    }
+
+    public void completed(BulkImportResponse result) {
+        this.result = result;
+        finish(ImportJobStatus.COMPLETED);
+    }
+
+    public void failed(String error) {
+        this.error = error;
+        finish(ImportJobStatus.FAILED);
+    }
+
+    public void cancelled() {
+        finish(ImportJobStatus.CANCELLED);
+    }
+
+    public boolean isFinished() {
+        return finishedAt != null;
+    }
+
+    private void finish(ImportJobStatus status) {
+        finishedAt = Instant.now();
+        this.status = status;
+    }
+}
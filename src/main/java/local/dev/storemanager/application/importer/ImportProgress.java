@@ -0,0 +1,123 @@
+package local.dev.storemanager.application.importer;
+
+import local.dev.storemanager.application.dto.BulkImportResponse;
+import local.dev.storemanager.application.dto.RejectedRow;
+import local.dev.storemanager.application.exception.ImportCancelledException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live counters of one import, updated by the import itself and readable from any thread while it runs.
+ */
+public class ImportProgress {
+
+    // keeps the response bounded when a whole file is rejected; the failed count stays exact
+    static final int MAX_REPORTED_REJECTIONS = 1000;
+
+    private final AtomicInteger parsed = new AtomicInteger(0);
+    private final AtomicInteger persisted = new AtomicInteger(0);
+    private final AtomicInteger failed = new AtomicInteger(0);
+    private final AtomicLong bytesRead = new AtomicLong(0);
+    private final Queue<RejectedRow> rejected = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger reported = new AtomicInteger(0);
+    private volatile boolean cancelled;
+
+    public void parsed(int rows) {
+        parsed.addAndGet(rows);
+    }
+
+    public void persisted(int rows) {
+        persisted.addAndGet(rows);
+    }
+
+    public void failed(int rows) {
+        failed.addAndGet(rows);
+    }
+
+    /**
+     * Counts the row as failed and keeps it for the response, up to {@value #MAX_REPORTED_REJECTIONS} rows.
+     */
+    public void rejected(int index, String name, String reason) {
+        failed.incrementAndGet();
+        if (reported.incrementAndGet() <= MAX_REPORTED_REJECTIONS) {
+            rejected.add(new RejectedRow(index, name, reason));
+        }
+    }
+
+    public List<RejectedRow> rejected() {
+        final var rows = new ArrayList<>(rejected);
+        rows.sort(Comparator.comparingInt(RejectedRow::index));
+        return rows;
+    }
+
+    public BulkImportResponse toResponse(int total, long durationMs) {
+        return new BulkImportResponse(total, persisted(), failed(), durationMs, rejected());
+    }
+
+    public int parsed() {
+        return parsed.get();
+    }
+
+    public int persisted() {
+        return persisted.get();
+    }
+
+    public int failed() {
+        return failed.get();
+    }
+
+    public long bytesRead() {
+        return bytesRead.get();
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Called between batches, so a cancelled import stops reading instead of running to the end of the file.
+     */
+    public void checkNotCancelled() {
+        if (cancelled) {
+            throw new ImportCancelledException();
+        }
+    }
+
+    /**
+     * Wraps the upload so the bytes consumed by the parser are counted, which is what the ETA is based on.
+     */
+    public InputStream track(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                final int b = super.read();
+                if (b >= 0) {
+                    bytesRead.incrementAndGet();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                final int n = super.read(buffer, offset, length);
+                if (n > 0) {
+                    bytesRead.addAndGet(n);
+                }
+                return n;
+            }
+        };
+    }
+}
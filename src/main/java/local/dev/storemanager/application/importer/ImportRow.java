@@ -0,0 +1,11 @@
+package local.dev.storemanager.application.importer;
+
+/**
+ * A value on its way through an import, tagged with the 0-based position of its row in the upload.
+ */
+public record ImportRow<T>(int index, T value) {
+
+    public <R> ImportRow<R> withValue(R value) {
+        return new ImportRow<>(index, value);
+    }
+}
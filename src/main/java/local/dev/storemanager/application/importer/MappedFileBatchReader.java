@@ -0,0 +1,271 @@
+package local.dev.storemanager.application.importer;
+
+import local.dev.storemanager.application.dto.ProductRequestDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Reads a line-delimited file (NDJSON or CSV) from the local disk in parallel.
+ * <p>
+ * The file is split into chunks ending on line boundaries, and each chunk is memory-mapped with
+ * {@link FileChannel#map} and parsed on its own thread, so the bytes go from the page cache straight into the parser
+ * without being copied through a stream buffer. A CSV header is handed to every chunk in front of its lines. Rows keep
+ * their index in the file: the non-blank lines of every chunk are counted first, which gives each chunk its offset.
+ * <p>
+ * Records must not span lines, so CSV fields with embedded line breaks are not supported on this path.
+ */
+@Slf4j
+@Component
+public class MappedFileBatchReader {
+
+    // a single mapping cannot exceed Integer.MAX_VALUE bytes
+    static final long MAX_CHUNK_BYTES = 1L << 30;
+    // below this, the cost of another thread outweighs what it parses
+    static final long MIN_CHUNK_BYTES = 1L << 20;
+
+    private static final int SCAN_BUFFER_SIZE = 8192;
+
+    @Value("${import.path.parse-threads:0}")
+    private int parseThreads;
+
+    long minChunkBytes = MIN_CHUNK_BYTES;
+
+    /**
+     * @param hasHeader     whether the first line is a header to be handed to every chunk
+     * @param batchSize     asked as every batch is started, by all parser threads
+     * @param parallel      whether chunks may be parsed at the same time; if not, they are parsed one after another
+     * @param batchConsumer called from several parser threads at once when {@code parallel} is set
+     * @return the number of products read
+     */
+    public int read(Path path, ProductBatchReader reader, boolean hasHeader, IntSupplier batchSize, boolean parallel,
+                    ImportProgress progress, Consumer<List<ImportRow<ProductRequestDto>>> batchConsumer) throws IOException {
+        try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            final long dataStart = hasHeader ? nextLineStart(channel, 0, size) : 0;
+            final byte[] header = readBytes(channel, 0, dataStart);
+
+            final int threads = parallel ? resolve(parseThreads) : 1;
+            final var chunks = split(channel, dataStart, size, threads);
+            log.debug("Reading {} in {} mapped chunks on {} threads", path, chunks.size(), threads);
+
+            final var executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(chunks.size(), 1)));
+            try {
+                // first pass: rows per chunk, so every chunk knows the index of its first row
+                final var counts = invokeAll(executor, chunks.stream()
+                        .<Callable<Integer>>map(chunk -> () -> countRows(chunk))
+                        .toList());
+
+                final var tasks = new ArrayList<Callable<Integer>>(chunks.size());
+                int offset = 0;
+                for (int i = 0; i < chunks.size(); i++) {
+                    final var chunk = chunks.get(i);
+                    final int firstRow = offset;
+                    tasks.add(() -> parse(chunk, header, firstRow, reader, batchSize, progress, batchConsumer));
+                    offset += counts.get(i);
+                }
+
+                return invokeAll(executor, tasks).stream().mapToInt(Integer::intValue).sum();
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static int parse(MappedByteBuffer chunk, byte[] header, int firstRow, ProductBatchReader reader,
+                             IntSupplier batchSize, ImportProgress progress,
+                             Consumer<List<ImportRow<ProductRequestDto>>> batchConsumer) throws IOException {
+        final var index = new AtomicInteger(firstRow);
+        final InputStream lines = progress.track(new ByteBufferInputStream(chunk));
+        final InputStream in = header.length == 0
+                ? lines
+                : new SequenceInputStream(new ByteArrayInputStream(header), lines);
+
+        return reader.read(in, batchSize, batch -> {
+            // another chunk failed and this one was cancelled, there is no point in going on
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("Import aborted by a failing chunk");
+            }
+
+            final var rows = new ArrayList<ImportRow<ProductRequestDto>>(batch.size());
+            for (final var product : batch) {
+                rows.add(new ImportRow<>(index.getAndIncrement(), product));
+            }
+            batchConsumer.accept(rows);
+        });
+    }
+
+    /**
+     * Splits {@code [start, size)} into about {@code threads} mapped chunks, each ending right after a line break.
+     */
+    private List<MappedByteBuffer> split(FileChannel channel, long start, long size, int threads) throws IOException {
+        final long dataSize = size - start;
+        final var chunks = new ArrayList<MappedByteBuffer>();
+        if (dataSize <= 0) {
+            return chunks;
+        }
+
+        final long bySize = (dataSize + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES;
+        final long byThreads = Math.max(1, Math.min(threads, dataSize / minChunkBytes));
+        final long target = (dataSize + Math.max(bySize, byThreads) - 1) / Math.max(bySize, byThreads);
+
+        long chunkStart = start;
+        while (chunkStart < size) {
+            long chunkEnd = chunkStart + Math.min(target, MAX_CHUNK_BYTES);
+            if (chunkEnd < size) {
+                chunkEnd = nextLineStart(channel, chunkEnd - 1, size);
+                if (chunkEnd - chunkStart > MAX_CHUNK_BYTES) {
+                    throw new IOException("Line starting before offset " + chunkEnd + " does not fit into one chunk");
+                }
+            } else {
+                chunkEnd = size;
+            }
+            chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, chunkEnd - chunkStart));
+            chunkStart = chunkEnd;
+        }
+        return chunks;
+    }
+
+    /**
+     * @return the position right after the first line break at or after {@code position}, or {@code size}
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        final var buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        long current = position;
+        while (current < size) {
+            buffer.clear();
+            final int n = channel.read(buffer, current);
+            if (n <= 0) {
+                break;
+            }
+            for (int i = 0; i < n; i++) {
+                if (buffer.get(i) == '\n') {
+                    return current + i + 1;
+                }
+            }
+            current += n;
+        }
+        return size;
+    }
+
+    private static byte[] readBytes(FileChannel channel, long position, long length) throws IOException {
+        final var buffer = ByteBuffer.allocate((int) length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Counts the lines holding anything but whitespace, which is what both readers turn into a product.
+     */
+    static int countRows(ByteBuffer chunk) {
+        int rows = 0;
+        boolean content = false;
+        for (int i = chunk.position(); i < chunk.limit(); i++) {
+            final byte b = chunk.get(i);
+            if (b == '\n') {
+                if (content) {
+                    rows++;
+                }
+                content = false;
+            } else if (b != ' ' && b != '\t' && b != '\r') {
+                content = true;
+            }
+        }
+        return content ? rows + 1 : rows;
+    }
+
+    private static <T> List<T> invokeAll(ExecutorService executor, List<Callable<T>> tasks) throws IOException {
+        final var futures = new ArrayList<Future<T>>(tasks.size());
+        tasks.forEach(task -> futures.add(executor.submit(task)));
+
+        final var results = new ArrayList<T>(tasks.size());
+        try {
+            for (final var future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during bulk import", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw rethrow(e.getCause());
+        }
+        return results;
+    }
+
+    private static IOException rethrow(Throwable cause) {
+        if (cause instanceof IOException io) {
+            return io;
+        }
+        if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IOException(cause);
+    }
+
+    private static int resolve(int threads) {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Reads a mapped chunk without copying it into a stream buffer first.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            final int n = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
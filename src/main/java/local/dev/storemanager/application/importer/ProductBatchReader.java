@@ -0,0 +1,60 @@
+package local.dev.storemanager.application.importer;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import local.dev.storemanager.application.dto.ProductRequestDto;
+import local.dev.storemanager.domain.model.product.ImportFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Streams products out of one upload format and hands them over in batches, holding only the current batch in memory.
+ */
+public interface ProductBatchReader {
+
+    ImportFormat format();
+
+    /**
+     * @param batchSize asked for the size of every batch as it is started, so it may change during the read
+     * @return the number of products read
+     */
+    int read(InputStream in, IntSupplier batchSize, Consumer<List<ProductRequestDto>> batchConsumer) throws IOException;
+
+    /**
+     * @return the number of products read
+     */
+    default int read(InputStream in, int batchSize, Consumer<List<ProductRequestDto>> batchConsumer) throws IOException {
+        return read(in, () -> batchSize, batchConsumer);
+    }
+
+    /**
+     * Groups the products of a streaming iterator into batches of at most {@code batchSize}. Parse errors surface as
+     * the {@link IOException} they are, not wrapped the way {@link MappingIterator#hasNext()} would.
+     */
+    static int readBatches(MappingIterator<ProductRequestDto> products, IntSupplier batchSize,
+                           Consumer<List<ProductRequestDto>> batchConsumer) throws IOException {
+        int total = 0;
+        int size = batchSize.getAsInt();
+        var batch = new ArrayList<ProductRequestDto>(size);
+
+        while (products.hasNextValue()) {
+            batch.add(products.nextValue());
+            total++;
+
+            if (batch.size() >= size) {
+                batchConsumer.accept(batch);
+                size = batchSize.getAsInt();
+                batch = new ArrayList<>(size);
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            batchConsumer.accept(batch);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,50 @@
+package local.dev.storemanager.application.importer;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import local.dev.storemanager.application.dto.ProductRequestDto;
+import local.dev.storemanager.domain.model.product.ImportFormat;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Reads CSV with a header row naming the {@link ProductRequestDto} fields, e.g.
+ * {@code name,price,quantity,type,author,genre,brand,warranty,size,material}. Columns may come in any order,
+ * and empty cells are read as missing values.
+ */
+@Component
+public class ProductCsvBatchReader implements ProductBatchReader {
+
+    private final ObjectReader reader;
+
+    public ProductCsvBatchReader() {
+        final var csvMapper = CsvMapper.builder()
+                .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+                .enable(CsvParser.Feature.TRIM_SPACES)
+                .enable(CsvParser.Feature.SKIP_EMPTY_LINES)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+        this.reader = csvMapper.readerFor(ProductRequestDto.class)
+                .with(CsvSchema.emptySchema().withHeader());
+    }
+
+    @Override
+    public ImportFormat format() {
+        return ImportFormat.CSV;
+    }
+
+    @Override
+    public int read(InputStream in, IntSupplier batchSize, Consumer<List<ProductRequestDto>> batchConsumer) throws IOException {
+        try (final var products = reader.<ProductRequestDto>readValues(in)) {
+            return ProductBatchReader.readBatches(products, batchSize, batchConsumer);
+        }
+    }
+}
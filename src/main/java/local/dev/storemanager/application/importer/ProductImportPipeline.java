@@ -0,0 +1,295 @@
+package local.dev.storemanager.application.importer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.Validator;
+import local.dev.storemanager.application.dto.ProductRequestDto;
+import local.dev.storemanager.application.mapper.ProductMapper;
+import local.dev.storemanager.domain.model.product.Product;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static local.dev.storemanager.config.Metrics.PRODUCT_IMPORT_STAGE_DURATION;
+import static local.dev.storemanager.config.Metrics.PRODUCT_IMPORT_STAGE_QUEUE_DEPTH;
+import static local.dev.storemanager.config.Metrics.PRODUCT_IMPORT_STAGE_ROWS_TOTAL;
+
+/**
+ * Runs an import as parse → validate → map → persist, with a bounded queue in front of every stage after parsing.
+ * <p>
+ * Each stage has its own workers, and a full queue blocks the stage feeding it, so a slow database ends up holding
+ * back the parser instead of letting parsed batches pile up in memory. Rows rejected by validation are reported with
+ * their index and dropped; batches are persisted through {@link BisectingBatchWriter}, so a failing batch only
+ * rejects its offending rows. A batch a stage fails on as a whole has each of its rows rejected by index.
+ */
+@Slf4j
+@Component
+public class ProductImportPipeline {
+
+    private static final String VALIDATE = "validate";
+    private static final String MAP = "map";
+    private static final String PERSIST = "persist";
+
+    private final Validator validator;
+    private final ProductMapper mapper;
+    private final MeterRegistry meterRegistry;
+
+    // queue depth summed over the running imports, per stage
+    private final AtomicInteger validateDepth = new AtomicInteger(0);
+    private final AtomicInteger mapDepth = new AtomicInteger(0);
+    private final AtomicInteger persistDepth = new AtomicInteger(0);
+
+    @Value("${import.pipeline.queue-capacity:4}")
+    private int queueCapacity;
+
+    @Value("${import.pipeline.validate-threads:1}")
+    private int validateThreads;
+
+    @Value("${import.pipeline.map-threads:1}")
+    private int mapThreads;
+
+    @Value("${import.pipeline.persist-threads:0}")
+    private int persistThreads;
+
+    public ProductImportPipeline(Validator validator, ProductMapper mapper, MeterRegistry meterRegistry) {
+        this.validator = validator;
+        this.mapper = mapper;
+        this.meterRegistry = meterRegistry;
+
+        registerQueueDepth(VALIDATE, validateDepth);
+        registerQueueDepth(MAP, mapDepth);
+        registerQueueDepth(PERSIST, persistDepth);
+    }
+
+    /**
+     * Source of the parsed batches, e.g. a {@link ProductBatchReader} over an upload. It may hand batches over from
+     * several parser threads at once.
+     */
+    @FunctionalInterface
+    public interface BatchSource {
+        int read(Consumer<List<ImportRow<ProductRequestDto>>> batchConsumer) throws IOException;
+    }
+
+    /**
+     * Persists one mapped batch, e.g. {@link BisectingBatchWriter#write}.
+     */
+    @FunctionalInterface
+    public interface BatchWriter {
+        void write(List<ImportRow<Product>> rows, Consumer<List<Product>> persist, ImportProgress progress);
+    }
+
+    /**
+     * Pushes every batch of the source through the stages and returns once all of them are persisted or rejected.
+     *
+     * @return the number of products read from the source
+     */
+    public int run(BatchSource source, ImportProgress progress, Consumer<List<Product>> persist) throws IOException {
+        return run(source, progress, persist, BisectingBatchWriter::write);
+    }
+
+    /**
+     * Same as {@link #run(BatchSource, ImportProgress, Consumer)}, with the persist stage writing through
+     * {@code writer}, e.g. an {@link AdaptiveBatchSizer} that learns from the commits.
+     */
+    public int run(BatchSource source, ImportProgress progress, Consumer<List<Product>> persist,
+                   BatchWriter writer) throws IOException {
+        final var persistStage = new Stage<Product, Void>(PERSIST, persistDepth, resolve(persistThreads), null, progress,
+                Product::getName, batch -> {
+                    writer.write(batch, persist, progress);
+                    return null;
+                });
+        final var mapStage = new Stage<ProductRequestDto, Product>(MAP, mapDepth, mapThreads, persistStage, progress,
+                ProductRequestDto::name, batch -> batch.stream().map(row -> row.withValue(mapper.toDomain(row.value()))).toList());
+        final var validateStage = new Stage<ProductRequestDto, ProductRequestDto>(VALIDATE, validateDepth, validateThreads,
+                mapStage, progress, ProductRequestDto::name, batch -> validate(batch, progress));
+
+        final var stages = List.of(validateStage, mapStage, persistStage);
+        stages.forEach(Stage::start);
+        try {
+            return source.read(validateStage::put);
+        } finally {
+            // drain what was already parsed, also when parsing failed or the import was cancelled
+            validateStage.close();
+            stages.forEach(Stage::await);
+        }
+    }
+
+    private List<ImportRow<ProductRequestDto>> validate(List<ImportRow<ProductRequestDto>> batch, ImportProgress progress) {
+        final var valid = new ArrayList<ImportRow<ProductRequestDto>>(batch.size());
+        for (final var row : batch) {
+            final var violations = validator.validate(row.value());
+            if (violations.isEmpty()) {
+                valid.add(row);
+            } else {
+                final var reason = violations.stream()
+                        .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", "));
+                progress.rejected(row.index(), row.value().name(), reason);
+                log.warn("Skipping invalid product at index {}: {}", row.index(), reason);
+            }
+        }
+        return valid;
+    }
+
+    private void registerQueueDepth(String stage, AtomicInteger depth) {
+        Gauge.builder(PRODUCT_IMPORT_STAGE_QUEUE_DEPTH, depth, AtomicInteger::get)
+                .description("Batches waiting in front of a bulk import pipeline stage")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    private static int resolve(int threads) {
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * One stage of a single run: its input queue, its workers and the stage it feeds.
+     */
+    private final class Stage<I, O> {
+
+        // identity-compared marker telling a worker that no more batches are coming
+        private final List<ImportRow<I>> end = new ArrayList<>(0);
+
+        private final String name;
+        private final AtomicInteger depth;
+        private final int workers;
+        private final Stage<O, ?> next;
+        private final ImportProgress progress;
+        private final Function<I, String> nameOf;
+        private final Function<List<ImportRow<I>>, List<ImportRow<O>>> work;
+        private final BlockingQueue<List<ImportRow<I>>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final AtomicInteger running;
+        private final CountDownLatch finished;
+        private final Counter rows;
+        private final Timer duration;
+        private ExecutorService executor;
+
+        Stage(String name, AtomicInteger depth, int workers, Stage<O, ?> next, ImportProgress progress,
+              Function<I, String> nameOf, Function<List<ImportRow<I>>, List<ImportRow<O>>> work) {
+            this.name = name;
+            this.depth = depth;
+            this.workers = workers;
+            this.next = next;
+            this.progress = progress;
+            this.nameOf = nameOf;
+            this.work = work;
+            this.running = new AtomicInteger(workers);
+            this.finished = new CountDownLatch(workers);
+            this.rows = Counter.builder(PRODUCT_IMPORT_STAGE_ROWS_TOTAL)
+                    .description("Rows that went through a bulk import pipeline stage")
+                    .tag("stage", name)
+                    .register(meterRegistry);
+            this.duration = Timer.builder(PRODUCT_IMPORT_STAGE_DURATION)
+                    .description("Time a bulk import pipeline stage spends on one batch")
+                    .tag("stage", name)
+                    .register(meterRegistry);
+        }
+
+        void start() {
+            executor = Executors.newFixedThreadPool(workers);
+            for (int i = 0; i < workers; i++) {
+                executor.execute(this::work);
+            }
+        }
+
+        void put(List<ImportRow<I>> batch) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                queue.put(batch);
+                depth.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted during bulk import", e);
+            }
+        }
+
+        void close() {
+            for (int i = 0; i < workers; i++) {
+                putEnd();
+            }
+        }
+
+        void await() {
+            try {
+                finished.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted during bulk import", e);
+            } finally {
+                executor.shutdown();
+            }
+        }
+
+        private void work() {
+            try {
+                while (true) {
+                    final var batch = queue.take();
+                    if (batch == end) {
+                        break;
+                    }
+                    depth.decrementAndGet();
+
+                    process(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Bulk import stage {} was interrupted", name);
+            } finally {
+                // the last worker out closes the next stage
+                if (running.decrementAndGet() == 0 && next != null) {
+                    next.close();
+                }
+                finished.countDown();
+            }
+        }
+
+        private void process(List<ImportRow<I>> batch) {
+            final List<ImportRow<O>> output;
+            try {
+                output = duration.record(() -> work.apply(batch));
+            } catch (Exception e) {
+                // a failing batch must not take the worker down, or the stages before it would block forever
+                final var reason = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                for (final var row : batch) {
+                    progress.rejected(row.index(), nameOf.apply(row.value()), reason);
+                }
+                log.error("Bulk import stage {} failed on a batch of {} products starting at index {}",
+                        name, batch.size(), batch.get(0).index(), e);
+                return;
+            }
+
+            rows.increment(batch.size());
+            if (next != null) {
+                next.put(output);
+            }
+        }
+
+        private void putEnd() {
+            try {
+                queue.put(end);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted during bulk import", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package local.dev.storemanager.application.importer;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import local.dev.storemanager.application.dto.ProductRequestDto;
+import local.dev.storemanager.domain.model.product.ImportFormat;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Reads a JSON array of products token by token instead of materialising the whole upload.
+ * Only the batch currently being filled is held in memory, so heap use does not grow with the file size.
+ */
+@Component
+public class ProductJsonBatchReader implements ProductBatchReader {
+
+    private final ObjectMapper objectMapper;
+
+    public ProductJsonBatchReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public ImportFormat format() {
+        return ImportFormat.JSON;
+    }
+
+    /**
+     * Streams the products from the given input and hands them over in batches of at most {@code batchSize}.
+     *
+     * @return the number of products read
+     */
+    @Override
+    public int read(InputStream in, IntSupplier batchSize, Consumer<List<ProductRequestDto>> batchConsumer) throws IOException {
+        try (final var parser = objectMapper.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected a JSON array of products");
+            }
+
+            int total = 0;
+            int size = batchSize.getAsInt();
+            var batch = new ArrayList<ProductRequestDto>(size);
+
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                batch.add(objectMapper.readValue(parser, ProductRequestDto.class));
+                total++;
+
+                if (batch.size() >= size) {
+                    batchConsumer.accept(batch);
+                    size = batchSize.getAsInt();
+                    batch = new ArrayList<>(size);
+                }
+            }
+
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw new JsonParseException(parser, "Expected a product object or the end of the array");
+            }
+
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(batch);
+            }
+
+            return total;
+        }
+    }
+}
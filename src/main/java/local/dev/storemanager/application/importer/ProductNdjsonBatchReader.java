@@ -0,0 +1,37 @@
+package local.dev.storemanager.application.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import local.dev.storemanager.application.dto.ProductRequestDto;
+import local.dev.storemanager.domain.model.product.ImportFormat;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Reads newline-delimited JSON, one product object per line. Blank lines are skipped.
+ */
+@Component
+public class ProductNdjsonBatchReader implements ProductBatchReader {
+
+    private final ObjectMapper objectMapper;
+
+    public ProductNdjsonBatchReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public ImportFormat format() {
+        return ImportFormat.NDJSON;
+    }
+
+    @Override
+    public int read(InputStream in, IntSupplier batchSize, Consumer<List<ProductRequestDto>> batchConsumer) throws IOException {
+        try (final var products = objectMapper.readerFor(ProductRequestDto.class).<ProductRequestDto>readValues(in)) {
+            return ProductBatchReader.readBatches(products, batchSize, batchConsumer);
+        }
+    }
+}
@@ -6,6 +6,8 @@ import local.dev.storemanager.application.event.ProductEvent;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 import static local.dev.storemanager.config.Metrics.PRODUCT_EVENTS_PUBLISHED_TOTAL;
 
 @Component
@@ -22,7 +24,24 @@ public class ProductEventPublisher {
 
     public void publish(String topic, ProductEvent event) {
         kafkaTemplate.send(topic, event);
+        countPublished(topic, event);
+    }
+
+    /**
+     * Sends all the events and flushes the producer once, instead of once per event.
+     */
+    public void publishAll(String topic, List<ProductEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        events.forEach(event -> kafkaTemplate.send(topic, event));
+        kafkaTemplate.flush();
+
+        events.forEach(event -> countPublished(topic, event));
+    }
 
+    private void countPublished(String topic, ProductEvent event) {
         Counter.builder(PRODUCT_EVENTS_PUBLISHED_TOTAL)
                 .description("Total number of product events published to Kafka")
                 .tag("topic", topic)
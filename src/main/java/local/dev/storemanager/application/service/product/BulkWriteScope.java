@@ -0,0 +1,104 @@
+package local.dev.storemanager.application.service.product;
+
+import local.dev.storemanager.application.event.ProductEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Groups the side effects of a bulk write, so they are paid once per bulk instead of once per row.
+ * <p>
+ * While a scope is bound to the current thread, {@link ProductServiceImpl} queues its {@code PRODUCT_CREATED} and
+ * {@code PRICE_CHANGED} events instead of publishing them. The events go out in batches of {@code eventBatchSize},
+ * and whatever is left when the scope closes. The scope is bound to the thread that opens it; work handed to other
+ * threads joins it through {@link #run}.
+ */
+public final class BulkWriteScope implements AutoCloseable {
+
+    private static final ThreadLocal<BulkWriteScope> CURRENT = new ThreadLocal<>();
+
+    private final int eventBatchSize;
+    private final Consumer<List<ProductEvent>> eventSink;
+
+    private final Queue<ProductEvent> pendingEvents = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger(0);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private BulkWriteScope previous;
+
+    private BulkWriteScope(int eventBatchSize, Consumer<List<ProductEvent>> eventSink) {
+        this.eventBatchSize = eventBatchSize;
+        this.eventSink = eventSink;
+    }
+
+    /**
+     * Opens a scope and binds it to the calling thread until {@link #close()}.
+     */
+    static BulkWriteScope open(int eventBatchSize, Consumer<List<ProductEvent>> eventSink) {
+        final var scope = new BulkWriteScope(eventBatchSize, eventSink);
+        scope.previous = CURRENT.get();
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    static BulkWriteScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs the action on the calling thread as part of this scope.
+     */
+    public void run(Runnable action) {
+        final var outer = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            action.run();
+        } finally {
+            restore(outer);
+        }
+    }
+
+    void queue(List<ProductEvent> events) {
+        pendingEvents.addAll(events);
+        if (pendingCount.addAndGet(events.size()) >= eventBatchSize) {
+            flushEvents();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        if (CURRENT.get() == this) {
+            restore(previous);
+        }
+        flushEvents();
+    }
+
+    private synchronized void flushEvents() {
+        final var batch = new ArrayList<ProductEvent>(Math.max(pendingCount.get(), 0));
+        ProductEvent event;
+        while ((event = pendingEvents.poll()) != null) {
+            batch.add(event);
+        }
+        pendingCount.addAndGet(-batch.size());
+
+        if (!batch.isEmpty()) {
+            eventSink.accept(batch);
+        }
+    }
+
+    private static void restore(BulkWriteScope outer) {
+        if (outer == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(outer);
+        }
+    }
+}
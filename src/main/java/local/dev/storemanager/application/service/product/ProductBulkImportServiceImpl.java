@@ -1,131 +1,298 @@
 package local.dev.storemanager.application.service.product;
 
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import jakarta.annotation.PostConstruct;
 import local.dev.storemanager.application.dto.BulkImportResponse;
 import local.dev.storemanager.application.dto.ProductRequestDto;
+import local.dev.storemanager.application.importer.AdaptiveBatchSizer;
+import local.dev.storemanager.application.importer.AdaptiveBatchSizing;
+import local.dev.storemanager.application.importer.ImportProgress;
+import local.dev.storemanager.application.importer.ImportRow;
+import local.dev.storemanager.application.importer.MappedFileBatchReader;
+import local.dev.storemanager.application.importer.ProductBatchReader;
+import local.dev.storemanager.application.importer.ProductImportPipeline;
+import local.dev.storemanager.application.mapper.ProductMapper;
+import local.dev.storemanager.domain.model.product.ImportFormat;
 import local.dev.storemanager.domain.model.product.ImportMode;
+import local.dev.storemanager.domain.model.product.Product;
 import local.dev.storemanager.domain.service.ProductBulkImportService;
+import com.zaxxer.hikari.HikariDataSource;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.sql.DataSource;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
+import java.util.Map;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
-
-import local.dev.storemanager.domain.service.ProductService;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
 
 
 @Slf4j
 @Service
 public class ProductBulkImportServiceImpl implements ProductBulkImportService {
 
-    private final ProductService productService;
-    private final ObjectMapper objectMapper;
-    private ExecutorService executor;
+    // Hikari's own default maximum pool size
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    private final ProductServiceImpl productService;
+    private final Map<ImportFormat, ProductBatchReader> batchReaders = new EnumMap<>(ImportFormat.class);
+    private final MappedFileBatchReader mappedFileReader;
+    private final ProductMapper mapper;
+    private final ProductImportPipeline pipeline;
+    private final AdaptiveBatchSizing batchSizing;
+    private final int connectionPoolSize;
 
+    // where the adaptive batch size of each import starts
     @Value("${import.bulk.batch-size:100}")
     private int batchSize;
 
-    public ProductBulkImportServiceImpl(@Qualifier("productServiceImpl") ProductService productService,
-                                        ObjectMapper objectMapper) {
+    @Value("${import.bulk.copy-batch-size:10000}")
+    private int copyBatchSize;
+
+    // the bulk write scope is part of the implementation, not of the ProductService contract
+    public ProductBulkImportServiceImpl(ProductServiceImpl productService,
+                                        List<ProductBatchReader> batchReaders,
+                                        MappedFileBatchReader mappedFileReader,
+                                        ProductMapper mapper,
+                                        ProductImportPipeline pipeline,
+                                        AdaptiveBatchSizing batchSizing,
+                                        DataSource dataSource) {
         this.productService = productService;
-        this.objectMapper = objectMapper;
+        batchReaders.forEach(reader -> this.batchReaders.put(reader.format(), reader));
+        this.mappedFileReader = mappedFileReader;
+        this.mapper = mapper;
+        this.pipeline = pipeline;
+        this.batchSizing = batchSizing;
+        this.connectionPoolSize = connectionPoolSize(dataSource);
+    }
+
+    /**
+     * Reads the batches of one import, tagging every row with its index in the file. Batches may be handed over from
+     * several parser threads. The batch size is asked for every batch, so it can follow the commits.
+     */
+    @FunctionalInterface
+    private interface RowSource {
+        int read(IntSupplier batchSize, Consumer<List<ImportRow<ProductRequestDto>>> batchConsumer) throws IOException;
     }
 
-    @PostConstruct
-    void initExecutor() {
-        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    @Override
+    public BulkImportResponse importProducts(MultipartFile file, ImportMode mode) throws IOException {
+        final var format = ImportFormat.fromContentType(file.getContentType(), file.getOriginalFilename());
+        try (final var in = file.getInputStream()) {
+            return importProducts(in, format, mode, new ImportProgress());
+        }
     }
 
     @Override
-    public BulkImportResponse importFromJson(MultipartFile file, ImportMode mode) throws IOException {
-        log.info("Starting product import in {} mode", mode);
+    public BulkImportResponse importProducts(InputStream in, ImportFormat format, ImportMode mode,
+                                             ImportProgress progress) throws IOException {
+        log.info("Starting {} product import in {} mode", format, mode);
 
-        final List<ProductRequestDto> productDtos = objectMapper.readValue(
-                file.getInputStream(),
-                new TypeReference<>() {
-                }
-        );
+        final var tracked = progress.track(in);
+        final var reader = batchReaders.get(format);
+        return importRows((size, batchConsumer) -> {
+            // a single parser thread, so the rows read so far are the offset of the next batch
+            final var offset = new AtomicInteger(0);
+            return reader.read(tracked, size, batch -> batchConsumer.accept(toRows(batch, offset.getAndAdd(batch.size()))));
+        }, mode, progress);
+    }
 
-        log.info("Parsed {} products from uploaded file", productDtos.size());
+    @Override
+    public BulkImportResponse importFromPath(Path path, ImportFormat format, ImportMode mode,
+                                             ImportProgress progress) throws IOException {
+        if (!format.isLineDelimited()) {
+            // a JSON array cannot be split at line boundaries, so it is streamed like an upload
+            try (final var in = Files.newInputStream(path)) {
+                return importProducts(in, format, mode, progress);
+            }
+        }
 
-        return switch (mode) {
-            case SINGLE_THREADED -> importSingleThreaded(productDtos);
-            case MULTI_THREADED -> importMultiThreaded(productDtos);
-        };
+        log.info("Starting {} product import from {} in {} mode", format, path, mode);
+        final var reader = batchReaders.get(format);
+        // parsing in parallel would make the single-threaded mode anything but
+        final boolean parallel = mode != ImportMode.SINGLE_THREADED;
+        return importRows((size, batchConsumer) -> mappedFileReader.read(path, reader, format == ImportFormat.CSV,
+                size, parallel, progress, batchConsumer), mode, progress);
     }
 
-    private BulkImportResponse importSingleThreaded(List<ProductRequestDto> products) {
-        log.info("Processing {} products in single-threaded mode", products.size());
-        int success = 0, failed = 0;
-        long start = System.currentTimeMillis();
+    private BulkImportResponse importRows(RowSource source, ImportMode mode, ImportProgress progress) throws IOException {
+        // list cache eviction and PRODUCT_CREATED events are coalesced until the whole import is done
+        try (final var scope = productService.openBulkWriteScope()) {
+            final RowSource tracked = (size, batchConsumer) -> source.read(size, batch -> {
+                progress.checkNotCancelled();
+                progress.parsed(batch.size());
+                // the source may call back on its own parser threads, which have to join the scope
+                scope.run(() -> batchConsumer.accept(batch));
+            });
 
-        for (final var dto : products) {
-            try {
-                productService.addProduct(dto);
-                success++;
-            } catch (Exception e) {
-                failed++;
-                log.error("Failed to import product: {}", dto.name(), e);
-            }
+            return switch (mode) {
+                case SINGLE_THREADED -> importSingleThreaded(tracked, progress);
+                case MULTI_THREADED -> importMultiThreaded(tracked, progress, scope);
+                case JDBC_BATCH -> importJdbcBatch(tracked, progress);
+                case COPY -> importCopy(tracked, progress);
+                case VIRTUAL_THREADS -> importVirtualThreads(tracked, progress, scope);
+                case UPSERT -> importUpsert(tracked, progress);
+            };
         }
+    }
+
+    private BulkImportResponse importSingleThreaded(RowSource source, ImportProgress progress) throws IOException {
+        log.info("Processing products in single-threaded mode");
+        long start = System.currentTimeMillis();
+
+        final int total = source.read(() -> batchSize, batch -> importBatch(batch, progress));
 
         long duration = System.currentTimeMillis() - start;
-        log.info("Single-threaded import completed in {} ms. Success: {}, Failed: {}", duration, success, failed);
-        return new BulkImportResponse(products.size(), success, failed, duration);
+        log.info("Single-threaded import completed in {} ms. Success: {}, Failed: {}", duration, progress.persisted(), progress.failed());
+        return progress.toResponse(total, duration);
     }
 
-    private BulkImportResponse importMultiThreaded(List<ProductRequestDto> products) {
-        log.info("Processing {} products in multi-threaded mode with batch size {}", products.size(), batchSize);
-        int total = products.size();
+    private BulkImportResponse importMultiThreaded(RowSource source, ImportProgress progress,
+                                                   BulkWriteScope scope) throws IOException {
+        log.info("Processing products in multi-threaded pipeline mode starting at batch size {}", batchSize);
         long start = System.currentTimeMillis();
+        final var sizer = batchSizing.start(ImportMode.MULTI_THREADED, batchSize);
 
-        final var success = new AtomicInteger(0);
-        final var failed = new AtomicInteger(0);
+        // parse → validate → map → persist, each stage with its own workers behind a bounded queue
+        final int total = pipeline.run(sink -> source.read(sizer, sink), progress,
+                batch -> scope.run(() -> productService.addProducts(batch)), sizer::write);
 
-        final List<List<ProductRequestDto>> batches = new ArrayList<>();
-        for (int i = 0; i < products.size(); i += batchSize) {
-            batches.add(products.subList(i, Math.min(i + batchSize, products.size())));
-        }
+        long duration = System.currentTimeMillis() - start;
+        log.info("Multi-threaded import completed in {} ms. Success: {}, Failed: {}", duration, progress.persisted(), progress.failed());
+        return progress.toResponse(total, duration);
+    }
+
+    private BulkImportResponse importJdbcBatch(RowSource source, ImportProgress progress) throws IOException {
+        log.info("Processing products in JDBC batch mode starting at batch size {}", batchSize);
+        long start = System.currentTimeMillis();
+        final var sizer = batchSizing.start(ImportMode.JDBC_BATCH, batchSize);
 
-        log.info("Split into {} batches", batches.size());
-
-        final var futures = batches.stream()
-                .map(batch -> executor.submit(() -> {
-                    for (ProductRequestDto dto : batch) {
-                        try {
-                            productService.addProduct(dto);
-                            success.incrementAndGet();
-                        } catch (Exception e) {
-                            failed.incrementAndGet();
-                            log.error("Failed to import product: {}", dto.name(), e);
-                        }
+        // one multi-row insert per batch, split up only when the batch fails
+        final int total = source.read(sizer, batch -> writeBatch(batch, progress, sizer, productService::addProducts));
+
+        long duration = System.currentTimeMillis() - start;
+        log.info("JDBC batch import completed in {} ms. Success: {}, Failed: {}", duration, progress.persisted(), progress.failed());
+        return progress.toResponse(total, duration);
+    }
+
+    private BulkImportResponse importCopy(RowSource source, ImportProgress progress) throws IOException {
+        log.info("Processing products in COPY mode starting at batch size {}", copyBatchSize);
+        long start = System.currentTimeMillis();
+        final var sizer = batchSizing.start(ImportMode.COPY, copyBatchSize);
+
+        // one COPY per batch on PostgreSQL, batched inserts elsewhere
+        final int total = source.read(sizer, batch -> writeBatch(batch, progress, sizer, productService::copyProducts));
+
+        long duration = System.currentTimeMillis() - start;
+        log.info("COPY import completed in {} ms. Success: {}, Failed: {}", duration, progress.persisted(), progress.failed());
+        return progress.toResponse(total, duration);
+    }
+
+    private BulkImportResponse importUpsert(RowSource source, ImportProgress progress) throws IOException {
+        log.info("Processing products in upsert mode starting at batch size {}", batchSize);
+        long start = System.currentTimeMillis();
+        final var sizer = batchSizing.start(ImportMode.UPSERT, batchSize);
+
+        // one batched INSERT ... ON CONFLICT (MERGE on H2) per batch, matching rows on their natural key
+        final int total = source.read(sizer, batch -> writeBatch(batch, progress, sizer, productService::upsertProducts));
+
+        long duration = System.currentTimeMillis() - start;
+        log.info("Upsert import completed in {} ms. Success: {}, Failed: {}", duration, progress.persisted(), progress.failed());
+        return progress.toResponse(total, duration);
+    }
+
+    private BulkImportResponse importVirtualThreads(RowSource source, ImportProgress progress,
+                                                    BulkWriteScope scope) throws IOException {
+        log.info("Processing products on virtual threads starting at batch size {} and {} batches in flight",
+                batchSize, connectionPoolSize);
+        long start = System.currentTimeMillis();
+        final var sizer = batchSizing.start(ImportMode.VIRTUAL_THREADS, batchSize);
+
+        // The work is blocking JDBC, so the limit is the connection pool rather than the core count:
+        // one virtual thread per batch, at most one batch per pooled connection.
+        final var inFlight = new Semaphore(connectionPoolSize);
+
+        final int total;
+        try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            total = source.read(sizer, batch -> {
+                acquire(inFlight);
+                executor.execute(() -> {
+                    try {
+                        scope.run(() -> writeBatch(batch, progress, sizer, productService::addProducts));
+                    } finally {
+                        inFlight.release();
                     }
-                }))
+                });
+            });
+        } // close() waits for the submitted batches
+
+        long duration = System.currentTimeMillis() - start;
+        log.info("Virtual-thread import completed in {} ms. Success: {}, Failed: {}", duration, progress.persisted(), progress.failed());
+        return progress.toResponse(total, duration);
+    }
+
+    private static List<ImportRow<ProductRequestDto>> toRows(List<ProductRequestDto> batch, int offset) {
+        final var rows = new ArrayList<ImportRow<ProductRequestDto>>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            rows.add(new ImportRow<>(offset + i, batch.get(i)));
+        }
+        return rows;
+    }
+
+    /**
+     * Persists the batch in one transaction, bisecting it on failure so only the offending rows are rejected, and
+     * lets the sizer adjust the size of the next batches to how the commit went.
+     */
+    private void writeBatch(List<ImportRow<ProductRequestDto>> batch, ImportProgress progress,
+                            AdaptiveBatchSizer sizer, Consumer<List<Product>> persist) {
+        final var rows = batch.stream()
+                .map(row -> row.withValue(mapper.toDomain(row.value())))
                 .toList();
+        sizer.write(rows, persist, progress);
+    }
 
+    private static void acquire(Semaphore semaphore) {
         try {
-            for (final var future : futures) {
-                future.get(); // block until all the tasks are done
-            }
-        } catch (InterruptedException | ExecutionException e) {
-            log.error("Thread error during bulk import", e);
+            semaphore.acquire();
+        } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during bulk import", e);
         }
+    }
 
-        long duration = System.currentTimeMillis() - start;
-        log.info("Multi-threaded import completed in {} ms. Success: {}, Failed: {}", duration, success.get(), failed.get());
-        return new BulkImportResponse(total, success.get(), failed.get(), duration);
+    private static int connectionPoolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException e) {
+            log.warn("Could not read the connection pool size, using the default", e);
+        }
+        return DEFAULT_POOL_SIZE;
+    }
+
+    private void importBatch(List<ImportRow<ProductRequestDto>> batch, ImportProgress progress) {
+        for (final var row : batch) {
+            try {
+                productService.addProduct(row.value());
+                progress.persisted(1);
+            } catch (Exception e) {
+                progress.rejected(row.index(), row.value().name(), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                log.error("Failed to import product at index {}: {}", row.index(), row.value().name(), e);
+            }
+        }
     }
 
 }
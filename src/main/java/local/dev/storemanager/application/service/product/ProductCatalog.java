@@ -0,0 +1,169 @@
+package local.dev.storemanager.application.service.product;
+
+import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.domain.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The unfiltered product list, as a versioned copy-on-write snapshot.
+ * <p>
+ * The table is read once, on the first request. After that every write is applied as a delta: writers only queue the
+ * products they created, changed or deleted, and the next read merges the queued deltas into a new snapshot in one
+ * pass, which then replaces the old one. Writers therefore never copy the list nor wait for each other, and a burst of
+ * writes costs one merge. A read after a write always sees it, and a snapshot a reader holds never changes, since the
+ * snapshot keeps its own copies of the products. Once {@code products.catalog.max-pending-deltas} deltas are queued,
+ * the writer that queued the last one merges them, so a write-only load does not grow the queue without bound.
+ */
+@Slf4j
+@Component
+public class ProductCatalog {
+
+    private static final Comparator<Product> BY_ID = Comparator.comparing(Product::getId);
+
+    private final ProductRepository productRepository;
+    private final int maxPendingDeltas;
+    private final Queue<Delta> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    // set before the table is read, so a write committed after the read has its delta queued
+    private volatile boolean loading;
+    private volatile Snapshot snapshot;
+
+    /**
+     * The catalog as of one merge of deltas.
+     *
+     * @param version  incremented by every merge, so equal versions hold equal products
+     * @param products every product, in ID order, unmodifiable
+     */
+    public record Snapshot(long version, List<Product> products) {
+
+        private static Snapshot of(long version, Product[] products) {
+            return new Snapshot(version, Collections.unmodifiableList(Arrays.asList(products)));
+        }
+
+        /**
+         * @return up to {@code limit} products with an ID above {@code afterId}, in ID order
+         */
+        public List<Product> after(long afterId, int limit) {
+            int low = 0;
+            int high = products.size();
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (products.get(mid).getId() <= afterId) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return products.subList(low, (int) Math.min(products.size(), (long) low + limit));
+        }
+    }
+
+    // a product written, or the ID of a product deleted when product is null
+    private record Delta(Long id, Product product) {
+    }
+
+    public ProductCatalog(ProductRepository productRepository,
+                          @Value("${products.catalog.max-pending-deltas:10000}") int maxPendingDeltas) {
+        this.productRepository = productRepository;
+        this.maxPendingDeltas = maxPendingDeltas;
+    }
+
+    /**
+     * @return the current snapshot, reading the table if this is the first call and merging any queued deltas
+     */
+    public Snapshot snapshot() {
+        final var current = snapshot;
+        return current != null && pending.isEmpty() ? current : merge();
+    }
+
+    /**
+     * Adds the products, or replaces those already in the catalog under the same ID.
+     */
+    public void putAll(Collection<Product> written) {
+        // before the load the products are read with the rest of the table
+        if (!loading || written.isEmpty()) {
+            return;
+        }
+        written.forEach(product -> pending.add(new Delta(product.getId(), copyOf(product))));
+        queued(written.size());
+    }
+
+    public void remove(Long id) {
+        if (!loading) {
+            return;
+        }
+        pending.add(new Delta(id, null));
+        queued(1);
+    }
+
+    private void queued(int deltas) {
+        if (pendingCount.addAndGet(deltas) >= maxPendingDeltas) {
+            merge();
+        }
+    }
+
+    private synchronized Snapshot merge() {
+        if (snapshot == null) {
+            loading = true;
+            final var products = productRepository.findAll().stream()
+                    .map(ProductCatalog::copyOf)
+                    .sorted(BY_ID)
+                    .toArray(Product[]::new);
+            snapshot = Snapshot.of(0, products);
+            log.info("Loaded {} products into the catalog snapshot", products.length);
+        }
+
+        // deltas queued during the load may already be in the table; applying them again changes nothing, and later
+        // deltas of the same ID win
+        final var byId = new TreeMap<Long, Delta>();
+        int drained = 0;
+        for (Delta delta; (delta = pending.poll()) != null; drained++) {
+            byId.put(delta.id(), delta);
+        }
+        if (drained == 0) {
+            return snapshot;
+        }
+        pendingCount.addAndGet(-drained);
+
+        final var current = snapshot.products();
+        final var merged = new Product[current.size() + byId.size()];
+        int size = 0;
+        int i = 0;
+        for (final var delta : byId.values()) {
+            while (i < current.size() && current.get(i).getId() < delta.id()) {
+                merged[size++] = current.get(i++);
+            }
+            if (i < current.size() && current.get(i).getId().equals(delta.id())) {
+                i++;
+            }
+            if (delta.product() != null) {
+                merged[size++] = delta.product();
+            }
+        }
+        while (i < current.size()) {
+            merged[size++] = current.get(i++);
+        }
+
+        snapshot = Snapshot.of(snapshot.version() + 1, Arrays.copyOf(merged, size));
+        log.debug("Merged {} deltas into catalog snapshot {}", drained, snapshot.version());
+        return snapshot;
+    }
+
+    // products are mutable and may be shared with the product cache, so the snapshot keeps its own
+    private static Product copyOf(Product product) {
+        return new Product(product.getId(), product.getName(), product.getPrice(), product.getQuantity(),
+                product.getType());
+    }
+}
@@ -0,0 +1,72 @@
+package local.dev.storemanager.application.service.product;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import local.dev.storemanager.application.dto.ProductResponseDto;
+import local.dev.storemanager.application.mapper.ProductMapper;
+import local.dev.storemanager.domain.repository.ProductRepository;
+import local.dev.storemanager.domain.service.ProductExportService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams the catalog from a database cursor straight into the output: each row is mapped and serialized as it is
+ * read, so memory stays at one fetch of rows plus the output buffers, whatever the size of the catalog.
+ */
+@Slf4j
+@Service
+public class ProductExportServiceImpl implements ProductExportService {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final ProductRepository productRepository;
+    private final ProductMapper mapper;
+    private final ObjectWriter writer;
+
+    public ProductExportServiceImpl(ProductRepository productRepository, ProductMapper mapper, ObjectMapper objectMapper) {
+        this.productRepository = productRepository;
+        this.mapper = mapper;
+        // the lines are separated by hand, and flushing after every row would defeat the buffering
+        this.writer = objectMapper.writerFor(ProductResponseDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("");
+    }
+
+    @Override
+    public long exportNdjson(OutputStream out, boolean gzip) throws IOException {
+        log.info("Exporting products as NDJSON{}", gzip ? ", gzip-compressed" : "");
+        long start = System.currentTimeMillis();
+
+        final var compressed = gzip ? new GZIPOutputStream(out, GZIP_BUFFER_SIZE) : null;
+        final long count;
+        try (final var generator = writer.createGenerator(compressed != null ? compressed : out)) {
+            // the caller owns the stream
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            count = productRepository.forEach(product -> {
+                try {
+                    writer.writeValue(generator, mapper.toResponseDto(product));
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        if (compressed != null) {
+            compressed.finish();
+        }
+        out.flush();
+
+        log.info("Exported {} products in {} ms", count, System.currentTimeMillis() - start);
+        return count;
+    }
+}
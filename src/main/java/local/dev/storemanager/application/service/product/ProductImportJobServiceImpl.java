@@ -0,0 +1,228 @@
+package local.dev.storemanager.application.service.product;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import local.dev.storemanager.application.dto.ImportJobResponse;
+import local.dev.storemanager.application.exception.ImportCancelledException;
+import local.dev.storemanager.application.exception.ImportJobNotFoundException;
+import local.dev.storemanager.application.exception.InvalidImportPathException;
+import local.dev.storemanager.application.importer.ImportJob;
+import local.dev.storemanager.domain.model.product.ImportFormat;
+import local.dev.storemanager.domain.model.product.ImportMode;
+import local.dev.storemanager.domain.service.ProductBulkImportService;
+import local.dev.storemanager.domain.service.ProductImportJobService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs bulk imports in the background so the upload request returns as soon as the file is stored.
+ * The upload is copied to a temporary file first, since the multipart content is gone once the request ends.
+ * Files already on the server are imported in place, as long as they sit under {@code import.path.base-dir}.
+ */
+@Slf4j
+@Service
+public class ProductImportJobServiceImpl implements ProductImportJobService {
+
+    private final ProductBulkImportService bulkImportService;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    private ExecutorService executor;
+
+    @Value("${import.jobs.threads:2}")
+    private int threads;
+
+    @Value("${import.jobs.retention-minutes:60}")
+    private long retentionMinutes;
+
+    // empty disables imports from a server path
+    @Value("${import.path.base-dir:}")
+    private String pathBaseDir;
+
+    public ProductImportJobServiceImpl(ProductBulkImportService bulkImportService) {
+        this.bulkImportService = bulkImportService;
+    }
+
+    @PostConstruct
+    void initExecutor() {
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    @PreDestroy
+    void shutdownExecutor() {
+        jobs.values().forEach(job -> job.getProgress().cancel());
+        executor.shutdown();
+    }
+
+    @Override
+    public ImportJobResponse submit(MultipartFile file, ImportMode mode) throws IOException {
+        purgeFinishedJobs();
+
+        final var format = ImportFormat.fromContentType(file.getContentType(), file.getOriginalFilename());
+        final var upload = Files.createTempFile("product-import-", "." + format.name().toLowerCase(Locale.ROOT));
+        try {
+            file.transferTo(upload);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(upload);
+            throw e;
+        }
+
+        return queue(new ImportJob(UUID.randomUUID().toString(), mode, format, upload, true, Files.size(upload)));
+    }
+
+    @Override
+    public ImportJobResponse submitPath(String path, ImportFormat format, ImportMode mode) throws IOException {
+        purgeFinishedJobs();
+
+        final var file = resolveImportPath(path);
+        final var resolvedFormat = format != null ? format : ImportFormat.fromFilename(file.getFileName().toString());
+        return queue(new ImportJob(UUID.randomUUID().toString(), mode, resolvedFormat, file, false, Files.size(file)));
+    }
+
+    @Override
+    public ImportJobResponse getJob(String jobId) {
+        return toResponse(findJob(jobId));
+    }
+
+    @Override
+    public ImportJobResponse cancel(String jobId) {
+        final var job = findJob(jobId);
+        log.info("Cancelling import job {}", jobId);
+
+        job.getProgress().cancel();
+        // a running job stops at its next cancellation check and cleans up after itself
+        if (job.cancelQueued()) {
+            final var future = job.getFuture();
+            if (future != null) {
+                future.cancel(false);
+            }
+            deleteUpload(job);
+        }
+        return toResponse(job);
+    }
+
+    private ImportJobResponse queue(ImportJob job) {
+        jobs.put(job.getId(), job);
+        job.setFuture(executor.submit(() -> run(job)));
+
+        log.info("Queued {} import job {} in {} mode for {} bytes", job.getFormat(), job.getId(), job.getMode(),
+                job.getTotalBytes());
+        return toResponse(job);
+    }
+
+    /**
+     * Only files below the configured base directory can be imported, also when reached through {@code ..} or a
+     * symbolic link.
+     */
+    private Path resolveImportPath(String path) throws IOException {
+        if (pathBaseDir == null || pathBaseDir.isBlank()) {
+            throw new InvalidImportPathException("Imports from a server path are disabled, set import.path.base-dir to enable them");
+        }
+
+        final var baseDir = Path.of(pathBaseDir).toRealPath();
+        final var file = baseDir.resolve(path).normalize();
+        if (!Files.isRegularFile(file)) {
+            throw new InvalidImportPathException("No file to import at " + path);
+        }
+
+        final var realFile = file.toRealPath();
+        if (!realFile.startsWith(baseDir)) {
+            throw new InvalidImportPathException("Import path " + path + " is outside the import directory");
+        }
+        return realFile;
+    }
+
+    private void run(ImportJob job) {
+        // cancelled while queued, the upload is already gone
+        if (!job.start()) {
+            return;
+        }
+
+        try {
+            if (job.getProgress().isCancelled()) {
+                job.cancelled();
+                return;
+            }
+
+            job.completed(bulkImportService.importFromPath(job.getFile(), job.getFormat(), job.getMode(), job.getProgress()));
+            log.info("Import job {} completed: {}", job.getId(), job.getResult());
+        } catch (ImportCancelledException e) {
+            job.cancelled();
+            log.info("Import job {} cancelled after {} rows", job.getId(), job.getProgress().parsed());
+        } catch (Exception e) {
+            job.failed(e.getMessage());
+            log.error("Import job {} failed", job.getId(), e);
+        } finally {
+            deleteUpload(job);
+        }
+    }
+
+    private ImportJob findJob(String jobId) {
+        final var job = jobs.get(jobId);
+        if (job == null) {
+            throw new ImportJobNotFoundException(jobId);
+        }
+        return job;
+    }
+
+    private void purgeFinishedJobs() {
+        final var cutoff = Instant.now().minus(Duration.ofMinutes(retentionMinutes));
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(cutoff));
+    }
+
+    private ImportJobResponse toResponse(ImportJob job) {
+        final var progress = job.getProgress();
+        final var startedAt = job.getStartedAt();
+        final var endedAt = job.isFinished() ? job.getFinishedAt() : Instant.now();
+        final long elapsedMs = startedAt == null ? 0 : Duration.between(startedAt, endedAt).toMillis();
+
+        final int processed = progress.persisted() + progress.failed();
+        final double rowsPerSecond = elapsedMs == 0 ? 0 : processed * 1000.0 / elapsedMs;
+
+        // the row count is unknown until the whole file is parsed, so the ETA follows the bytes consumed
+        Long etaMs = null;
+        if (job.isFinished()) {
+            etaMs = 0L;
+        } else if (startedAt != null && progress.bytesRead() > 0 && job.getTotalBytes() > 0) {
+            final double done = Math.min(1.0, (double) progress.bytesRead() / job.getTotalBytes());
+            etaMs = (long) (elapsedMs * (1 - done) / done);
+        }
+
+        return new ImportJobResponse(
+                job.getId(),
+                job.getMode(),
+                job.getFormat(),
+                job.getStatus(),
+                progress.parsed(),
+                progress.persisted(),
+                progress.failed(),
+                rowsPerSecond,
+                etaMs,
+                job.getResult(),
+                job.getError()
+        );
+    }
+
+    private static void deleteUpload(ImportJob job) {
+        if (!job.isTemporary()) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(job.getFile());
+        } catch (IOException e) {
+            log.warn("Could not delete import upload {}", job.getFile(), e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package local.dev.storemanager.application.service.product;
+
+import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.domain.model.product.ProductStats;
+import local.dev.storemanager.domain.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The inventory totals served by {@link ProductServiceImpl#stats()}, kept current by every write instead of read off
+ * the table.
+ * <p>
+ * The totals are striped counters, so concurrent writers rarely contend on them. A write moves them by the difference
+ * between what its products added to the totals before and what they add now, which takes constant time per product;
+ * for that, what each product adds is remembered by ID. The products are read once, on the first request, and writes
+ * made before that are picked up by the load itself.
+ * <p>
+ * Every {@code products.stats.reconcile-interval-ms} the totals are checked against a {@code GROUP BY} over the table,
+ * which corrects writes made around this service and the rounding the stock value picks up. The correction is one
+ * more delta, made only if no write was applied while the query ran. A write committed but not yet applied when the
+ * query reads the table can still be counted twice, until the next reconciliation.
+ */
+@Slf4j
+@Component
+public class ProductInventoryStats {
+
+    private final ProductRepository productRepository;
+
+    // what each product adds to the totals, as last applied
+    private final Map<Long, Stock> stockById = new ConcurrentHashMap<>();
+    private final LongAdder products = new LongAdder();
+    private final Map<String, LongAdder> productsByType = new ConcurrentHashMap<>();
+    private final DoubleAdder stockValue = new DoubleAdder();
+    private final LongAdder lowStock = new LongAdder();
+    // counts the writes applied, so a reconciliation can tell whether one came in while it ran
+    private final LongAdder writes = new LongAdder();
+    private volatile boolean loaded;
+
+    @Value("${products.stats.low-stock-threshold:5}")
+    private int lowStockThreshold = 5;
+
+    private record Stock(String type, double value, boolean low) {
+    }
+
+    public ProductInventoryStats(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * @return the current totals, reading the table if this is the first call. Each total is exact as of some
+     * moment of the call, but a write applied meanwhile may show in some of them only.
+     */
+    public ProductStats stats() {
+        if (!loaded) {
+            load();
+        }
+        return current();
+    }
+
+    /**
+     * Adds the products to the totals, or moves the totals by what changed if they were already counted.
+     */
+    public void putAll(Collection<Product> written) {
+        if (!isLoaded()) {
+            return;
+        }
+        written.forEach(product -> apply(product.getId(), stockOf(product)));
+        writes.increment();
+    }
+
+    public void remove(Long id) {
+        if (!isLoaded()) {
+            return;
+        }
+        apply(id, null);
+        writes.increment();
+    }
+
+    /**
+     * Corrects the totals to what a {@code GROUP BY} over the table finds, unless a write is applied meanwhile.
+     */
+    @Scheduled(fixedDelayString = "${products.stats.reconcile-interval-ms:60000}",
+            initialDelayString = "${products.stats.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        // nobody has asked for the totals yet
+        if (!loaded) {
+            return;
+        }
+
+        final long writesBefore = writes.sum();
+        final var counted = current();
+        final var actual = productRepository.stats(lowStockThreshold);
+        if (writes.sum() != writesBefore) {
+            log.debug("Skipped the inventory stats reconciliation, products were written while the table was read");
+            return;
+        }
+
+        products.add(actual.products() - counted.products());
+        lowStock.add(actual.lowStock() - counted.lowStock());
+        stockValue.add(actual.stockValue() - counted.stockValue());
+        final var types = new HashSet<>(counted.productsByType().keySet());
+        types.addAll(actual.productsByType().keySet());
+        for (final var type : types) {
+            final long drift = actual.productsByType().getOrDefault(type, 0L)
+                    - counted.productsByType().getOrDefault(type, 0L);
+            if (drift != 0) {
+                productsByType.computeIfAbsent(type, key -> new LongAdder()).add(drift);
+            }
+        }
+
+        if (counted.products() != actual.products() || counted.lowStock() != actual.lowStock()
+                || !counted.productsByType().equals(actual.productsByType())) {
+            log.warn("Corrected the inventory stats from {} to the table's {}", counted, actual);
+        }
+    }
+
+    private synchronized void load() {
+        // writers check under the same lock, so a write committed while the table is read is applied after it
+        if (!loaded) {
+            final long count = productRepository.forEach(product -> apply(product.getId(), stockOf(product)));
+            loaded = true;
+            log.info("Loaded the inventory stats of {} products", count);
+        }
+    }
+
+    private boolean isLoaded() {
+        if (loaded) {
+            return true;
+        }
+        // before the load the products are read with the rest; wait for a load in progress
+        synchronized (this) {
+            return loaded;
+        }
+    }
+
+    private void apply(Long id, Stock stock) {
+        // the map swap is atomic, so concurrent writes of one product each move the totals by their own step
+        final var previous = stock == null ? stockById.remove(id) : stockById.put(id, stock);
+        if (previous != null) {
+            add(previous, -1);
+        }
+        if (stock != null) {
+            add(stock, 1);
+        }
+    }
+
+    private void add(Stock stock, int sign) {
+        products.add(sign);
+        if (stock.type() != null) {
+            productsByType.computeIfAbsent(stock.type(), key -> new LongAdder()).add(sign);
+        }
+        stockValue.add(sign * stock.value());
+        if (stock.low()) {
+            lowStock.add(sign);
+        }
+    }
+
+    private Stock stockOf(Product product) {
+        final var type = product.getType() == null ? null : product.getType().label();
+        return new Stock(type, product.getPrice() * product.getQuantity(), product.getQuantity() < lowStockThreshold);
+    }
+
+    private ProductStats current() {
+        final var byType = new TreeMap<String, Long>();
+        productsByType.forEach((type, count) -> {
+            final long sum = count.sum();
+            if (sum != 0) {
+                byType.put(type, sum);
+            }
+        });
+        return new ProductStats(products.sum(), byType, stockValue.sum(), lowStock.sum(), lowStockThreshold);
+    }
+}
@@ -0,0 +1,37 @@
+package local.dev.storemanager.application.service.product;
+
+import local.dev.storemanager.domain.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keys the products that have no current natural key once the application is up: rows written before keys were
+ * stored, and every row after {@code import.upsert.key-fields} changed. Without a current key a product is not
+ * matched by UPSERT imports, which would insert a duplicate of it instead.
+ */
+@Slf4j
+@Component
+public class ProductNaturalKeyBackfill {
+
+    private final ProductRepository productRepository;
+
+    public ProductNaturalKeyBackfill(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void assignMissingKeys() {
+        try {
+            final long assigned = productRepository.assignMissingNaturalKeys();
+            if (assigned > 0) {
+                log.info("Assigned a natural key to {} products without a current one", assigned);
+            }
+        } catch (DataAccessException e) {
+            // a product written meanwhile may have taken a key; the remaining ones are keyed at the next start
+            log.warn("Could not assign the missing natural keys", e);
+        }
+    }
+}
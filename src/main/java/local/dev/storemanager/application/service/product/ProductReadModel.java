@@ -0,0 +1,384 @@
+package local.dev.storemanager.application.service.product;
+
+import local.dev.storemanager.domain.model.product.Book;
+import local.dev.storemanager.domain.model.product.Clothing;
+import local.dev.storemanager.domain.model.product.Electronics;
+import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.domain.model.product.ProductFilter;
+import local.dev.storemanager.domain.model.product.ProductSort;
+import local.dev.storemanager.domain.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The whole catalog in memory, with secondary indexes kept up to date by every write instead of being rebuilt.
+ * <p>
+ * Hash indexes map the lower-cased type label, author, brand and size to the IDs that have them, in ID order, and a
+ * sorted index maps prices to IDs. A filter reads only the posting lists it names, so its cost follows the size of
+ * the result rather than the catalog; price order is read off the price index, or kept in a bounded heap when an
+ * attribute filter picks the products. Only used with {@code products.read-model.enabled=true}; the catalog is loaded
+ * from the repository on the first read, and writes made before that are picked up by the load itself.
+ */
+@Slf4j
+@Component
+public class ProductReadModel {
+
+    private static final String BOOK = "book";
+    private static final String ELECTRONICS = "electronics";
+    private static final String CLOTHING = "clothing";
+    private static final List<String> TYPE_LABELS = List.of(BOOK, ELECTRONICS, CLOTHING);
+    // the indexed price, since the product instance may already have been changed in place
+    private static final Comparator<Entry> BY_PRICE = Comparator.comparingDouble(Entry::price)
+            .thenComparing(entry -> entry.product().getId());
+
+    private final ProductRepository productRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TreeMap<Long, Entry> byId = new TreeMap<>();
+    private final Map<String, NavigableSet<Long>> byType = new HashMap<>();
+    private final Map<String, NavigableSet<Long>> byAuthor = new HashMap<>();
+    private final Map<String, NavigableSet<Long>> byBrand = new HashMap<>();
+    private final Map<String, NavigableSet<Long>> bySize = new HashMap<>();
+    private final TreeMap<Double, NavigableSet<Long>> byPrice = new TreeMap<>();
+    private volatile boolean loaded;
+
+    @Value("${products.read-model.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * A product with the index keys it was filed under, so it can be taken out of the indexes even after the
+     * instance has been changed.
+     */
+    private record Entry(Product product, String label, String attribute, double price) {
+    }
+
+    public ProductReadModel(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return every product, in ID order
+     */
+    public List<Product> findAll() {
+        return find(ProductFilter.none(), 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return the products matching the filter with an ID above {@code afterId}, in ID order, at most {@code limit}
+     */
+    public List<Product> find(ProductFilter filter, long afterId, int limit) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return take(ids(filter, afterId), filter, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the first {@code limit} products matching the filter in the given order
+     */
+    public List<Product> findSorted(ProductFilter filter, ProductSort sort, int limit) {
+        if (!sort.byPrice()) {
+            return find(filter, 0, limit);
+        }
+        if (limit < 1) {
+            return List.of();
+        }
+
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return filter.hasAttributes()
+                    ? top(ids(filter, 0), filter, sort, limit)
+                    : walkPrices(filter, sort, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Files new or changed products, replacing what was indexed under their IDs.
+     */
+    public void putAll(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            // before the load the products are read with the rest, and a load in progress holds the lock
+            if (loaded) {
+                products.forEach(this::index);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                unindex(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        // writers wait for the load, so a write committed while the database is read is applied after it
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                final var products = productRepository.findAll();
+                products.forEach(this::index);
+                loaded = true;
+                log.info("Loaded {} products into the read model", products.size());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the IDs above {@code afterId} that may match the filter, in ID order; the price is left to check
+     */
+    private Iterator<Long> ids(ProductFilter filter, long afterId) {
+        if (!filter.hasAttributes()) {
+            return byId.tailMap(afterId, false).keySet().iterator();
+        }
+        final var postings = postings(filter);
+        final var iterators = new ArrayList<Iterator<Long>>(postings.size());
+        postings.forEach(ids -> iterators.add(ids.tailSet(afterId, false).iterator()));
+        return new MergingIterator(iterators);
+    }
+
+    /**
+     * Without an attribute filter the price index already holds the products in order, so the first {@code limit}
+     * of the range are the answer.
+     */
+    private List<Product> walkPrices(ProductFilter filter, ProductSort sort, int limit) {
+        final var range = sort == ProductSort.PRICE_ASC
+                ? priceRange(filter.minPrice(), filter.maxPrice())
+                : priceRange(filter.minPrice(), filter.maxPrice()).descendingMap();
+        final var products = new ArrayList<Product>(limit);
+        for (final var ids : range.values()) {
+            final var ordered = sort == ProductSort.PRICE_ASC ? ids : ids.descendingSet();
+            for (final var id : ordered) {
+                products.add(byId.get(id).product());
+                if (products.size() == limit) {
+                    return products;
+                }
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Keeps the best {@code limit} matches in a bounded heap while walking the posting lists, so finding them costs
+     * {@code log(limit)} a match and never sorts or copies all of them.
+     */
+    private List<Product> top(Iterator<Long> ids, ProductFilter filter, ProductSort sort, int limit) {
+        final Comparator<Entry> order = sort == ProductSort.PRICE_ASC ? BY_PRICE : BY_PRICE.reversed();
+        // the worst entry kept is on top, to be pushed out by a better one
+        final var heap = new PriorityQueue<Entry>(limit, order.reversed());
+        while (ids.hasNext()) {
+            final var entry = byId.get(ids.next());
+            if (!filter.matchesPrice(entry.price())) {
+                continue;
+            }
+            if (heap.size() < limit) {
+                heap.add(entry);
+            } else if (order.compare(entry, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(entry);
+            }
+        }
+
+        final var entries = new ArrayList<>(heap);
+        entries.sort(order);
+        return entries.stream().map(Entry::product).toList();
+    }
+
+    private NavigableMap<Double, NavigableSet<Long>> priceRange(Double min, Double max) {
+        if (min != null && max != null) {
+            return min > max ? new TreeMap<>() : byPrice.subMap(min, true, max, true);
+        } else if (min != null) {
+            return byPrice.tailMap(min, true);
+        } else if (max != null) {
+            return byPrice.headMap(max, true);
+        }
+        return byPrice;
+    }
+
+    private List<NavigableSet<Long>> postings(ProductFilter filter) {
+        final var label = filter.type() == null ? null : lower(filter.type());
+        if (label != null && !TYPE_LABELS.contains(label)) {
+            return List.of();
+        }
+
+        // an attribute filter only narrows its own type; the other types match on their type alone
+        final var postings = new ArrayList<NavigableSet<Long>>(TYPE_LABELS.size());
+        addPostings(BOOK, label, byAuthor, filter.author(), postings);
+        addPostings(ELECTRONICS, label, byBrand, filter.brand(), postings);
+        addPostings(CLOTHING, label, bySize, filter.size(), postings);
+        return postings;
+    }
+
+    private void addPostings(String owner, String label, Map<String, NavigableSet<Long>> attributeIndex,
+                             String value, List<NavigableSet<Long>> postings) {
+        if (label != null && !label.equals(owner)) {
+            return;
+        }
+        final var ids = value == null
+                ? byType.get(owner)
+                : attributeIndex.get(lower(value));
+        if (ids != null) {
+            postings.add(ids);
+        }
+    }
+
+    private List<Product> take(Iterator<Long> ids, ProductFilter filter, int limit) {
+        final var products = new ArrayList<Product>();
+        while (products.size() < limit && ids.hasNext()) {
+            final var entry = byId.get(ids.next());
+            if (filter.matchesPrice(entry.price())) {
+                products.add(entry.product());
+            }
+        }
+        return products;
+    }
+
+    private void index(Product product) {
+        final var id = product.getId();
+        unindex(id);
+
+        final var type = product.getType();
+        final var label = type == null ? null : lower(type.label());
+        final String attribute = switch (type) {
+            case Book book -> lower(book.author());
+            case Electronics electronics -> lower(electronics.brand());
+            case Clothing clothing -> lower(clothing.size());
+            case null -> null;
+        };
+
+        byId.put(id, new Entry(product, label, attribute, product.getPrice()));
+        add(byType, label, id);
+        add(attributeIndex(label), attribute, id);
+        byPrice.computeIfAbsent(product.getPrice(), price -> new TreeSet<>()).add(id);
+    }
+
+    private void unindex(Long id) {
+        final var entry = byId.remove(id);
+        if (entry == null) {
+            return;
+        }
+        remove(byType, entry.label(), id);
+        remove(attributeIndex(entry.label()), entry.attribute(), id);
+        remove(byPrice, entry.price(), id);
+    }
+
+    private Map<String, NavigableSet<Long>> attributeIndex(String label) {
+        if (label == null) {
+            return null;
+        }
+        return switch (label) {
+            case BOOK -> byAuthor;
+            case ELECTRONICS -> byBrand;
+            case CLOTHING -> bySize;
+            default -> null;
+        };
+    }
+
+    private static <K> void add(Map<K, NavigableSet<Long>> index, K key, Long id) {
+        if (index != null && key != null) {
+            index.computeIfAbsent(key, k -> new TreeSet<>()).add(id);
+        }
+    }
+
+    private static <K> void remove(Map<K, NavigableSet<Long>> index, K key, Long id) {
+        if (index == null || key == null) {
+            return;
+        }
+        final var ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static String lower(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Walks several ascending ID sets as one, in ascending order. The sets of different types never share an ID.
+     */
+    private static final class MergingIterator implements Iterator<Long> {
+
+        private final List<Iterator<Long>> iterators;
+        private final Long[] heads;
+
+        MergingIterator(List<Iterator<Long>> iterators) {
+            this.iterators = iterators;
+            this.heads = new Long[iterators.size()];
+            for (int i = 0; i < heads.length; i++) {
+                advance(i);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            for (final var head : heads) {
+                if (head != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Long next() {
+            int smallest = -1;
+            for (int i = 0; i < heads.length; i++) {
+                if (heads[i] != null && (smallest < 0 || heads[i] < heads[smallest])) {
+                    smallest = i;
+                }
+            }
+            if (smallest < 0) {
+                throw new NoSuchElementException();
+            }
+            final var id = heads[smallest];
+            advance(smallest);
+            return id;
+        }
+
+        private void advance(int i) {
+            final var iterator = iterators.get(i);
+            heads[i] = iterator.hasNext() ? iterator.next() : null;
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package local.dev.storemanager.application.service.product;
+
+import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.domain.model.product.ProductSearchResult;
+import local.dev.storemanager.domain.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * An inverted index over product names, answering {@link ProductServiceImpl#search} without touching the database.
+ * <p>
+ * Names are split into lower-cased tokens of letters and digits. The token dictionary is sorted, so a query token
+ * matches a token equal to it or starting with it by reading one range of the dictionary. Products are numbered as
+ * they are indexed, and each token holds the numbers of the products named with it in a sorted {@code int[]}, with
+ * the tokens and ID of each number kept in plain arrays. Every query token has to match; candidates are read from
+ * the query token with the fewest matches and checked against the tokens of each, so a query costs about as much as
+ * its rarest token. The index is read from the database on the first search, one row at a time, and
+ * writes made before that are picked up by the load itself.
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final String[] NO_TOKENS = new String[0];
+    private static final int MIN_DOCS = 1024;
+    // shorter query tokens only match whole tokens, a single letter being the start of too many
+    static final int MIN_PREFIX_LENGTH = 2;
+
+    private final ProductRepository productRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TreeMap<String, Posting> dictionary = new TreeMap<>();
+    // products are numbered in the order they are indexed, so postings only ever grow at the end; a changed product
+    // gets a new number, and its old one stays empty, and in its postings, until the numbers are compacted
+    private final Map<Long, Integer> docById = new HashMap<>();
+    private long[] docIds = new long[MIN_DOCS];
+    private String[][] docTokens = new String[MIN_DOCS][];
+    private int docCount;
+    private int liveDocs;
+    private volatile boolean loaded;
+
+    /**
+     * IDs of one page of matches.
+     *
+     * @param ids   best match first
+     * @param total how many products match, over all pages
+     */
+    public record Hits(List<Long> ids, int total) {
+    }
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Finds the products whose name has, for every token of the query, a token equal to it or starting with it; a
+     * query token of one character only matches equal tokens. Products matching more tokens exactly come first, then those whose name starts with the first query token,
+     * then those with shorter names, then by ID.
+     */
+    public Hits search(String query, int offset, int limit) {
+        final var queryTokens = tokenize(query);
+        if (queryTokens.length == 0) {
+            return new Hits(List.of(), 0);
+        }
+
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            final var postings = rarest(queryTokens);
+            final var ranking = new Ranking(queryTokens, offset, limit);
+            // a product named with two tokens of the same prefix is in two postings
+            final var seen = postings.size() > 1 ? new BitSet(docCount) : null;
+            for (final var posting : postings) {
+                // the query token itself sorts first, so a product is seen through its best match
+                final int score = posting.token.equals(queryTokens[0]) ? Ranking.EXACT : Ranking.PREFIX;
+                for (int i = 0; i < posting.size; i++) {
+                    final int doc = posting.docs[i];
+                    if (docTokens[doc] == null) {
+                        // changed or deleted since it was filed
+                        continue;
+                    }
+                    if (seen != null) {
+                        if (seen.get(doc)) {
+                            continue;
+                        }
+                        seen.set(doc);
+                    }
+                    if (queryTokens.length > 1) {
+                        ranking.offer(doc, docIds[doc], docTokens[doc]);
+                    } else {
+                        // every product here matches, and the posting knows how well, unless the name starts with
+                        // another token of the same prefix
+                        final boolean leading = posting.leading(i)
+                                || seen != null && Ranking.matches(docTokens[doc][0], queryTokens[0]) > 0;
+                        ranking.offer(doc, docIds[doc], score, leading, posting.length(i));
+                    }
+                }
+            }
+            final var docs = ranking.page();
+            final var ids = new ArrayList<Long>(docs.length);
+            for (final int doc : docs) {
+                ids.add(docIds[doc]);
+            }
+            return new Hits(ids, ranking.total());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Indexes new or changed products, replacing what was indexed under their IDs.
+     */
+    public void putAll(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            // before the load the products are read with the rest, and a load in progress holds the lock
+            if (loaded) {
+                products.forEach(this::index);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                unindex(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ranks the products the same way as {@link #search}, by reading all of them instead of an index.
+     */
+    static ProductSearchResult scan(List<Product> products, String query, int offset, int limit) {
+        final var queryTokens = tokenize(query);
+        final var ranking = new Ranking(queryTokens, offset, limit);
+        if (queryTokens.length > 0) {
+            for (int i = 0; i < products.size(); i++) {
+                final var product = products.get(i);
+                ranking.offer(i, product.getId(), tokenize(product.getName()));
+            }
+        }
+        final var page = new ArrayList<Product>();
+        for (final int i : ranking.page()) {
+            page.add(products.get(i));
+        }
+        return new ProductSearchResult(page, ranking.total());
+    }
+
+    /**
+     * @return the distinct lower-cased runs of letters and digits in the text, in order
+     */
+    static String[] tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return NO_TOKENS;
+        }
+        final var tokens = new LinkedHashSet<String>();
+        for (final var token : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens.toArray(NO_TOKENS);
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        // writers wait for the load, so a write committed while the database is read is applied after it
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                final long count = productRepository.forEach(this::index);
+                loaded = true;
+                log.info("Indexed the names of {} products, {} distinct tokens", count, dictionary.size());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the postings of the dictionary tokens matching the query token that matches the fewest IDs
+     */
+    private Collection<Posting> rarest(String[] queryTokens) {
+        Collection<Posting> rarest = null;
+        long fewest = Long.MAX_VALUE;
+        for (final var queryToken : queryTokens) {
+            final var postings = queryToken.length() < MIN_PREFIX_LENGTH
+                    ? dictionary.subMap(queryToken, true, queryToken, true).values()
+                    : dictionary.subMap(queryToken, true, queryToken + Character.MAX_VALUE, false).values();
+            long size = 0;
+            for (final var posting : postings) {
+                size += posting.live();
+            }
+            if (size < fewest) {
+                rarest = postings;
+                fewest = size;
+            }
+            if (size == 0) {
+                break;
+            }
+        }
+        return rarest;
+    }
+
+    private void index(Product product) {
+        final var id = product.getId();
+        unindex(id);
+
+        final var tokens = tokenize(product.getName());
+        if (tokens.length == 0) {
+            return;
+        }
+        if (docCount == docIds.length) {
+            docIds = Arrays.copyOf(docIds, docCount * 2);
+            docTokens = Arrays.copyOf(docTokens, docCount * 2);
+        }
+        final int doc = docCount++;
+        for (int i = 0; i < tokens.length; i++) {
+            final var posting = dictionary.computeIfAbsent(tokens[i], Posting::new);
+            posting.append(doc, i == 0, tokens.length);
+            // one instance of each token, however many products are named with it
+            tokens[i] = posting.token;
+        }
+        docIds[doc] = id;
+        docTokens[doc] = tokens;
+        docById.put(id, doc);
+        liveDocs++;
+    }
+
+    private void unindex(Long id) {
+        final var doc = docById.remove(id);
+        if (doc == null) {
+            return;
+        }
+        final var tokens = docTokens[doc];
+        // an empty number is skipped by searches, so the postings only count it until enough of them pile up
+        docTokens[doc] = null;
+        liveDocs--;
+        for (final var token : tokens) {
+            final var posting = dictionary.get(token);
+            if (posting == null) {
+                continue;
+            }
+            posting.removed();
+            if (posting.live() == 0) {
+                dictionary.remove(token);
+            } else if (posting.dead > posting.size / 2) {
+                posting.purge(docTokens);
+            }
+        }
+
+        if (docCount > MIN_DOCS && docCount > 2 * liveDocs) {
+            compact();
+        }
+    }
+
+    /**
+     * Renumbers the products without the gaps left by changed and deleted ones. The new numbers keep the order of
+     * the old, so the postings stay sorted.
+     */
+    private void compact() {
+        final var renumbered = new int[docCount];
+        final int capacity = Math.max(MIN_DOCS, liveDocs * 2);
+        final var ids = new long[capacity];
+        final var tokens = new String[capacity][];
+        int live = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (docTokens[doc] != null) {
+                renumbered[doc] = live;
+                ids[live] = docIds[doc];
+                tokens[live] = docTokens[doc];
+                docById.put(docIds[doc], live);
+                live++;
+            }
+        }
+        for (final var posting : dictionary.values()) {
+            posting.purge(docTokens);
+            for (int i = 0; i < posting.size; i++) {
+                posting.docs[i] = renumbered[posting.docs[i]];
+            }
+        }
+        docIds = ids;
+        docTokens = tokens;
+        docCount = live;
+    }
+
+    /**
+     * The numbers of the products named with one token, ascending, each with whether the name starts with the token
+     * and how many tokens it has, which is all a one-token query needs to rank them. Numbers emptied by a change or a
+     * deletion are only counted as dead, and dropped in one pass once they are half of the posting, so removing a
+     * product costs no copy of the posting.
+     */
+    private static final class Posting {
+
+        private static final int LEADING = 0x80;
+        private static final int MAX_LENGTH = 0x7f;
+
+        private final String token;
+        private int[] docs = new int[2];
+        private byte[] shapes = new byte[2];
+        private int size;
+        private int dead;
+
+        Posting(String token) {
+            this.token = token;
+        }
+
+        // products are numbered as they are indexed, so a new one is always the highest
+        void append(int doc, boolean leading, int length) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                shapes = Arrays.copyOf(shapes, size * 2);
+            }
+            docs[size] = doc;
+            shapes[size] = (byte) ((leading ? LEADING : 0) | Math.min(length, MAX_LENGTH));
+            size++;
+        }
+
+        void removed() {
+            dead++;
+        }
+
+        int live() {
+            return size - dead;
+        }
+
+        /**
+         * Drops the numbers of the products without tokens any more, keeping the order of the rest.
+         */
+        void purge(String[][] docTokens) {
+            if (dead == 0) {
+                return;
+            }
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (docTokens[docs[i]] != null) {
+                    docs[kept] = docs[i];
+                    shapes[kept] = shapes[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            dead = 0;
+        }
+
+        boolean leading(int i) {
+            return (shapes[i] & LEADING) != 0;
+        }
+
+        int length(int i) {
+            return shapes[i] & MAX_LENGTH;
+        }
+    }
+
+    /**
+     * Scores the candidates and keeps the best {@code offset + limit} of them in a bounded heap, so ranking costs
+     * {@code log(offset + limit)} a candidate however many match. Candidates are referred to by a number of the
+     * caller's choosing.
+     */
+    private static final class Ranking {
+
+        private static final int EXACT = 2;
+        private static final int PREFIX = 1;
+
+        private static final Comparator<Hit> BEST_FIRST = (a, b) -> compare(a.score, a.leading, a.length, a.id, b);
+
+        private final String[] queryTokens;
+        private final int offset;
+        private final int kept;
+        // the worst hit kept is on top, to be pushed out by a better one
+        private final PriorityQueue<Hit> heap;
+        private int total;
+
+        private record Hit(int ref, long id, int score, boolean leading, int length) {
+        }
+
+        Ranking(String[] queryTokens, int offset, int limit) {
+            this.queryTokens = queryTokens;
+            this.offset = offset;
+            this.kept = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+            this.heap = new PriorityQueue<>(BEST_FIRST.reversed());
+        }
+
+        void offer(int ref, long id, String[] tokens) {
+            final int score = score(tokens);
+            if (score > 0) {
+                offer(ref, id, score, matches(tokens[0], queryTokens[0]) > 0, tokens.length);
+            }
+        }
+
+        void offer(int ref, long id, int score, boolean leading, int length) {
+            total++;
+            if (heap.size() < kept) {
+                heap.add(new Hit(ref, id, score, leading, length));
+            } else if (kept > 0 && compare(score, leading, length, id, heap.peek()) < 0) {
+                // most candidates fall here once the heap is full, so they are compared before being allocated
+                heap.poll();
+                heap.add(new Hit(ref, id, score, leading, length));
+            }
+        }
+
+        /**
+         * @return the references of the hits on the page, best first
+         */
+        int[] page() {
+            final var hits = new ArrayList<>(heap);
+            hits.sort(BEST_FIRST);
+            return hits.stream()
+                    .skip(offset)
+                    .mapToInt(Hit::ref)
+                    .toArray();
+        }
+
+        int total() {
+            return total;
+        }
+
+        private static int matches(String token, String queryToken) {
+            if (token.equals(queryToken)) {
+                return EXACT;
+            }
+            return queryToken.length() >= MIN_PREFIX_LENGTH && token.startsWith(queryToken) ? PREFIX : 0;
+        }
+
+        private static int compare(int score, boolean leading, int length, long id, Hit hit) {
+            if (score != hit.score) {
+                return score > hit.score ? -1 : 1;
+            }
+            if (leading != hit.leading) {
+                return leading ? -1 : 1;
+            }
+            if (length != hit.length) {
+                return Integer.compare(length, hit.length);
+            }
+            return Long.compare(id, hit.id);
+        }
+
+        /**
+         * @return 0 when a query token matches no token of the name
+         */
+        private int score(String[] tokens) {
+            if (tokens == null || tokens.length == 0) {
+                return 0;
+            }
+            int score = 0;
+            for (final var queryToken : queryTokens) {
+                int best = 0;
+                for (int i = 0; i < tokens.length && best < EXACT; i++) {
+                    best = Math.max(best, matches(tokens[i], queryToken));
+                }
+                if (best == 0) {
+                    return 0;
+                }
+                score += best;
+            }
+            return score;
+        }
+    }
+}
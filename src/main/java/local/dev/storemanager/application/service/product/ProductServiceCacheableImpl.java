@@ -3,18 +3,27 @@ package local.dev.storemanager.application.service.product;
 import local.dev.storemanager.application.dto.ProductRequestDto;
 import local.dev.storemanager.application.exception.ProductNotFoundException;
 import local.dev.storemanager.application.mapper.ProductMapper;
-import local.dev.storemanager.domain.model.product.Book;
-import local.dev.storemanager.domain.model.product.Clothing;
-import local.dev.storemanager.domain.model.product.Electronics;
 import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.domain.model.product.ProductFilter;
+import local.dev.storemanager.domain.model.product.ProductLookup;
+import local.dev.storemanager.domain.model.product.ProductNaturalKey;
+import local.dev.storemanager.domain.model.product.ProductPage;
+import local.dev.storemanager.domain.model.product.ProductSearchResult;
+import local.dev.storemanager.domain.model.product.ProductSort;
+import local.dev.storemanager.domain.model.product.ProductStats;
+import local.dev.storemanager.domain.model.product.UpsertedProduct;
 import local.dev.storemanager.domain.repository.ProductRepository;
 import local.dev.storemanager.domain.service.ProductService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 import static local.dev.storemanager.config.CacheNames.PRODUCT;
 import static local.dev.storemanager.config.CacheNames.PRODUCTS;
@@ -24,17 +33,54 @@ public class ProductServiceCacheableImpl implements ProductService {
 
     private final ProductRepository productRepository;
     private final ProductMapper mapper;
+    private final ProductNaturalKey naturalKey;
+    private final ProductCatalog catalog;
 
-    public ProductServiceCacheableImpl(ProductRepository productRepository, ProductMapper mapper) {
+    @Value("${products.stats.low-stock-threshold:5}")
+    private int lowStockThreshold = 5;
+
+    public ProductServiceCacheableImpl(ProductRepository productRepository, ProductMapper mapper,
+                                       ProductNaturalKey naturalKey, ProductCatalog catalog) {
         this.productRepository = productRepository;
         this.mapper = mapper;
+        this.naturalKey = naturalKey;
+        this.catalog = catalog;
     }
 
     @Override
     @CachePut(value = "product", key = "#result.id")
     public Product addProduct(ProductRequestDto dto) {
         final var product = mapper.toDomain(dto);
-        return productRepository.save(product);
+        return written(productRepository.save(product));
+    }
+
+    @Override
+    @CacheEvict(value = PRODUCTS, allEntries = true)
+    public List<Product> createProducts(List<ProductRequestDto> dtos) {
+        return written(productRepository.saveAll(dtos.stream().map(mapper::toDomain).toList()));
+    }
+
+    @Override
+    @CacheEvict(value = PRODUCTS, allEntries = true)
+    public List<Product> addProducts(List<Product> products) {
+        return written(productRepository.saveAll(products));
+    }
+
+    @Override
+    @CacheEvict(value = PRODUCTS, allEntries = true)
+    public List<Product> copyProducts(List<Product> products) {
+        return written(productRepository.copyAll(products));
+    }
+
+    @Override
+    @CacheEvict(value = PRODUCTS, allEntries = true)
+    public List<Product> upsertProducts(List<Product> products) {
+        final var byKey = new LinkedHashMap<String, Product>();
+        products.forEach(product -> byKey.put(naturalKey.of(product), product));
+
+        return written(productRepository.upsertAll(byKey).stream()
+                .map(UpsertedProduct::product)
+                .toList());
     }
 
     @Override
@@ -44,6 +90,16 @@ public class ProductServiceCacheableImpl implements ProductService {
                 .orElseThrow(() -> new ProductNotFoundException(id));
     }
 
+    @Override
+    public ProductLookup findByIds(List<Long> ids) {
+        // the cache annotations work per call, so the products come from the database in one query
+        final var found = productRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
+        return new ProductLookup(
+                ids.stream().map(found::get).filter(Objects::nonNull).toList(),
+                ids.stream().distinct().filter(id -> !found.containsKey(id)).toList());
+    }
+
     @Override
     @Cacheable(PRODUCTS)
     public List<Product> findAll() {
@@ -52,31 +108,32 @@ public class ProductServiceCacheableImpl implements ProductService {
 
     @Override
     public List<Product> findAllFiltered(String type, String author, String brand, String size) {
+        return productRepository.findAll(new ProductFilter(type, author, brand, size));
+    }
 
-        final var allProducts = productRepository.findAll();
-
-        return allProducts.stream()
-                .filter(product -> {
-                    final var productType = product.getType();
+    @Override
+    public List<Product> findSorted(ProductFilter filter, ProductSort sort, int limit) {
+        return productRepository.findSorted(filter, sort, limit);
+    }
 
-                    if (type != null) {
-                        if (productType == null || !type.equalsIgnoreCase(productType.label())) {
-                            return false;
-                        }
-                    }
+    @Override
+    public ProductSearchResult search(String query, int offset, int limit) {
+        // no index is kept here, so the whole product list is ranked; it comes from the catalog snapshot, since
+        // findAll() called from here bypasses the cache proxy and would read the table every time
+        return ProductSearchIndex.scan(catalog.snapshot().products(), query, offset, limit);
+    }
 
-                    if (productType instanceof Book book) {
-                        return author == null || book.author().equalsIgnoreCase(author);
-                    } else if (productType instanceof Electronics electronics) {
-                        return brand == null || electronics.brand().equalsIgnoreCase(brand);
-                    } else if (productType instanceof Clothing clothing) {
-                        return size == null || clothing.size().equalsIgnoreCase(size);
-                    }
+    @Override
+    public ProductStats stats() {
+        // no totals are kept here, so every call runs the aggregate query
+        return productRepository.stats(lowStockThreshold);
+    }
 
-                    // Product has no type or no filter matched
-                    return type == null && author == null && brand == null && size == null;
-                })
-                .toList();
+    @Override
+    public ProductPage findPage(ProductFilter filter, Long cursor, int limit) {
+        // one row more than asked for tells whether there is a next page
+        final var products = productRepository.findPage(filter, cursor == null ? 0 : cursor, limit + 1);
+        return ProductPage.of(products, limit);
     }
 
     @Override
@@ -87,12 +144,24 @@ public class ProductServiceCacheableImpl implements ProductService {
         product.setName(dto.name());
         product.setPrice(dto.price());
         product.setQuantity(dto.quantity());
-        return productRepository.save(product);
+        return written(productRepository.save(product));
     }
 
     @Override
     @CacheEvict(value = {PRODUCT, PRODUCTS}, allEntries = true)
     public void deleteProduct(Long id) {
         productRepository.deleteById(id);
+        catalog.remove(id);
+    }
+
+    // the catalog snapshot is shared with ProductServiceImpl, so writes made here are applied to it as well
+    private Product written(Product product) {
+        catalog.putAll(List.of(product));
+        return product;
+    }
+
+    private List<Product> written(List<Product> products) {
+        catalog.putAll(products);
+        return products;
     }
 }
\ No newline at end of file
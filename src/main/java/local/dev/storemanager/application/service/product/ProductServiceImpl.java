@@ -9,14 +9,23 @@ import local.dev.storemanager.domain.model.product.*;
 import local.dev.storemanager.domain.repository.ProductRepository;
 import local.dev.storemanager.domain.service.ProductService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static local.dev.storemanager.config.CacheNames.PRODUCT;
-import static local.dev.storemanager.config.CacheNames.PRODUCTS;
 import static local.dev.storemanager.config.KafkaTopics.PRODUCTS_TOPIC;
 import static local.dev.storemanager.constants.EventTypes.PRICE_CHANGED;
 import static local.dev.storemanager.constants.EventTypes.PRODUCT_CREATED;
@@ -27,6 +36,7 @@ import static local.dev.storemanager.constants.EventTypes.PRODUCT_CREATED;
  * This service uses manual caching via CacheManager.
  * Annotations like @Cacheable were avoided due to Spring proxy limitations
  * when calling methods within the same bean.
+ * The product list is not cached but kept current by every write, see {@link ProductCatalog}.
  */
 public class ProductServiceImpl implements ProductService {
 
@@ -34,15 +44,36 @@ public class ProductServiceImpl implements ProductService {
     private final ProductMapper mapper;
     private final CacheManager cacheManager;
     private final ProductEventPublisher publisher;
+    private final ProductNaturalKey naturalKey;
+    private final ProductReadModel readModel;
+    private final ProductCatalog catalog;
+    private final ProductVersions versions;
+    private final ProductSearchIndex searchIndex;
+    private final ProductInventoryStats inventoryStats;
+
+    @Value("${products.events.batch-size:500}")
+    private int eventBatchSize = 500;
 
     public ProductServiceImpl(ProductRepository productRepository,
                               ProductMapper mapper,
                               CacheManager cacheManager,
-                              ProductEventPublisher publisher) {
+                              ProductEventPublisher publisher,
+                              ProductNaturalKey naturalKey,
+                              ProductReadModel readModel,
+                              ProductCatalog catalog,
+                              ProductVersions versions,
+                              ProductSearchIndex searchIndex,
+                              ProductInventoryStats inventoryStats) {
         this.productRepository = productRepository;
         this.mapper = mapper;
         this.cacheManager = cacheManager;
         this.publisher = publisher;
+        this.naturalKey = naturalKey;
+        this.readModel = readModel;
+        this.catalog = catalog;
+        this.versions = versions;
+        this.searchIndex = searchIndex;
+        this.inventoryStats = inventoryStats;
     }
 
     @Override
@@ -53,12 +84,119 @@ public class ProductServiceImpl implements ProductService {
         log.debug("Product saved with ID: {}", saved.getId());
 
         getCache(PRODUCT).put(saved.getId(), saved);
-        evictAll(PRODUCTS);
+
+        final var scope = BulkWriteScope.current();
+        listChanged(List.of(saved));
+        if (scope != null) {
+            scope.queue(List.of(new ProductEvent(PRODUCT_CREATED, saved)));
+            return saved;
+        }
 
         publisher.publish(PRODUCTS_TOPIC, new ProductEvent(PRODUCT_CREATED, saved));
         return saved;
     }
 
+    @Override
+    public List<Product> createProducts(List<ProductRequestDto> dtos) {
+        final var products = dtos.stream()
+                .map(mapper::toDomain)
+                .toList();
+        return addProducts(products);
+    }
+
+    @Override
+    public List<Product> addProducts(List<Product> products) {
+        log.info("Adding {} new products in one batch", products.size());
+
+        final var saved = productRepository.saveAll(products);
+        log.debug("Batch saved with {} generated IDs", saved.size());
+
+        return afterBatchCreated(saved);
+    }
+
+    @Override
+    public List<Product> copyProducts(List<Product> products) {
+        log.info("Copying {} new products in one batch", products.size());
+
+        final var saved = productRepository.copyAll(products);
+        log.debug("Batch copied with {} generated IDs", saved.size());
+
+        return afterBatchCreated(saved);
+    }
+
+    @Override
+    public List<Product> upsertProducts(List<Product> products) {
+        log.info("Upserting {} products in one batch", products.size());
+
+        final var byKey = new LinkedHashMap<String, Product>();
+        products.forEach(product -> byKey.put(naturalKey.of(product), product));
+
+        final var upserted = productRepository.upsertAll(byKey);
+
+        final var cache = getCache(PRODUCT);
+        final var events = new ArrayList<ProductEvent>();
+        for (final var result : upserted) {
+            final var product = result.product();
+            cache.put(product.getId(), product);
+            if (result.created()) {
+                events.add(new ProductEvent(PRODUCT_CREATED, product));
+            } else if (result.priceChanged()) {
+                events.add(new ProductEvent(PRICE_CHANGED, String.valueOf(product.getId())));
+            }
+        }
+        log.debug("Upserted {} products, {} events to publish", upserted.size(), events.size());
+
+        final var written = upserted.stream().map(UpsertedProduct::product).toList();
+        final var scope = BulkWriteScope.current();
+        listChanged(written);
+        if (scope != null) {
+            scope.queue(events);
+        } else {
+            publisher.publishAll(PRODUCTS_TOPIC, events);
+        }
+        return written;
+    }
+
+    /**
+     * Opens a {@link BulkWriteScope} on the calling thread, holding back the events of the writes made in it.
+     */
+    public BulkWriteScope openBulkWriteScope() {
+        return BulkWriteScope.open(eventBatchSize, events -> publisher.publishAll(PRODUCTS_TOPIC, events));
+    }
+
+    private List<Product> afterBatchCreated(List<Product> saved) {
+        final var cache = getCache(PRODUCT);
+        saved.forEach(product -> cache.put(product.getId(), product));
+
+        final var events = saved.stream()
+                .map(product -> new ProductEvent(PRODUCT_CREATED, product))
+                .toList();
+
+        final var scope = BulkWriteScope.current();
+        listChanged(saved);
+        if (scope != null) {
+            scope.queue(events);
+            return saved;
+        }
+
+        publisher.publishAll(PRODUCTS_TOPIC, events);
+        return saved;
+    }
+
+    /**
+     * Applies a write as a delta to the catalog snapshot and, when it is enabled, the read model, so the next read of
+     * the list does not reload the table, and to the name search index and the inventory totals. Called once the product cache has the write, so the new versions only show once every read returns it.
+     */
+    private void listChanged(List<Product> written) {
+        if (readModel.isEnabled()) {
+            readModel.putAll(written);
+        }
+        catalog.putAll(written);
+        searchIndex.putAll(written);
+        inventoryStats.putAll(written);
+        versions.changed(written.stream().map(Product::getId).toList());
+    }
+
     @Override
     public Product findById(Long id) {
         log.info("Fetching product with ID: {}", id);
@@ -77,71 +215,152 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
-    public List<Product> findAll() {
-        log.info("Fetching all products");
+    public ProductLookup findByIds(List<Long> ids) {
+        log.info("Fetching {} products by ID", ids.size());
 
-        final var cache = getCache(PRODUCTS);
-        final var cachedList = cache.get("all", List.class);
+        final var distinct = new LinkedHashSet<>(ids);
+        final var found = getAll(getCache(PRODUCT), distinct);
 
-        if (cachedList != null) return cachedList;
+        final var products = ids.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .toList();
+        final var notFound = distinct.stream()
+                .filter(id -> !found.containsKey(id))
+                .toList();
+        log.debug("Found {} products, {} IDs without a product", products.size(), notFound.size());
+        return new ProductLookup(products, notFound);
+    }
 
-        final var products = productRepository.findAll();
-        log.info("Retrieved {} products from DB", products.size());
+    /**
+     * Reads the products from the cache in one bulk lookup, and loads all the misses with one query.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Long, Product> getAll(Cache cache, Set<Long> ids) {
+        if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+            final var found = ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) caffeine)
+                    .getAll(ids, misses -> loadAll((Set<Long>) misses));
+            return (Map<Long, Product>) (Map<?, ?>) found;
+        }
 
-        products.forEach(p -> log.debug("Product: {}", p));
-        cache.put("all", products);
+        // other cache providers have no bulk read, but the misses still come in one query
+        final var found = new HashMap<Long, Product>();
+        final var misses = new LinkedHashSet<Long>();
+        for (final var id : ids) {
+            final var cached = cache.get(id, Product.class);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        final var loaded = loadAll(misses);
+        loaded.forEach(cache::put);
+        found.putAll(loaded);
+        return found;
+    }
 
-        return products;
+    private Map<Long, Product> loadAll(Set<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        final var products = productRepository.findAllById(ids);
+        log.debug("Loaded {} of {} products missing from the cache", products.size(), ids.size());
+        return products.stream().collect(Collectors.toMap(Product::getId, product -> product));
+    }
+
+    @Override
+    public List<Product> findAll() {
+        log.info("Fetching all products");
+
+        if (readModel.isEnabled()) {
+            return readModel.findAll();
+        }
+
+        // the table is only read the first time, after that writes keep the snapshot current
+        return catalog.snapshot().products();
     }
 
     @Override
     public List<Product> findAllFiltered(String type, String author, String brand, String size) {
         log.info("Filtering products with type={}, author={}, brand={}, size={}", type, author, brand, size);
 
-        List<Product> allProducts = findAll();
-
-        return allProducts.stream()
-                .filter(product -> {
-                    final var productType = product.getType();
-
-                    if (type != null) {
-                        if (productType == null || !type.equalsIgnoreCase(productType.label())) {
-                            return false;
-                        }
-                    }
-
-                    if (productType instanceof Book book) {
-                        return author == null || book.author().equalsIgnoreCase(author);
-                    } else if (productType instanceof Electronics electronics) {
-                        return brand == null || electronics.brand().equalsIgnoreCase(brand);
-                    } else if (productType instanceof Clothing clothing) {
-                        return size == null || clothing.size().equalsIgnoreCase(size);
-                    }
-
-                    // Product has no type or no filter matched
-                    return type == null && author == null && brand == null && size == null;
-                })
-                .toList();
+        final var filter = new ProductFilter(type, author, brand, size);
+        if (filter.isEmpty()) {
+            return findAll();
+        }
+        if (readModel.isEnabled()) {
+            return readModel.find(filter, 0, Integer.MAX_VALUE);
+        }
+        // the database reads only the matching rows instead of every product
+        return productRepository.findAll(filter);
     }
 
+    @Override
+    public ProductPage findPage(ProductFilter filter, Long cursor, int limit) {
+        log.info("Fetching up to {} products after {} with {}", limit, cursor, filter);
+        // one row more than asked for tells whether there is a next page
+        final long afterId = cursor == null ? 0 : cursor;
+        final List<Product> products;
+        if (readModel.isEnabled()) {
+            products = readModel.find(filter, afterId, limit + 1);
+        } else if (filter.isEmpty()) {
+            // the unfiltered list is paged off the snapshot, found by binary search on the ID
+            products = catalog.snapshot().after(afterId, limit + 1);
+        } else {
+            products = productRepository.findPage(filter, afterId, limit + 1);
+        }
+        return ProductPage.of(products, limit);
+    }
+
+    @Override
+    public List<Product> findSorted(ProductFilter filter, ProductSort sort, int limit) {
+        log.info("Fetching the first {} products by {} with {}", limit, sort, filter);
+        return readModel.isEnabled()
+                ? readModel.findSorted(filter, sort, limit)
+                : productRepository.findSorted(filter, sort, limit);
+    }
+
+    @Override
+    public ProductSearchResult search(String query, int offset, int limit) {
+        log.info("Searching product names for '{}', {} after {}", query, limit, offset);
+
+        final var hits = searchIndex.search(query, offset, limit);
+        // the index holds IDs only; the products come from the cache, with one query for the misses
+        final var products = hits.ids().isEmpty() ? List.<Product>of() : findByIds(hits.ids()).products();
+        log.debug("{} products match '{}'", hits.total(), query);
+        return new ProductSearchResult(products, hits.total());
+    }
+
+    @Override
+    public ProductStats stats() {
+        log.info("Fetching the inventory stats");
+        // kept current by every write, so this reads counters rather than the table
+        return inventoryStats.stats();
+    }
 
     @Override
     public Product updateProduct(Long id, ProductRequestDto dto) {
         log.info("Updating product with ID: {}", id);
 
-        final var product = findById(id);
-        final var priceChanged = Double.compare(product.getPrice(), dto.price()) != 0;
+        final var current = findById(id);
+        final var priceChanged = Double.compare(current.getPrice(), dto.price()) != 0;
 
-        product.setName(dto.name());
-        product.setPrice(dto.price());
-        product.setQuantity(dto.quantity());
-        product.setType(ProductTypeFactory.from(dto));
+        // the current instance is the one the cache and the read model hand out, so it must not change before the
+        // update is saved: a failed save would leave them serving a product that was never written
+        final var product = Product.builder()
+                .id(current.getId())
+                .name(dto.name())
+                .price(dto.price())
+                .quantity(dto.quantity())
+                .type(ProductTypeFactory.from(dto))
+                .build();
 
         final var saved = productRepository.save(product);
         log.debug("Product updated: {}", saved.getId());
 
         getCache(PRODUCT).put(id, saved);
-        evictAll(PRODUCTS);
+        listChanged(List.of(saved));
 
         if (priceChanged) {
             publisher.publish(PRODUCTS_TOPIC, new ProductEvent(PRICE_CHANGED, String.valueOf(saved.getId())));
@@ -158,19 +377,28 @@ public class ProductServiceImpl implements ProductService {
         productRepository.deleteById(id);
 
         getCache(PRODUCT).evict(id);
-        evictAll(PRODUCTS);
+        if (readModel.isEnabled()) {
+            readModel.remove(id);
+        }
+        catalog.remove(id);
+        searchIndex.remove(id);
+        inventoryStats.remove(id);
+        versions.removed(id);
 
         log.info("Deleted product with ID: {}", id);
     }
 
-    private Cache getCache(String name) {
-        return cacheManager.getCache(name);
+    @Override
+    public Optional<String> catalogVersion() {
+        return Optional.of(versions.catalogVersion());
     }
 
-    private void evictAll(String cacheName) {
-        Cache cache = getCache(cacheName);
-        if (cache != null) {
-            cache.clear();
-        }
+    @Override
+    public Optional<String> productVersion(Long id) {
+        return Optional.of(versions.productVersion(id));
+    }
+
+    private Cache getCache(String name) {
+        return cacheManager.getCache(name);
     }
 }
@@ -0,0 +1,58 @@
+package local.dev.storemanager.application.service.product;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versions of the catalog and of single products, from which {@code ProductController} builds its ETags.
+ * <p>
+ * {@link ProductServiceImpl} reports every write once the caches and the in-memory indexes have it applied, so a
+ * version never runs ahead of what a read returns. Each write bumps the catalog version and stamps the products it
+ * wrote with it. Only the {@code products.versions.max-entries} most recently written products keep their own
+ * version; any other product, deleted ones included, reports the catalog version, which is never below the version of
+ * its last write, so its ETag changes more often than needed but never stays the same across a change. The versions
+ * live in memory and start over on restart, so they are prefixed with the startup time to keep the ETags of an earlier
+ * run from matching.
+ */
+@Component
+public class ProductVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicLong catalogVersion = new AtomicLong(0);
+    private final Cache<Long, Long> productVersions;
+
+    public ProductVersions(@Value("${products.versions.max-entries:100000}") long maxEntries) {
+        this.productVersions = Caffeine.newBuilder().maximumSize(maxEntries).build();
+    }
+
+    public String catalogVersion() {
+        return epoch + "-" + Long.toString(catalogVersion.get(), Character.MAX_RADIX);
+    }
+
+    public String productVersion(Long id) {
+        final var version = productVersions.getIfPresent(id);
+        return epoch + "-" + Long.toString(id, Character.MAX_RADIX)
+                + "-" + Long.toString(version == null ? catalogVersion.get() : version, Character.MAX_RADIX);
+    }
+
+    /**
+     * Records a write of the given products, created or changed.
+     */
+    public void changed(Collection<Long> ids) {
+        final long version = catalogVersion.incrementAndGet();
+        ids.forEach(id -> productVersions.put(id, version));
+    }
+
+    /**
+     * Records the deletion of a product, which from then on reports the catalog version.
+     */
+    public void removed(Long id) {
+        catalogVersion.incrementAndGet();
+        productVersions.invalidate(id);
+    }
+}
@@ -5,4 +5,10 @@ public final class Metrics {
     }
 
     public static final String PRODUCT_EVENTS_PUBLISHED_TOTAL = "product_events_published_total";
+    public static final String PRODUCT_IMPORT_STAGE_QUEUE_DEPTH = "product_import_stage_queue_depth";
+    public static final String PRODUCT_IMPORT_STAGE_ROWS_TOTAL = "product_import_stage_rows_total";
+    public static final String PRODUCT_IMPORT_STAGE_DURATION = "product_import_stage_duration";
+    public static final String PRODUCT_IMPORT_BATCH_SIZE = "product_import_batch_size";
+    public static final String PRODUCT_IMPORT_BATCH_SIZE_CHOSEN = "product_import_batch_size_chosen";
+    public static final String PRODUCT_IMPORT_COMMIT_DURATION = "product_import_commit_duration";
 }
@@ -0,0 +1,51 @@
+package local.dev.storemanager.domain.model.product;
+
+import java.util.Locale;
+
+public enum ImportFormat {
+    JSON,
+    NDJSON,
+    CSV;
+
+    /**
+     * Picks the format from the upload's content type, falling back to the file extension when the content type
+     * is missing or generic. Anything unrecognised is treated as a JSON array, as before.
+     */
+    public static ImportFormat fromContentType(String contentType, String filename) {
+        if (contentType != null) {
+            final var type = contentType.toLowerCase(Locale.ROOT);
+            if (type.contains("ndjson") || type.contains("jsonl") || type.contains("json-seq") || type.contains("jsonlines")) {
+                return NDJSON;
+            }
+            if (type.contains("csv")) {
+                return CSV;
+            }
+            if (type.contains("json")) {
+                return JSON;
+            }
+        }
+        return fromFilename(filename);
+    }
+
+    public static ImportFormat fromFilename(String filename) {
+        if (filename == null) {
+            return JSON;
+        }
+
+        final var name = filename.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        return JSON;
+    }
+
+    /**
+     * Whether every product sits on its own line, which is what allows a file to be split and parsed in parallel.
+     */
+    public boolean isLineDelimited() {
+        return this != JSON;
+    }
+}
@@ -0,0 +1,9 @@
+package local.dev.storemanager.domain.model.product;
+
+public enum ImportJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    CANCELLED
+}
@@ -2,5 +2,9 @@ package local.dev.storemanager.domain.model.product;
 
 public enum ImportMode {
     SINGLE_THREADED,
-    MULTI_THREADED
+    MULTI_THREADED,
+    JDBC_BATCH,
+    COPY,
+    VIRTUAL_THREADS,
+    UPSERT
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package local.dev.storemanager.domain.model.product;
+
+/**
+ * Filter of a product listing; {@code null} leaves a field unfiltered. Attribute values are compared
+ * case-insensitively, and {@code author}, {@code brand} and {@code size} only apply to the type that has them. The
+ * price bounds are inclusive and apply to every product.
+ */
+public record ProductFilter(String type, String author, String brand, String size, Double minPrice, Double maxPrice) {
+
+    public ProductFilter(String type, String author, String brand, String size) {
+        this(type, author, brand, size, null, null);
+    }
+
+    public static ProductFilter none() {
+        return new ProductFilter(null, null, null, null);
+    }
+
+    public boolean isEmpty() {
+        return !hasAttributes() && !hasPriceRange();
+    }
+
+    /**
+     * Whether the filter names a type, author, brand or size, which leaves out the products without a type.
+     */
+    public boolean hasAttributes() {
+        return type != null || author != null || brand != null || size != null;
+    }
+
+    public boolean hasPriceRange() {
+        return minPrice != null || maxPrice != null;
+    }
+
+    public boolean matchesPrice(double price) {
+        return (minPrice == null || price >= minPrice) && (maxPrice == null || price <= maxPrice);
+    }
+
+    public boolean matches(Product product) {
+        if (!matchesPrice(product.getPrice())) {
+            return false;
+        }
+        if (!hasAttributes()) {
+            return true;
+        }
+
+        final var productType = product.getType();
+
+        if (type != null) {
+            if (productType == null || !type.equalsIgnoreCase(productType.label())) {
+                return false;
+            }
+        }
+
+        if (productType instanceof Book book) {
+            return author == null || author.equalsIgnoreCase(book.author());
+        } else if (productType instanceof Electronics electronics) {
+            return brand == null || brand.equalsIgnoreCase(electronics.brand());
+        } else if (productType instanceof Clothing clothing) {
+            return size == null || size.equalsIgnoreCase(clothing.size());
+        }
+
+        // Product has no type, so no attribute filter can match
+        return false;
+    }
+}
@@ -0,0 +1,12 @@
+package local.dev.storemanager.domain.model.product;
+
+import java.util.List;
+
+/**
+ * Result of looking several products up by ID.
+ *
+ * @param products the products found, in the order their IDs were asked for
+ * @param notFound the IDs with no product, each once, in the order they were asked for
+ */
+public record ProductLookup(List<Product> products, List<Long> notFound) {
+}
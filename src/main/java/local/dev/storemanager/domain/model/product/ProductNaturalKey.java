@@ -0,0 +1,85 @@
+package local.dev.storemanager.domain.model.product;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Identifies a product across imports by the attributes listed in {@code import.upsert.key-fields}, e.g. its name
+ * plus the attributes of its type, so that importing the same file twice updates the products instead of duplicating
+ * them.
+ * <p>
+ * Values are trimmed and compared case-insensitively. A key is 64 characters: the {@link #version()} of the field
+ * list, then the start of the SHA-256 of the values, which gives the unique index a fixed width however long the
+ * names are. Keys made under another field list carry another version, which is how they are found and replaced.
+ */
+public class ProductNaturalKey {
+
+    // separates the values, so "ab" + "c" and "a" + "bc" give different keys
+    private static final char SEPARATOR = '\u001f';
+    private static final int VERSION_LENGTH = 8;
+    private static final int KEY_LENGTH = 64;
+
+    private final List<Function<Product, String>> fields;
+    private final String version;
+
+    public ProductNaturalKey(String[] fieldNames) {
+        if (fieldNames.length == 0) {
+            throw new IllegalArgumentException("import.upsert.key-fields must name at least one product attribute");
+        }
+        final var names = Arrays.stream(fieldNames)
+                .map(String::trim)
+                .toList();
+        this.fields = names.stream()
+                .map(ProductNaturalKey::field)
+                .toList();
+        this.version = sha256(String.join(",", names)).substring(0, VERSION_LENGTH);
+    }
+
+    public String of(Product product) {
+        final var key = new StringBuilder();
+        for (final var field : fields) {
+            final var value = field.apply(product);
+            if (value != null) {
+                key.append(value.trim().toLowerCase(Locale.ROOT));
+            }
+            key.append(SEPARATOR);
+        }
+        return version + sha256(key.toString()).substring(0, KEY_LENGTH - VERSION_LENGTH);
+    }
+
+    /**
+     * @return the prefix every key made from the current field list starts with
+     */
+    public String version() {
+        return version;
+    }
+
+    private static Function<Product, String> field(String name) {
+        return switch (name) {
+            case "name" -> Product::getName;
+            case "type" -> product -> product.getType() == null ? null : product.getType().label();
+            case "author" -> product -> product.getType() instanceof Book book ? book.author() : null;
+            case "genre" -> product -> product.getType() instanceof Book book ? book.genre() : null;
+            case "brand" -> product -> product.getType() instanceof Electronics electronics ? electronics.brand() : null;
+            case "warranty" -> product -> product.getType() instanceof Electronics electronics ? electronics.warranty() : null;
+            case "size" -> product -> product.getType() instanceof Clothing clothing ? clothing.size() : null;
+            case "material" -> product -> product.getType() instanceof Clothing clothing ? clothing.material() : null;
+            default -> throw new IllegalArgumentException("Unknown natural key field: " + name);
+        };
+    }
+
+    private static String sha256(String value) {
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
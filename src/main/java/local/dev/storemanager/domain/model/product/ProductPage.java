@@ -0,0 +1,22 @@
+package local.dev.storemanager.domain.model.product;
+
+import java.util.List;
+
+/**
+ * One page of a product listing in ID order.
+ *
+ * @param nextCursor the ID to continue after for the next page, or {@code null} on the last page
+ */
+public record ProductPage(List<Product> products, Long nextCursor) {
+
+    /**
+     * @param candidates up to {@code limit + 1} products; one more than the limit means there is a next page
+     */
+    public static ProductPage of(List<Product> candidates, int limit) {
+        if (candidates.size() <= limit) {
+            return new ProductPage(List.copyOf(candidates), null);
+        }
+        final var products = List.copyOf(candidates.subList(0, limit));
+        return new ProductPage(products, products.get(limit - 1).getId());
+    }
+}
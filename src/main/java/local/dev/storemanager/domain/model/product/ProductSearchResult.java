@@ -0,0 +1,12 @@
+package local.dev.storemanager.domain.model.product;
+
+import java.util.List;
+
+/**
+ * One page of a product name search.
+ *
+ * @param products the products on the page, best match first
+ * @param total    how many products match the query, over all pages
+ */
+public record ProductSearchResult(List<Product> products, int total) {
+}
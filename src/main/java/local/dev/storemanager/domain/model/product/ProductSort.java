@@ -0,0 +1,46 @@
+package local.dev.storemanager.domain.model.product;
+
+import java.util.Comparator;
+import java.util.Locale;
+
+/**
+ * Order of a product listing. Products of the same price come in ID order, reversed along with the price.
+ */
+public enum ProductSort {
+    ID("id", Comparator.comparing(Product::getId)),
+    PRICE_ASC("price", Comparator.comparingDouble(Product::getPrice).thenComparing(Product::getId)),
+    PRICE_DESC("-price", PRICE_ASC.comparator.reversed());
+
+    private final String parameter;
+    private final Comparator<Product> comparator;
+
+    ProductSort(String parameter, Comparator<Product> comparator) {
+        this.parameter = parameter;
+        this.comparator = comparator;
+    }
+
+    /**
+     * @param parameter {@code id}, {@code price} or {@code -price}, or {@code null} for ID order
+     * @throws IllegalArgumentException for anything else
+     */
+    public static ProductSort parse(String parameter) {
+        if (parameter == null) {
+            return ID;
+        }
+        final var value = parameter.trim().toLowerCase(Locale.ROOT);
+        for (final var sort : values()) {
+            if (sort.parameter.equals(value)) {
+                return sort;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sort " + parameter + ", expected id, price or -price");
+    }
+
+    public boolean byPrice() {
+        return this != ID;
+    }
+
+    public Comparator<Product> comparator() {
+        return comparator;
+    }
+}
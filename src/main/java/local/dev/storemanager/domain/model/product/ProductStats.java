@@ -0,0 +1,16 @@
+package local.dev.storemanager.domain.model.product;
+
+import java.util.Map;
+
+/**
+ * Inventory totals over the whole catalog.
+ *
+ * @param products          how many products there are, with or without a type
+ * @param productsByType    how many products there are of each type label, types with no products left out
+ * @param stockValue        the sum of price times quantity
+ * @param lowStock          how many products have fewer than {@code lowStockThreshold} in stock
+ * @param lowStockThreshold the quantity below which a product counts as low on stock
+ */
+public record ProductStats(long products, Map<String, Long> productsByType, double stockValue, long lowStock,
+                           int lowStockThreshold) {
+}
@@ -0,0 +1,10 @@
+package local.dev.storemanager.domain.model.product;
+
+/**
+ * Outcome of writing one product by its natural key.
+ *
+ * @param created      whether no product had the key before, so a new row was inserted
+ * @param priceChanged whether an existing product got a different price
+ */
+public record UpsertedProduct(Product product, boolean created, boolean priceChanged) {
+}
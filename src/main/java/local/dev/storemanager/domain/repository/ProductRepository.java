@@ -1,16 +1,74 @@
 package local.dev.storemanager.domain.repository;
 
 import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.domain.model.product.ProductFilter;
+import local.dev.storemanager.domain.model.product.ProductSort;
+import local.dev.storemanager.domain.model.product.ProductStats;
+import local.dev.storemanager.domain.model.product.UpsertedProduct;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ProductRepository {
     Product save(Product product);
 
+    List<Product> saveAll(List<Product> products);
+
+    List<Product> copyAll(List<Product> products);
+
+    /**
+     * Inserts the products whose natural key is new and updates the others in place.
+     */
+    List<UpsertedProduct> upsertAll(Map<String, Product> productsByNaturalKey);
+
+    /**
+     * Stores the natural key of every product that has none made from the current key fields: rows written before keys
+     * were stored, or keyed before the key fields changed. A product whose key another product already has is left
+     * as it is.
+     *
+     * @return the number of products that got their key
+     */
+    long assignMissingNaturalKeys();
+
     Optional<Product> findById(Long id);
 
+    /**
+     * Reads the products with the given IDs in one query, in no particular order; IDs with no product are skipped.
+     */
+    List<Product> findAllById(Collection<Long> ids);
+
     List<Product> findAll();
 
+    /**
+     * Reads the products matching the filter, in ID order, with the filter applied by the database.
+     */
+    List<Product> findAll(ProductFilter filter);
+
+    /**
+     * Reads at most {@code limit} products matching the filter with an ID above {@code afterId}, in ID order.
+     */
+    List<Product> findPage(ProductFilter filter, long afterId, int limit);
+
+    /**
+     * Reads the first {@code limit} products matching the filter in the given order, reading no more rows than that.
+     */
+    List<Product> findSorted(ProductFilter filter, ProductSort sort, int limit);
+
+    /**
+     * Hands every product to {@code consumer} in ID order, one row at a time, without holding more than a fetch of
+     * them in memory.
+     *
+     * @return the number of products
+     */
+    long forEach(Consumer<Product> consumer);
+
+    /**
+     * Computes the inventory totals with one aggregate query over the table.
+     */
+    ProductStats stats(int lowStockThreshold);
+
     void deleteById(Long id);
 }
\ No newline at end of file
@@ -1,10 +1,18 @@
 package local.dev.storemanager.domain.service;
 
 import local.dev.storemanager.application.dto.BulkImportResponse;
+import local.dev.storemanager.application.importer.ImportProgress;
+import local.dev.storemanager.domain.model.product.ImportFormat;
 import local.dev.storemanager.domain.model.product.ImportMode;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
 
 public interface ProductBulkImportService {
-    BulkImportResponse importFromJson(MultipartFile file, ImportMode mode) throws IOException;
+    BulkImportResponse importProducts(MultipartFile file, ImportMode mode) throws IOException;
+
+    BulkImportResponse importProducts(InputStream in, ImportFormat format, ImportMode mode, ImportProgress progress) throws IOException;
+
+    BulkImportResponse importFromPath(Path path, ImportFormat format, ImportMode mode, ImportProgress progress) throws IOException;
 }
@@ -0,0 +1,16 @@
+package local.dev.storemanager.domain.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ProductExportService {
+
+    /**
+     * Writes every product to {@code out} as one JSON object per line, in ID order, reading and serializing them one
+     * at a time. The stream is flushed, not closed.
+     *
+     * @param gzip whether to gzip-compress what is written
+     * @return the number of products written
+     */
+    long exportNdjson(OutputStream out, boolean gzip) throws IOException;
+}
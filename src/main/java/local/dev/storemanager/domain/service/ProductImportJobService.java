@@ -0,0 +1,18 @@
+package local.dev.storemanager.domain.service;
+
+import local.dev.storemanager.application.dto.ImportJobResponse;
+import local.dev.storemanager.domain.model.product.ImportFormat;
+import local.dev.storemanager.domain.model.product.ImportMode;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+public interface ProductImportJobService {
+    ImportJobResponse submit(MultipartFile file, ImportMode mode) throws IOException;
+
+    ImportJobResponse submitPath(String path, ImportFormat format, ImportMode mode) throws IOException;
+
+    ImportJobResponse getJob(String jobId);
+
+    ImportJobResponse cancel(String jobId);
+}
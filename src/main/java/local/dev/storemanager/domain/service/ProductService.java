@@ -3,19 +3,84 @@ package local.dev.storemanager.domain.service;
 
 import local.dev.storemanager.application.dto.ProductRequestDto;
 import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.domain.model.product.ProductFilter;
+import local.dev.storemanager.domain.model.product.ProductLookup;
+import local.dev.storemanager.domain.model.product.ProductPage;
+import local.dev.storemanager.domain.model.product.ProductSearchResult;
+import local.dev.storemanager.domain.model.product.ProductSort;
+import local.dev.storemanager.domain.model.product.ProductStats;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface ProductService {
     Product addProduct(ProductRequestDto dto);
 
+    /**
+     * Creates all the products in one transaction, with one product list update and one batched event publish.
+     */
+    List<Product> createProducts(List<ProductRequestDto> dtos);
+
+    List<Product> addProducts(List<Product> products);
+
+    List<Product> copyProducts(List<Product> products);
+
+    /**
+     * Inserts the products that are new by natural key and updates the existing ones; when the same key comes
+     * twice, the later product wins.
+     */
+    List<Product> upsertProducts(List<Product> products);
+
     Product findById(Long id);
 
+    /**
+     * Looks several products up at once, in request order, reporting the IDs with no product instead of failing.
+     */
+    ProductLookup findByIds(List<Long> ids);
+
     List<Product> findAll();
 
     List<Product> findAllFiltered(String type, String author, String brand, String size);
 
+    /**
+     * Reads the products matching the filter with an ID above {@code cursor} (from the start when {@code null}), in
+     * ID order, at most {@code limit} of them, without reading the whole product list.
+     */
+    ProductPage findPage(ProductFilter filter, Long cursor, int limit);
+
+    /**
+     * Reads the first {@code limit} products matching the filter in the given order, such as the cheapest N of a
+     * type, without reading the rest of them.
+     */
+    List<Product> findSorted(ProductFilter filter, ProductSort sort, int limit);
+
+    /**
+     * Searches product names for every token of the query, whole or as a prefix, best match first, skipping
+     * {@code offset} matches and returning at most {@code limit}.
+     */
+    ProductSearchResult search(String query, int offset, int limit);
+
+    /**
+     * Inventory totals over the whole catalog: product counts, the stock value and the products low on stock.
+     */
+    ProductStats stats();
+
     Product updateProduct(Long id, ProductRequestDto dto);
 
     void deleteProduct(Long id);
+
+    /**
+     * An opaque version of the whole catalog that every write changes, once reads return the write. Reading it loads
+     * nothing. Empty when the service keeps no versions.
+     */
+    default Optional<String> catalogVersion() {
+        return Optional.empty();
+    }
+
+    /**
+     * Same as {@link #catalogVersion()}, for the product with the given ID.
+     */
+    default Optional<String> productVersion(Long id) {
+        return Optional.empty();
+    }
 }
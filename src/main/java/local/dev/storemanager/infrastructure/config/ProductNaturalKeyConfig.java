@@ -0,0 +1,16 @@
+package local.dev.storemanager.infrastructure.config;
+
+import local.dev.storemanager.domain.model.product.ProductNaturalKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ProductNaturalKeyConfig {
+
+    @Bean
+    public ProductNaturalKey productNaturalKey(
+            @Value("${import.upsert.key-fields:name,type,author,brand,size}") String[] fieldNames) {
+        return new ProductNaturalKey(fieldNames);
+    }
+}
@@ -29,4 +29,12 @@ public class ProductEntity {
     @Type(JsonType.class)
     @Column(columnDefinition = "jsonb", nullable = true)
     private ProductType type;
-}
\ No newline at end of file
+
+    // set by ProductRepositoryImpl on every write unless another product has it; UPSERT imports match on it
+    @Column(name = "natural_key", length = 64, unique = true)
+    private String naturalKey;
+
+    public ProductEntity(Long id, String name, double price, int quantity, ProductType type) {
+        this(id, name, price, quantity, type, null);
+    }
+}
@@ -0,0 +1,71 @@
+package local.dev.storemanager.infrastructure.persistence.jdbc;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Databases the hand-written SQL in this package knows how to talk to.
+ */
+public enum DatabasePlatform {
+    POSTGRES,
+    H2;
+
+    public static DatabasePlatform detect(JdbcTemplate jdbcTemplate) {
+        final var productName = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+
+        if ("PostgreSQL".equalsIgnoreCase(productName)) {
+            return POSTGRES;
+        }
+        if ("H2".equalsIgnoreCase(productName)) {
+            return H2;
+        }
+        throw new IllegalStateException("Unsupported database: " + productName);
+    }
+
+    /**
+     * SQL placeholder that binds a JSON text parameter to the {@code type} column.
+     */
+    public String jsonParameter() {
+        return switch (this) {
+            case POSTGRES -> "CAST(? AS jsonb)";
+            case H2 -> "? FORMAT JSON";
+        };
+    }
+
+    /**
+     * SQL expression for the {@code type} label of a product ({@code Book}, {@code Electronics} or {@code Clothing}),
+     * as indexed by the schema: a jsonb field on PostgreSQL, a column generated from the JSON on H2.
+     */
+    public String typeLabel() {
+        return switch (this) {
+            case POSTGRES -> "(type ->> 'type')";
+            case H2 -> "type_label";
+        };
+    }
+
+    /**
+     * SQL expression for a string attribute of the product type, lower-cased, as indexed by the schema.
+     */
+    public String lowerTypeAttribute(String attribute) {
+        return switch (this) {
+            case POSTGRES -> "lower(type ->> '" + attribute + "')";
+            case H2 -> attribute + "_lc";
+        };
+    }
+
+    /**
+     * SQL query for how many milliseconds a read replica is behind its primary. A PostgreSQL standby that has replayed
+     * everything it received counts as caught up, however long ago the last write was; a server that is no standby,
+     * and H2, which does not replicate, always do.
+     */
+    public String replicationLagMillis() {
+        return switch (this) {
+            case POSTGRES -> "SELECT CASE WHEN NOT pg_is_in_recovery()"
+                    + " OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+                    + " ELSE CAST(COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)"
+                    + " AS BIGINT) END";
+            case H2 -> "SELECT 0";
+        };
+    }
+}
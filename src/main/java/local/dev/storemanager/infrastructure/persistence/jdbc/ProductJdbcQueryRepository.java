@@ -0,0 +1,211 @@
+package local.dev.storemanager.infrastructure.persistence.jdbc;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import local.dev.storemanager.domain.model.product.ProductFilter;
+import local.dev.storemanager.domain.model.product.ProductSort;
+import local.dev.storemanager.domain.model.product.ProductStats;
+import local.dev.storemanager.domain.model.product.ProductType;
+import local.dev.storemanager.infrastructure.persistence.entity.ProductEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Plain JDBC reads of the {@code products} table that filter on the fields inside the {@code type} column.
+ * <p>
+ * The filter becomes the WHERE clause, over expressions the schema indexes (jsonb expression indexes on PostgreSQL,
+ * generated columns on H2), so the database only reads the matching rows. It keeps the semantics of
+ * {@link ProductFilter#matches}: an attribute filter only applies to the type that has the attribute, and the price
+ * bounds to every product.
+ */
+@Repository
+public class ProductJdbcQueryRepository {
+
+    private static final String SELECT_SQL = "SELECT id, name, price, quantity, type FROM products";
+
+    private static final String BOOK = "Book";
+    private static final String ELECTRONICS = "Electronics";
+    private static final String CLOTHING = "Clothing";
+    private static final List<String> TYPE_LABELS = List.of(BOOK, ELECTRONICS, CLOTHING);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final RowMapper<ProductEntity> rowMapper = (rs, rowNum) -> new ProductEntity(
+            rs.getLong("id"),
+            rs.getString("name"),
+            rs.getDouble("price"),
+            rs.getInt("quantity"),
+            readType(rs.getString("type")));
+    private volatile DatabasePlatform platform;
+
+    public ProductJdbcQueryRepository(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Reads the products matching the filter with an ID above {@code afterId}, in ID order.
+     *
+     * @param limit the most rows to read, or {@code null} for all of them
+     */
+    public List<ProductEntity> findAll(ProductFilter filter, long afterId, Integer limit) {
+        final var where = new ArrayList<String>();
+        final var args = new ArrayList<Object>();
+        where.add("id > ?");
+        args.add(afterId);
+        return query(filter, where, args, "id", limit);
+    }
+
+    /**
+     * Reads the first {@code limit} products matching the filter in price order, which the price indexes serve
+     * without sorting the matches.
+     */
+    public List<ProductEntity> findSorted(ProductFilter filter, ProductSort sort, int limit) {
+        final var order = switch (sort) {
+            case ID -> "id";
+            case PRICE_ASC -> "price, id";
+            case PRICE_DESC -> "price DESC, id DESC";
+        };
+        return query(filter, new ArrayList<>(), new ArrayList<>(), order, limit);
+    }
+
+    /**
+     * Reads at most {@code limit} products with no natural key starting with {@code version}, that is with none or with
+     * one made from other key fields, with an ID above {@code afterId}, in ID order.
+     */
+    public List<ProductEntity> findWithoutNaturalKey(String version, long afterId, int limit) {
+        return jdbcTemplate.query(SELECT_SQL + " WHERE (natural_key IS NULL OR natural_key NOT LIKE ?) AND id > ? "
+                + "ORDER BY id LIMIT ?", rowMapper, version + "%", afterId, limit);
+    }
+
+    /**
+     * Computes the inventory totals with one {@code GROUP BY} over the type label, which reads every row once.
+     */
+    public ProductStats stats(int lowStockThreshold) {
+        final var sql = "SELECT " + platform().typeLabel() + " AS label, COUNT(*) AS products,"
+                + " COALESCE(SUM(price * quantity), 0) AS stock_value,"
+                + " COALESCE(SUM(CASE WHEN quantity < ? THEN 1 ELSE 0 END), 0) AS low_stock"
+                + " FROM products GROUP BY " + platform().typeLabel();
+
+        final var byType = new HashMap<String, Long>();
+        final long[] totals = new long[2];
+        final double[] stockValue = new double[1];
+        jdbcTemplate.query(sql, rs -> {
+            final long products = rs.getLong("products");
+            final var label = rs.getString("label");
+            if (label != null) {
+                byType.put(label, products);
+            }
+            totals[0] += products;
+            totals[1] += rs.getLong("low_stock");
+            stockValue[0] += rs.getDouble("stock_value");
+        }, lowStockThreshold);
+        return new ProductStats(totals[0], byType, stockValue[0], totals[1], lowStockThreshold);
+    }
+
+    private List<ProductEntity> query(ProductFilter filter, List<String> where, List<Object> args, String order,
+                                      Integer limit) {
+        if (filter.hasAttributes() && !appendFilter(filter, where, args)) {
+            return List.of();
+        }
+        if (filter.minPrice() != null) {
+            where.add("price >= ?");
+            args.add(filter.minPrice());
+        }
+        if (filter.maxPrice() != null) {
+            where.add("price <= ?");
+            args.add(filter.maxPrice());
+        }
+
+        final var sql = new StringBuilder(SELECT_SQL);
+        if (!where.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", where));
+        }
+        sql.append(" ORDER BY ").append(order);
+        if (limit != null) {
+            sql.append(" LIMIT ?");
+            args.add(limit);
+        }
+        return jdbcTemplate.query(sql.toString(), rowMapper, args.toArray());
+    }
+
+    /**
+     * @return {@code false} when nothing can match, e.g. an unknown type
+     */
+    private boolean appendFilter(ProductFilter filter, List<String> where, List<Object> args) {
+        final var platform = platform();
+        String label = null;
+
+        if (filter.type() != null) {
+            label = TYPE_LABELS.stream()
+                    .filter(filter.type()::equalsIgnoreCase)
+                    .findFirst()
+                    .orElse(null);
+            if (label == null) {
+                return false;
+            }
+            // a literal from the fixed list above, so PostgreSQL can match it against the partial indexes
+            where.add(platform.typeLabel() + " = '" + label + "'");
+        } else {
+            // any filter leaves out the products without a type
+            where.add("type IS NOT NULL");
+        }
+
+        appendAttribute("author", BOOK, filter.author(), label, where, args);
+        appendAttribute("brand", ELECTRONICS, filter.brand(), label, where, args);
+        appendAttribute("size", CLOTHING, filter.size(), label, where, args);
+        return true;
+    }
+
+    private void appendAttribute(String attribute, String owner, String value, String label,
+                                 List<String> where, List<Object> args) {
+        if (value == null || (label != null && !label.equals(owner))) {
+            return;
+        }
+
+        final var platform = platform();
+        final var condition = platform.lowerTypeAttribute(attribute) + " = ?";
+        where.add(label != null
+                ? condition
+                : "(" + platform.typeLabel() + " <> '" + owner + "' OR " + condition + ")");
+        args.add(bindValue(value));
+    }
+
+    private Object bindValue(String value) {
+        final var lower = value.toLowerCase(Locale.ROOT);
+        if (platform() != DatabasePlatform.H2) {
+            return lower;
+        }
+        // the generated columns hold the value as written in the JSON text, escapes included
+        try {
+            final var json = objectMapper.writeValueAsString(lower);
+            return json.substring(1, json.length() - 1);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot encode filter value " + value, e);
+        }
+    }
+
+    private ProductType readType(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, ProductType.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read product type " + json, e);
+        }
+    }
+
+    private DatabasePlatform platform() {
+        if (platform == null) {
+            platform = DatabasePlatform.detect(jdbcTemplate);
+        }
+        return platform;
+    }
+}
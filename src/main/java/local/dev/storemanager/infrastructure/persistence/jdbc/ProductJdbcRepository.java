@@ -0,0 +1,304 @@
+package local.dev.storemanager.infrastructure.persistence.jdbc;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import local.dev.storemanager.domain.model.product.ProductType;
+import local.dev.storemanager.infrastructure.persistence.entity.ProductEntity;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Plain JDBC access to the {@code products} table for bulk writes.
+ * <p>
+ * {@link ProductEntity} uses {@code GenerationType.IDENTITY}, which stops Hibernate from batching inserts,
+ * so bulk paths go through JDBC batches here and read the generated keys back from the driver.
+ */
+@Repository
+public class ProductJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO products (name, price, quantity, type, natural_key) VALUES (?, ?, ?, %s, ?)";
+    private static final String NEXT_IDS_SQL =
+            "SELECT nextval(pg_get_serial_sequence('products', 'id')) FROM generate_series(1, ?)";
+    private static final String COPY_SQL =
+            "COPY products (id, name, price, quantity, type, natural_key) FROM STDIN WITH (FORMAT csv)";
+    private static final String SELECT_BY_KEYS_SQL =
+            "SELECT natural_key, id, price FROM products WHERE natural_key IN (%s) FOR UPDATE";
+    private static final String SELECT_IDS_BY_KEYS_SQL = "SELECT natural_key, id FROM products WHERE natural_key IN (%s)";
+    // a key another product already has is left unassigned instead of failing on the unique index, and a row given a
+    // current key by a write in the meantime is left as it is
+    private static final String ASSIGN_KEY_SQL = "UPDATE products SET natural_key = ? WHERE id = ? "
+            + "AND (natural_key IS NULL OR natural_key NOT LIKE ?) "
+            + "AND NOT EXISTS (SELECT 1 FROM products WHERE natural_key = ?)";
+    // keeps the IN lists well below the drivers' bind parameter limits
+    private static final int MAX_KEYS_PER_QUERY = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private volatile DatabasePlatform platform;
+
+    // rows sent to the database per executeBatch, so a large list is not buffered in the driver all at once
+    @Value("${products.jdbc.batch-size:500}")
+    private int jdbcBatchSize = 500;
+
+    public ProductJdbcRepository(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Inserts all the entities in JDBC batches of {@code products.jdbc.batch-size} rows and assigns the generated IDs
+     * to them. Runs on the connection of the surrounding transaction, if any.
+     */
+    public List<ProductEntity> batchInsert(List<ProductEntity> entities) {
+        if (entities.isEmpty()) {
+            return entities;
+        }
+
+        final var sql = INSERT_SQL.formatted(platform().jsonParameter());
+
+        return jdbcTemplate.execute((ConnectionCallback<List<ProductEntity>>) connection -> {
+            try (final var statement = connection.prepareStatement(sql, new String[]{"id"})) {
+                final var saved = new ArrayList<ProductEntity>(entities.size());
+                for (int from = 0; from < entities.size(); from += jdbcBatchSize) {
+                    final var chunk = entities.subList(from, Math.min(from + jdbcBatchSize, entities.size()));
+                    for (final var entity : chunk) {
+                        bindInsert(statement, entity);
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+
+                    // the driver only keeps the keys of the batch it executed last
+                    try (final var keys = statement.getGeneratedKeys()) {
+                        for (final var entity : chunk) {
+                            if (!keys.next()) {
+                                throw new SQLException("Driver returned fewer generated keys than inserted rows");
+                            }
+                            entity.setId(keys.getLong(1));
+                            saved.add(entity);
+                        }
+                    }
+                }
+                return saved;
+            }
+        });
+    }
+
+    /**
+     * Streams all the entities into the table with PostgreSQL {@code COPY}, bypassing INSERT parsing entirely.
+     * COPY cannot return generated keys, so the IDs are reserved from the table's sequence up front and copied
+     * in explicitly. Falls back to {@link #batchInsert} on databases without COPY support.
+     */
+    public List<ProductEntity> copyInsert(List<ProductEntity> entities) {
+        if (entities.isEmpty()) {
+            return entities;
+        }
+        if (platform() != DatabasePlatform.POSTGRES) {
+            return batchInsert(entities);
+        }
+
+        final var ids = jdbcTemplate.queryForList(NEXT_IDS_SQL, Long.class, entities.size());
+        for (int i = 0; i < entities.size(); i++) {
+            entities.get(i).setId(ids.get(i));
+        }
+
+        final var copied = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            final var copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+            try {
+                final var row = new StringBuilder(128);
+                for (final var entity : entities) {
+                    row.setLength(0);
+                    appendCsvRow(row, entity);
+                    final var bytes = row.toString().getBytes(StandardCharsets.UTF_8);
+                    copyIn.writeToCopy(bytes, 0, bytes.length);
+                }
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        });
+
+        if (copied == null || copied != entities.size()) {
+            throw new IllegalStateException("COPY wrote " + copied + " rows, expected " + entities.size());
+        }
+        return entities;
+    }
+
+    /**
+     * Inserts or updates every entity by its natural key, in one JDBC batch: {@code INSERT ... ON CONFLICT DO UPDATE}
+     * on PostgreSQL, {@code MERGE} on H2. The existing rows are locked and read first, which is how the previous
+     * prices are known, and the IDs of both updated and inserted rows are assigned to the entities.
+     *
+     * @param entitiesByKey the entities to write, by natural key
+     * @return the price every already existing row had before, by natural key
+     */
+    public Map<String, Double> upsert(Map<String, ProductEntity> entitiesByKey) {
+        if (entitiesByKey.isEmpty()) {
+            return Map.of();
+        }
+
+        final var keys = new ArrayList<>(entitiesByKey.keySet());
+        final var previousPrices = new HashMap<String, Double>();
+        forEachKeyChunk(keys, SELECT_BY_KEYS_SQL, resultSet -> {
+            final var key = resultSet.getString(1);
+            entitiesByKey.get(key).setId(resultSet.getLong(2));
+            previousPrices.put(key, resultSet.getDouble(3));
+        });
+
+        final var sql = upsertSql();
+        jdbcTemplate.execute((ConnectionCallback<int[]>) connection -> {
+            try (final var statement = connection.prepareStatement(sql)) {
+                for (final var entry : entitiesByKey.entrySet()) {
+                    entry.getValue().setNaturalKey(entry.getKey());
+                    bindInsert(statement, entry.getValue());
+                    statement.addBatch();
+                }
+                return statement.executeBatch();
+            }
+        });
+
+        final var newKeys = keys.stream()
+                .filter(key -> !previousPrices.containsKey(key))
+                .toList();
+        forEachKeyChunk(newKeys, SELECT_IDS_BY_KEYS_SQL,
+                resultSet -> entitiesByKey.get(resultSet.getString(1)).setId(resultSet.getLong(2)));
+
+        return Collections.unmodifiableMap(previousPrices);
+    }
+
+    /**
+     * @return which of the natural keys some row already has
+     */
+    public Set<String> findTakenKeys(List<String> keys) {
+        final var taken = new HashSet<String>();
+        forEachKeyChunk(keys, SELECT_IDS_BY_KEYS_SQL, resultSet -> taken.add(resultSet.getString(1)));
+        return taken;
+    }
+
+    /**
+     * Stores the natural key of every row, by ID, in one JDBC batch, replacing keys that do not start with
+     * {@code version}. A row whose key is already taken by another one keeps the key it had.
+     *
+     * @return how many rows got their key
+     */
+    public int assignNaturalKeys(Map<Long, String> keysById, String version) {
+        final var entries = new ArrayList<>(keysById.entrySet());
+        final var updated = jdbcTemplate.batchUpdate(ASSIGN_KEY_SQL, entries, jdbcBatchSize, (statement, entry) -> {
+            statement.setString(1, entry.getValue());
+            statement.setLong(2, entry.getKey());
+            statement.setString(3, version + "%");
+            statement.setString(4, entry.getValue());
+        });
+
+        int assigned = 0;
+        for (final var chunk : updated) {
+            for (final int rows : chunk) {
+                // drivers that cannot tell report SUCCESS_NO_INFO
+                if (rows > 0 || rows == Statement.SUCCESS_NO_INFO) {
+                    assigned++;
+                }
+            }
+        }
+        return assigned;
+    }
+
+    private String upsertSql() {
+        return switch (platform()) {
+            case POSTGRES -> "INSERT INTO products (name, price, quantity, type, natural_key) "
+                    + "VALUES (?, ?, ?, CAST(? AS jsonb), ?) "
+                    + "ON CONFLICT (natural_key) DO UPDATE SET name = EXCLUDED.name, price = EXCLUDED.price, "
+                    + "quantity = EXCLUDED.quantity, type = EXCLUDED.type";
+            case H2 -> "MERGE INTO products (name, price, quantity, type, natural_key) KEY (natural_key) "
+                    + "VALUES (?, ?, ?, ? FORMAT JSON, ?)";
+        };
+    }
+
+    private void forEachKeyChunk(List<String> keys, String sql, RowCallbackHandler handler) {
+        for (int from = 0; from < keys.size(); from += MAX_KEYS_PER_QUERY) {
+            final var chunk = keys.subList(from, Math.min(from + MAX_KEYS_PER_QUERY, keys.size()));
+            final var placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query(sql.formatted(placeholders), handler, chunk.toArray());
+        }
+    }
+
+    public DatabasePlatform platform() {
+        if (platform == null) {
+            platform = DatabasePlatform.detect(jdbcTemplate);
+        }
+        return platform;
+    }
+
+    private void bindInsert(PreparedStatement statement, ProductEntity entity) throws SQLException {
+        statement.setString(1, entity.getName());
+        statement.setDouble(2, entity.getPrice());
+        statement.setInt(3, entity.getQuantity());
+
+        final var type = toJson(entity.getType());
+        if (type == null) {
+            statement.setNull(4, Types.VARCHAR);
+        } else {
+            statement.setString(4, type);
+        }
+        statement.setString(5, entity.getNaturalKey());
+    }
+
+    /**
+     * Encodes one row in COPY's CSV format: text values are always quoted, so an unquoted empty field is NULL.
+     */
+    void appendCsvRow(StringBuilder row, ProductEntity entity) {
+        row.append(entity.getId()).append(',');
+        appendCsvText(row, entity.getName());
+        row.append(',').append(entity.getPrice())
+                .append(',').append(entity.getQuantity())
+                .append(',');
+        appendCsvText(row, toJson(entity.getType()));
+        row.append(',');
+        appendCsvText(row, entity.getNaturalKey());
+        row.append('\n');
+    }
+
+    private static void appendCsvText(StringBuilder row, String value) {
+        if (value == null) {
+            return;
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"') {
+                row.append('"');
+            }
+            row.append(c);
+        }
+        row.append('"');
+    }
+
+    String toJson(ProductType type) {
+        if (type == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize product type " + type, e);
+        }
+    }
+}
@@ -1,7 +1,37 @@
 package local.dev.storemanager.infrastructure.persistence.jparepository;
 
+import jakarta.persistence.QueryHint;
 import local.dev.storemanager.infrastructure.persistence.entity.ProductEntity;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface ProductJpaRepository extends JpaRepository<ProductEntity, Long> {
+
+    int STREAM_FETCH_SIZE = 1000;
+
+    // keyset page: an index range scan on the primary key, with the limit in the query
+    List<ProductEntity> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // top-N by price: an index range scan on (price, id), forwards or backwards, stopping at the limit
+    List<ProductEntity> findByPriceBetweenOrderByPriceAscIdAsc(double min, double max, Limit limit);
+
+    List<ProductEntity> findByPriceBetweenOrderByPriceDescIdDesc(double min, double max, Limit limit);
+
+    /**
+     * Forward-only cursor over the whole table, fetching {@value #STREAM_FETCH_SIZE} rows per round trip. Has to be
+     * consumed inside a transaction, which is also what makes the PostgreSQL driver honour the fetch size instead of
+     * reading the whole result at once.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select p from ProductEntity p order by p.id")
+    Stream<ProductEntity> streamAllByOrderByIdAsc();
 }
@@ -4,10 +4,13 @@ import local.dev.storemanager.infrastructure.persistence.entity.AppUser;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 public interface UserJpaRepository extends JpaRepository<AppUser, Long> {
+    // read-only, so it runs on the read replica when there is one
+    @Transactional(readOnly = true)
     @Query("SELECT u FROM AppUser u WHERE LOWER(u.username) = LOWER(:username)")
     Optional<AppUser> findByUsernameIgnoreCase(@Param("username") String username);
 
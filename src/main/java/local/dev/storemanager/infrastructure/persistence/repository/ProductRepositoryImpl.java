@@ -1,49 +1,269 @@
 package local.dev.storemanager.infrastructure.persistence.repository;
 
 
+import jakarta.persistence.EntityManager;
 import local.dev.storemanager.application.mapper.ProductMapper;
+import local.dev.storemanager.domain.model.product.ProductNaturalKey;
 import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.domain.model.product.ProductFilter;
+import local.dev.storemanager.domain.model.product.ProductSort;
+import local.dev.storemanager.domain.model.product.ProductStats;
+import local.dev.storemanager.domain.model.product.UpsertedProduct;
 import local.dev.storemanager.domain.repository.ProductRepository;
+import local.dev.storemanager.infrastructure.persistence.entity.ProductEntity;
+import local.dev.storemanager.infrastructure.persistence.jdbc.ProductJdbcQueryRepository;
+import local.dev.storemanager.infrastructure.persistence.jdbc.ProductJdbcRepository;
 import local.dev.storemanager.infrastructure.persistence.jparepository.ProductJpaRepository;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Repository
 public class ProductRepositoryImpl implements ProductRepository {
 
+    // rows read per pass when keying the rows without a natural key made from the current key fields
+    private static final int NATURAL_KEY_CHUNK = 1000;
+
     private final ProductJpaRepository jpaRepository;
+    private final ProductJdbcRepository jdbcRepository;
+    private final ProductJdbcQueryRepository queryRepository;
     private final ProductMapper mapper;
+    private final ProductNaturalKey naturalKey;
+    private final EntityManager entityManager;
 
-    public ProductRepositoryImpl(ProductJpaRepository jpaRepository, ProductMapper mapper) {
+    public ProductRepositoryImpl(ProductJpaRepository jpaRepository,
+                                 ProductJdbcRepository jdbcRepository,
+                                 ProductJdbcQueryRepository queryRepository,
+                                 ProductMapper mapper,
+                                 ProductNaturalKey naturalKey,
+                                 EntityManager entityManager) {
         this.jpaRepository = jpaRepository;
+        this.jdbcRepository = jdbcRepository;
+        this.queryRepository = queryRepository;
         this.mapper = mapper;
+        this.naturalKey = naturalKey;
+        this.entityManager = entityManager;
     }
 
+    /**
+     * Stores the product's natural key with it unless another product already has that key: the product is then saved
+     * without one, and UPSERT imports keep matching the other product.
+     */
     @Override
     public Product save(Product product) {
-        final var entity = mapper.toEntity(product);
-        final var saved = jpaRepository.save(entity);
-        return mapper.toDomain(saved);
+        try {
+            return mapper.toDomain(jpaRepository.save(toKeyedEntity(product)));
+        } catch (DataIntegrityViolationException e) {
+            // Hibernate does not always report a unique violation as a DuplicateKeyException; if the key was not the
+            // cause, the second save fails the same way
+            return mapper.toDomain(jpaRepository.save(mapper.toEntity(product)));
+        }
+    }
+
+    /**
+     * Like {@link #save}, leaves out a natural key another product, or an earlier one of the list, already has.
+     */
+    @Override
+    @Transactional
+    public List<Product> saveAll(List<Product> products) {
+        final var entities = toKeyedEntities(products);
+
+        return jdbcRepository.batchInsert(entities).stream()
+                .map(mapper::toDomain)
+                .toList();
+    }
+
+    @Override
+    @Transactional
+    public List<Product> copyAll(List<Product> products) {
+        final var entities = toKeyedEntities(products);
+
+        return jdbcRepository.copyInsert(entities).stream()
+                .map(mapper::toDomain)
+                .toList();
     }
 
     @Override
+    @Transactional
+    public List<UpsertedProduct> upsertAll(Map<String, Product> productsByNaturalKey) {
+        final var entities = new LinkedHashMap<String, ProductEntity>();
+        productsByNaturalKey.forEach((key, product) -> entities.put(key, mapper.toEntity(product)));
+
+        final var previousPrices = jdbcRepository.upsert(entities);
+
+        return entities.entrySet().stream()
+                .map(entry -> {
+                    final var previousPrice = previousPrices.get(entry.getKey());
+                    final var product = mapper.toDomain(entry.getValue());
+                    return new UpsertedProduct(product, previousPrice == null,
+                            previousPrice != null && Double.compare(previousPrice, product.getPrice()) != 0);
+                })
+                .toList();
+    }
+
+    /**
+     * Runs outside a transaction, so every chunk is committed on its own and the rows stay writable meanwhile.
+     */
+    @Override
+    public long assignMissingNaturalKeys() {
+        long assigned = 0;
+        long afterId = 0;
+        List<ProductEntity> chunk;
+        do {
+            chunk = queryRepository.findWithoutNaturalKey(naturalKey.version(), afterId, NATURAL_KEY_CHUNK);
+            final var keysById = new LinkedHashMap<Long, String>();
+            chunk.forEach(entity -> keysById.put(entity.getId(), naturalKey.of(mapper.toDomain(entity))));
+            assigned += jdbcRepository.assignNaturalKeys(keysById, naturalKey.version());
+            if (!chunk.isEmpty()) {
+                afterId = chunk.get(chunk.size() - 1).getId();
+            }
+        } while (chunk.size() == NATURAL_KEY_CHUNK);
+        return assigned;
+    }
+
+    /**
+     * Reads on the primary even with a read replica: the product cache is filled from what this returns, and the ETag
+     * sent with it comes from a version that moves as soon as a write reaches the primary, so a lagging replica would
+     * cache a stale row, or serve it under the new ETag.
+     */
+    @Override
+    @Transactional
     public Optional<Product> findById(Long id) {
         return jpaRepository.findById(id)
                 .map(mapper::toDomain);
     }
 
+    /**
+     * Reads on the primary, like {@link #findById(Long)}, for the product cache filling from it.
+     */
+    @Override
+    @Transactional
+    public List<Product> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return jpaRepository.findAllById(ids).stream()
+                .map(mapper::toDomain)
+                .toList();
+    }
+
+    /**
+     * Reads on the primary even with a read replica: the product list snapshot and the read model load from it once
+     * and apply later writes as deltas, so the load must not miss a write the replica has yet to apply.
+     */
     @Override
+    @Transactional
     public List<Product> findAll() {
         return jpaRepository.findAll().stream()
                 .map(mapper::toDomain)
                 .collect(Collectors.toList());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Product> findAll(ProductFilter filter) {
+        if (filter.isEmpty()) {
+            return findAll();
+        }
+        return queryRepository.findAll(filter, 0, null).stream()
+                .map(mapper::toDomain)
+                .toList();
+    }
+
+    /**
+     * Reads on the primary, like {@link #findById(Long)}, for the list ETag being built from the catalog version.
+     */
+    @Override
+    @Transactional
+    public List<Product> findPage(ProductFilter filter, long afterId, int limit) {
+        final var entities = filter.isEmpty()
+                ? jpaRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit))
+                : queryRepository.findAll(filter, afterId, limit);
+        return entities.stream()
+                .map(mapper::toDomain)
+                .toList();
+    }
+
+    /**
+     * Reads on the primary, like {@link #findPage}, for the list ETag being built from the catalog version.
+     */
+    @Override
+    @Transactional
+    public List<Product> findSorted(ProductFilter filter, ProductSort sort, int limit) {
+        if (sort == ProductSort.ID) {
+            return findPage(filter, 0, limit);
+        }
+        final List<ProductEntity> entities;
+        if (filter.hasAttributes()) {
+            entities = queryRepository.findSorted(filter, sort, limit);
+        } else {
+            final double min = filter.minPrice() == null ? -Double.MAX_VALUE : filter.minPrice();
+            final double max = filter.maxPrice() == null ? Double.MAX_VALUE : filter.maxPrice();
+            entities = sort == ProductSort.PRICE_ASC
+                    ? jpaRepository.findByPriceBetweenOrderByPriceAscIdAsc(min, max, Limit.of(limit))
+                    : jpaRepository.findByPriceBetweenOrderByPriceDescIdDesc(min, max, Limit.of(limit));
+        }
+        return entities.stream()
+                .map(mapper::toDomain)
+                .toList();
+    }
+
+    /**
+     * Reads on the primary, like {@link #findAll()}, for the in-memory indexes loading from it.
+     */
+    @Override
+    @Transactional
+    public long forEach(Consumer<Product> consumer) {
+        long count = 0;
+        try (final var entities = jpaRepository.streamAllByOrderByIdAsc()) {
+            for (final var iterator = entities.iterator(); iterator.hasNext(); ) {
+                final var entity = iterator.next();
+                consumer.accept(mapper.toDomain(entity));
+                // the persistence context would otherwise keep every row read so far
+                entityManager.detach(entity);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public ProductStats stats(int lowStockThreshold) {
+        // outside a read-only transaction, so on the primary: the running totals are reconciled against it
+        return queryRepository.stats(lowStockThreshold);
+    }
+
     @Override
     public void deleteById(Long id) {
         jpaRepository.deleteById(id);
     }
+
+    private ProductEntity toKeyedEntity(Product product) {
+        final var entity = mapper.toEntity(product);
+        entity.setNaturalKey(naturalKey.of(product));
+        return entity;
+    }
+
+    private List<ProductEntity> toKeyedEntities(List<Product> products) {
+        final var entities = products.stream()
+                .map(this::toKeyedEntity)
+                .toList();
+
+        final var taken = jdbcRepository.findTakenKeys(entities.stream().map(ProductEntity::getNaturalKey).toList());
+        for (final var entity : entities) {
+            if (!taken.add(entity.getNaturalKey())) {
+                entity.setNaturalKey(null);
+            }
+        }
+        return entities;
+    }
 }
@@ -0,0 +1,66 @@
+package local.dev.storemanager.infrastructure.persistence.routing;
+
+import local.dev.storemanager.infrastructure.persistence.jdbc.DatabasePlatform;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * Tells {@link ReplicaRoutingDataSource} whether reads may go to the replica: only while it answers and is at most
+ * {@code datasource.replica.max-lag-ms} behind the primary. The lag is checked every
+ * {@code datasource.replica.lag-check-interval-ms}, with the query of {@link DatabasePlatform#replicationLagMillis()}
+ * unless {@code datasource.replica.lag-query} gives one, e.g. reading a heartbeat table. Until the first check the
+ * replica is not used.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    private final JdbcTemplate replica;
+    private final long maxLagMs;
+    private final String lagQuery;
+    private volatile boolean usable;
+
+    /**
+     * @param lagQuery SQL returning the lag in milliseconds, or blank for the one of the replica's platform
+     */
+    public ReplicaLagMonitor(DataSource replica, long maxLagMs, String lagQuery) {
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMs = maxLagMs;
+        this.lagQuery = lagQuery == null || lagQuery.isBlank() ? null : lagQuery;
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval-ms:1000}",
+            initialDelayString = "${datasource.replica.lag-check-interval-ms:1000}")
+    public void check() {
+        final boolean wasUsable = usable;
+        try {
+            final var query = lagQuery != null ? lagQuery : DatabasePlatform.detect(replica).replicationLagMillis();
+            final Long lagMs = replica.queryForObject(query, Long.class);
+            usable = lagMs != null && lagMs <= maxLagMs;
+            if (wasUsable && !usable) {
+                log.warn("The replica is {} ms behind, more than {} ms; reading from the primary", lagMs, maxLagMs);
+            } else if (!wasUsable && usable) {
+                log.info("The replica is {} ms behind; reading from it", lagMs);
+            }
+        } catch (DataAccessException e) {
+            failed(e);
+        }
+    }
+
+    /**
+     * Stops using the replica until the next check finds it caught up, e.g. after it refused a connection.
+     */
+    public void failed(Exception e) {
+        if (usable) {
+            log.warn("The replica cannot be read; reading from the primary: {}", e.getMessage());
+        }
+        usable = false;
+    }
+}
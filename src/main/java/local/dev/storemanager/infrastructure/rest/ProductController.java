@@ -1,26 +1,46 @@
 package local.dev.storemanager.infrastructure.rest;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
-import local.dev.storemanager.application.dto.BulkImportResponse;
+import local.dev.storemanager.application.dto.BulkCreateResponse;
+import local.dev.storemanager.application.dto.ImportJobResponse;
+import local.dev.storemanager.application.dto.ProductLookupResponse;
 import local.dev.storemanager.application.dto.ProductRequestDto;
 import local.dev.storemanager.application.dto.ProductResponseDto;
+import local.dev.storemanager.application.dto.ProductStatsResponse;
 import local.dev.storemanager.application.mapper.ProductMapper;
+import local.dev.storemanager.domain.model.product.ImportFormat;
 import local.dev.storemanager.domain.model.product.ImportMode;
-import local.dev.storemanager.domain.service.ProductBulkImportService;
+import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.domain.model.product.ProductFilter;
+import local.dev.storemanager.domain.model.product.ProductSort;
+import local.dev.storemanager.domain.service.ProductExportService;
+import local.dev.storemanager.domain.service.ProductImportJobService;
 import local.dev.storemanager.domain.service.ProductService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Locale;
 
 @Slf4j
 @RestController
@@ -29,15 +49,36 @@ import java.util.List;
 @Tag(name = "Product Controller", description = "Managing products in the store")
 public class ProductController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    // tells the ETag of a gzip body from the one of the same product uncompressed
+    static final String GZIP_ETAG_SUFFIX = "-gz";
+
     private final ProductService productService;
-    private final ProductBulkImportService bulkImportService;
+    private final ProductImportJobService importJobService;
+    private final ProductExportService exportService;
     private final ProductMapper productMapper;
+    private final ProductJsonCache jsonCache;
+
+    @Value("${products.page.default-limit:100}")
+    private int defaultPageSize = 100;
+
+    @Value("${products.page.max-limit:1000}")
+    private int maxPageSize = 1000;
+
+    // the search ranks offset + limit matches to return the last limit of them
+    @Value("${products.search.max-offset:10000}")
+    private int maxSearchOffset = 10000;
 
     public ProductController(@Qualifier("productServiceImpl") ProductService productService,
-                             ProductBulkImportService bulkImportService, ProductMapper productMapper) {
+                             ProductImportJobService importJobService, ProductExportService exportService,
+                             ProductMapper productMapper, ProductJsonCache jsonCache) {
         this.productService = productService;
-        this.bulkImportService = bulkImportService;
+        this.importJobService = importJobService;
+        this.exportService = exportService;
         this.productMapper = productMapper;
+        this.jsonCache = jsonCache;
     }
 
     @PostMapping
@@ -52,24 +93,204 @@ public class ProductController {
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
     @Operation(summary = "Get product by ID", description = "Accessible by all roles")
-    public ResponseEntity<ProductResponseDto> getProduct(@PathVariable Long id) {
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = ProductResponseDto.class)))
+    public ResponseEntity<?> getProduct(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
         log.info("A request to retrieve a product was received with id : {}", id);
+        final boolean gzipVariant = jsonCache.isEnabled() && jsonCache.isGzipEnabled();
+        final boolean gzip = gzipVariant && acceptsGzip(acceptEncoding);
+        // the version is read before the product, so the ETag is never newer than the body; the gzip body is a
+        // representation of its own, so it gets a strong ETag of its own
+        final var version = productService.productVersion(id).map(ProductController::eTag);
+        final var eTag = gzip ? version.map(ProductController::gzipETag) : version;
+        if (version.isPresent() && matches(ifNoneMatch, version.get())) {
+            final var notModified = ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag.get());
+            if (gzipVariant) {
+                notModified.varyBy(HttpHeaders.ACCEPT_ENCODING);
+            }
+            return notModified.build();
+        }
+
         final var product = productService.findById(id);
-        return ResponseEntity.ok(productMapper.toResponseDto(product));
+        final var response = ResponseEntity.ok();
+        eTag.ifPresent(response::eTag);
+        if (!jsonCache.isEnabled()) {
+            return response.body(productMapper.toResponseDto(product));
+        }
+
+        // the bytes serialized by an earlier read of the product, unless it has changed since
+        response.contentType(MediaType.APPLICATION_JSON);
+        if (!gzipVariant) {
+            return response.body(jsonCache.json(product));
+        }
+        response.varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (!gzip) {
+            return response.body(jsonCache.json(product));
+        }
+        return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(jsonCache.gzip(product));
+    }
+
+    @GetMapping(params = "ids")
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    @Operation(summary = "Get several products by ID",
+            description = "Accessible by all roles. Products come in the order of ids, at most as many IDs as the "
+                    + "page limit allows; IDs with no product are listed under notFound")
+    public ResponseEntity<ProductLookupResponse> getProductsByIds(@RequestParam List<Long> ids) {
+        log.info("A request to retrieve {} products by id was received.", ids.size());
+        if (ids.size() > maxPageSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "at most " + maxPageSize + " ids per request");
+        }
+        // an empty element, as in ids=1,,2, binds to null, which the cache lookup cannot take
+        if (ids.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids must not contain blank values");
+        }
+
+        final var lookup = productService.findByIds(ids);
+        final var products = lookup.products().stream().map(productMapper::toResponseDto).toList();
+        return ResponseEntity.ok(new ProductLookupResponse(products, lookup.notFound()));
     }
 
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
-    @Operation(summary = "Retrieve all products", description = "Accessible by all roles")
-    public ResponseEntity<List<ProductResponseDto>> getAllProducts(
+    @Operation(summary = "Retrieve products page by page",
+            description = "Accessible by all roles. Products come in ID order, at most limit per page; the "
+                    + NEXT_CURSOR_HEADER + " and Link headers point to the next page, if any. With sort=price or "
+                    + "sort=-price only the first limit products come, cheapest or dearest first. minPrice and "
+                    + "maxPrice bound the price, inclusively. The ETag changes with every write to the catalog; send "
+                    + "it back in If-None-Match to get 304 while it has not")
+    @ApiResponse(responseCode = "200",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProductResponseDto.class))))
+    public ResponseEntity<?> getAllProducts(
             @RequestParam(required = false) String type,
             @RequestParam(required = false) String author,
             @RequestParam(required = false) String brand,
-            @RequestParam(required = false) String size
+            @RequestParam(required = false) String size,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
+        log.info("A request to retrieve products after {} was received.", cursor);
+        final int pageSize = pageSize(limit);
+        final var order = sort(sort);
+        if (minPrice != null && maxPrice != null && minPrice > maxPrice) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "minPrice must not be above maxPrice");
+        }
+        if (order.byPrice() && cursor != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "cursor only applies to products in ID order");
+        }
+        final var filter = new ProductFilter(type, author, brand, size, minPrice, maxPrice);
+        // one catalog version covers every page and filter: the same URL returns the same body until a write
+        final var eTag = productService.catalogVersion().map(ProductController::eTag);
+        if (eTag.isPresent() && matches(ifNoneMatch, eTag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag.get()).build();
+        }
+
+        final var response = ResponseEntity.ok();
+        eTag.ifPresent(response::eTag);
+        if (order.byPrice()) {
+            // the first limit products in price order, read off the price index without a next page
+            return body(response, productService.findSorted(filter, order, pageSize));
+        }
+
+        final var page = productService.findPage(filter, cursor, pageSize);
+        if (page.nextCursor() == null) {
+            return body(response, page.products());
+        }
+        final var next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("cursor", page.nextCursor())
+                .replaceQueryParam("limit", pageSize)
+                .build()
+                .toUriString();
+        return body(response
+                .header(NEXT_CURSOR_HEADER, String.valueOf(page.nextCursor()))
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\""), page.products());
+    }
+
+    /**
+     * Completes a list response, from the cached JSON of every product when the cache is enabled.
+     */
+    private ResponseEntity<?> body(ResponseEntity.BodyBuilder response, List<Product> products) {
+        if (jsonCache.isEnabled()) {
+            return response.contentType(MediaType.APPLICATION_JSON).body(jsonCache.jsonArray(products));
+        }
+        return response.body(products.stream().map(productMapper::toResponseDto).toList());
+    }
+
+    @GetMapping("/search")
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    @Operation(summary = "Search products by name",
+            description = "Accessible by all roles. Every word of q has to match a word of the name, whole or as its "
+                    + "start; best matches come first, at most limit after offset, which is capped by "
+                    + "products.search.max-offset. The " + TOTAL_COUNT_HEADER
+                    + " header counts all matches and the Link header points to the next page, if any")
+    public ResponseEntity<List<ProductResponseDto>> searchProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) Integer limit
+    ) {
+        log.info("A request to search products was received with q : {}", q);
+        if (q.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "q must not be blank");
+        }
+        if (offset < 0 || offset > maxSearchOffset) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "offset must be between 0 and " + maxSearchOffset);
+        }
+        final int pageSize = pageSize(limit);
+
+        final var result = productService.search(q, offset, pageSize);
+        final var body = result.products().stream().map(productMapper::toResponseDto).toList();
+
+        final var response = ResponseEntity.ok().header(TOTAL_COUNT_HEADER, String.valueOf(result.total()));
+        final int nextOffset = offset + body.size();
+        if (body.isEmpty() || nextOffset >= result.total() || nextOffset > maxSearchOffset) {
+            return response.body(body);
+        }
+        final var next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("offset", nextOffset)
+                .replaceQueryParam("limit", pageSize)
+                .build()
+                .toUriString();
+        return response
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .body(body);
+    }
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    @Operation(summary = "Get inventory totals",
+            description = "Accessible by all roles. Product counts, overall and per type, the stock value and the "
+                    + "number of products low on stock, kept current by every write rather than read off the table")
+    public ResponseEntity<ProductStatsResponse> getStats() {
+        log.info("A request to retrieve the inventory stats was received.");
+        final var stats = productService.stats();
+        return ResponseEntity.ok(new ProductStatsResponse(stats.products(), stats.productsByType(),
+                stats.stockValue(), stats.lowStock(), stats.lowStockThreshold()));
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasAnyRole('ADMIN', 'USER')")
+    @Operation(summary = "Export all products",
+            description = "Streams the whole catalog as NDJSON, gzip-compressed when the client accepts gzip")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
     ) {
-        log.info("A request to retrieve all products was received.");
-        final var products = productService.findAllFiltered(type, author, brand, size);
-        return ResponseEntity.ok(products.stream().map(productMapper::toResponseDto).toList());
+        final boolean gzip = acceptsGzip(acceptEncoding);
+        log.info("A request to export all products was received, gzip : {}", gzip);
+
+        final var response = ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(out -> exportService.exportNdjson(out, gzip));
     }
 
     @PutMapping("/{id}")
@@ -92,22 +313,140 @@ public class ProductController {
 
     @PostMapping("/bulk")
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Bulk upload products", description = "Upload multiple products via JSON")
-    public ResponseEntity<Void> uploadProducts(@RequestBody List<@Valid ProductRequestDto> products) {
+    @Operation(summary = "Bulk upload products", description = "Create multiple products in one transaction and return their IDs")
+    public ResponseEntity<BulkCreateResponse> uploadProducts(@RequestBody List<@Valid ProductRequestDto> products) {
         log.info("A request to bulk add {} products was received.", products.size());
-        products.forEach(productService::addProduct);
-        return ResponseEntity.status(HttpStatus.CREATED).build();
+        final var ids = productService.createProducts(products).stream()
+                .map(Product::getId)
+                .toList();
+        return ResponseEntity.status(HttpStatus.CREATED).body(new BulkCreateResponse(ids.size(), ids));
     }
 
     @PostMapping("/bulk/import")
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Bulk import products", description = "Upload multiple products via file")
-    public ResponseEntity<BulkImportResponse> importProducts(
+    @Operation(summary = "Bulk import products", description = "Upload a JSON array, NDJSON or CSV file, picked by content type and imported in the background")
+    public ResponseEntity<ImportJobResponse> importProducts(
             @RequestParam("file") MultipartFile file,
             @RequestParam(defaultValue = "SINGLE_THREADED") ImportMode mode
     ) throws IOException {
-        final var result = bulkImportService.importFromJson(file, mode);
-        return ResponseEntity.ok(result);
+        log.info("A request to import products in {} mode was received with file : {}", mode, file.getOriginalFilename());
+        final var job = importJobService.submit(file, mode);
+        return ResponseEntity.accepted()
+                .location(URI.create("/products/bulk/import/" + job.jobId()))
+                .body(job);
+    }
+
+    @PostMapping("/bulk/import/path")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Bulk import products from a server file",
+            description = "Imports an NDJSON, CSV or JSON file under the configured import directory in the background")
+    public ResponseEntity<ImportJobResponse> importProductsFromPath(
+            @RequestParam String path,
+            @RequestParam(required = false) ImportFormat format,
+            @RequestParam(defaultValue = "SINGLE_THREADED") ImportMode mode
+    ) throws IOException {
+        log.info("A request to import products in {} mode was received with path : {}", mode, path);
+        final var job = importJobService.submitPath(path, format, mode);
+        return ResponseEntity.accepted()
+                .location(URI.create("/products/bulk/import/" + job.jobId()))
+                .body(job);
+    }
+
+    @GetMapping("/bulk/import/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get bulk import status", description = "Rows parsed, persisted and failed, throughput and ETA")
+    public ResponseEntity<ImportJobResponse> getImportJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(importJobService.getJob(jobId));
+    }
+
+    @DeleteMapping("/bulk/import/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Cancel a bulk import", description = "Stops the import after the batch in progress")
+    public ResponseEntity<ImportJobResponse> cancelImportJob(@PathVariable String jobId) {
+        log.info("A request to cancel import job was received with id : {}", jobId);
+        return ResponseEntity.ok(importJobService.cancel(jobId));
+    }
+
+    private int pageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be at least 1");
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    private static ProductSort sort(String sort) {
+        try {
+            return ProductSort.parse(sort);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Whether Accept-Encoding allows a gzip body: gzip, or the * wildcard when gzip is not listed, with a q-value above
+     * 0. A q-value of 0 refuses the coding.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double wildcard = 0;
+        for (final var coding : acceptEncoding.split(",")) {
+            final var parameters = coding.split(";");
+            final var name = parameters[0].trim().toLowerCase(Locale.ROOT);
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                return qValue(parameters) > 0;
+            }
+            if (name.equals("*")) {
+                wildcard = qValue(parameters);
+            }
+        }
+        return wildcard > 0;
+    }
+
+    private static double qValue(String[] parameters) {
+        for (int i = 1; i < parameters.length; i++) {
+            final var parameter = parameters[i].trim();
+            if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    // a q-value that cannot be read is not taken as consent
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    private static String eTag(String version) {
+        return "\"" + version + "\"";
+    }
+
+    private static String gzipETag(String eTag) {
+        return eTag.substring(0, eTag.length() - 1) + GZIP_ETAG_SUFFIX + "\"";
+    }
+
+    /**
+     * Whether the If-None-Match header lists the ETag, or the one of its gzip body, compared weakly as If-None-Match
+     * asks for.
+     */
+    static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        final var gzipped = gzipETag(eTag);
+        for (final var candidate : ifNoneMatch.split(",")) {
+            final var tag = candidate.trim();
+            final var opaque = tag.startsWith("W/") ? tag.substring(2) : tag;
+            if (opaque.equals(eTag) || opaque.equals(gzipped)) {
+                return true;
+            }
+        }
+        return false;
     }
 
 }
@@ -0,0 +1,134 @@
+package local.dev.storemanager.infrastructure.rest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import local.dev.storemanager.application.mapper.ProductMapper;
+import local.dev.storemanager.domain.model.product.Product;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The JSON of each product as {@link ProductController} returns it, serialized once and kept as bytes, so a read of a
+ * product that has not changed skips both the response mapping and Jackson. A list is the fragments of its products
+ * joined into one array. Only used with {@code products.json-cache.enabled=true}.
+ * <p>
+ * Fragments are kept by product ID, with a copy of the product they were serialized from; a fragment is only reused
+ * for an equal product, so a write makes the next read serialize the product again, however the product was read.
+ * With {@code products.json-cache.gzip=true} each fragment also keeps a gzip copy of itself, for single products.
+ */
+@Component
+public class ProductJsonCache {
+
+    private static final byte[] EMPTY_ARRAY = {'[', ']'};
+
+    private final ProductMapper productMapper;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final boolean gzip;
+    private final Cache<Long, Fragment> fragments;
+
+    private record Fragment(Product source, byte[] json, byte[] gzip) {
+    }
+
+    public ProductJsonCache(ProductMapper productMapper,
+                            ObjectMapper objectMapper,
+                            @Value("${products.json-cache.enabled:false}") boolean enabled,
+                            @Value("${products.json-cache.gzip:false}") boolean gzip,
+                            @Value("${products.json-cache.max-entries:100000}") long maxEntries) {
+        this.productMapper = productMapper;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.gzip = gzip;
+        this.fragments = Caffeine.newBuilder().maximumSize(maxEntries).build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isGzipEnabled() {
+        return enabled && gzip;
+    }
+
+    public byte[] json(Product product) {
+        return fragment(product).json();
+    }
+
+    /**
+     * @return the JSON of the product, gzip-compressed; only with {@link #isGzipEnabled()}
+     */
+    public byte[] gzip(Product product) {
+        return fragment(product).gzip();
+    }
+
+    /**
+     * @return the products as one JSON array, in list order
+     */
+    public byte[] jsonArray(List<Product> products) {
+        if (products.isEmpty()) {
+            return EMPTY_ARRAY;
+        }
+
+        final var jsons = new byte[products.size()][];
+        // the brackets and a comma between every two fragments
+        int length = products.size() + 1;
+        for (int i = 0; i < jsons.length; i++) {
+            jsons[i] = json(products.get(i));
+            length += jsons[i].length;
+        }
+
+        final var array = new byte[length];
+        int position = 0;
+        array[position++] = '[';
+        for (int i = 0; i < jsons.length; i++) {
+            if (i > 0) {
+                array[position++] = ',';
+            }
+            System.arraycopy(jsons[i], 0, array, position, jsons[i].length);
+            position += jsons[i].length;
+        }
+        array[position] = ']';
+        return array;
+    }
+
+    private Fragment fragment(Product product) {
+        final var cached = fragments.getIfPresent(product.getId());
+        if (cached != null && cached.source().equals(product)) {
+            return cached;
+        }
+
+        final var json = serialize(product);
+        // products are mutable and may be shared with the product cache, so the fragment keeps its own copy
+        final var source = new Product(product.getId(), product.getName(), product.getPrice(), product.getQuantity(),
+                product.getType());
+        final var fragment = new Fragment(source, json, gzip ? compress(json) : null);
+        fragments.put(product.getId(), fragment);
+        return fragment;
+    }
+
+    private byte[] serialize(Product product) {
+        try {
+            return objectMapper.writeValueAsBytes(productMapper.toResponseDto(product));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot write product " + product.getId() + " as JSON", e);
+        }
+    }
+
+    private static byte[] compress(byte[] json) {
+        final var bytes = new ByteArrayOutputStream(json.length);
+        try (final var out = new GZIPOutputStream(bytes)) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -1,7 +1,10 @@
 package local.dev.storemanager.infrastructure.rest.exception;
 
+import local.dev.storemanager.application.exception.ImportJobNotFoundException;
+import local.dev.storemanager.application.exception.InvalidImportPathException;
 import local.dev.storemanager.application.exception.ProductNotFoundException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -27,6 +30,23 @@ public class GlobalExceptionHandler {
         return handleExceptionAndLog(ex.getMessage(), HttpStatus.NOT_FOUND);
     }
 
+    @ExceptionHandler(ImportJobNotFoundException.class)
+    public ResponseEntity<Map<String, Object>> handleImportJobNotFound(ImportJobNotFoundException ex) {
+        return handleExceptionAndLog(ex.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(InvalidImportPathException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidImportPath(InvalidImportPathException ex) {
+        return handleExceptionAndLog(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    // the only unique column written through the API is products.natural_key, which plain writes leave out when it is
+    // taken; only two batches writing the same new key at once get here
+    @ExceptionHandler(DuplicateKeyException.class)
+    public ResponseEntity<Map<String, Object>> handleDuplicateKey(DuplicateKeyException ex) {
+        return handleExceptionAndLog("A product with the same natural key already exists", HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleAll(Exception ex) {
         return handleExceptionAndLog(ex.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
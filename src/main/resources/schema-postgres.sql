@@ -0,0 +1,15 @@
+-- Runs after Hibernate has created or updated the tables (spring.jpa.defer-datasource-initialization).
+
+-- Product filters compare jsonb fields of products.type; these expression indexes let a filtered keyset page be an
+-- index range scan: equality on the field, then a range on id. Attribute indexes only cover the type having it.
+CREATE INDEX IF NOT EXISTS idx_products_type_label ON products ((type ->> 'type'), id);
+CREATE INDEX IF NOT EXISTS idx_products_author ON products ((lower(type ->> 'author')), id)
+    WHERE type ->> 'type' = 'Book';
+CREATE INDEX IF NOT EXISTS idx_products_brand ON products ((lower(type ->> 'brand')), id)
+    WHERE type ->> 'type' = 'Electronics';
+CREATE INDEX IF NOT EXISTS idx_products_size ON products ((lower(type ->> 'size')), id)
+    WHERE type ->> 'type' = 'Clothing';
+
+-- Price ranges and top-N by price read these in price order, forwards or backwards, and stop at the limit.
+CREATE INDEX IF NOT EXISTS idx_products_price ON products (price, id);
+CREATE INDEX IF NOT EXISTS idx_products_type_price ON products ((type ->> 'type'), price, id);
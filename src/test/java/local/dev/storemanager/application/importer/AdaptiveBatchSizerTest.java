@@ -0,0 +1,139 @@
+package local.dev.storemanager.application.importer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import local.dev.storemanager.domain.model.product.ImportMode;
+import local.dev.storemanager.domain.model.product.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static local.dev.storemanager.config.Metrics.PRODUCT_IMPORT_BATCH_SIZE;
+import static local.dev.storemanager.config.Metrics.PRODUCT_IMPORT_BATCH_SIZE_CHOSEN;
+import static local.dev.storemanager.config.Metrics.PRODUCT_IMPORT_COMMIT_DURATION;
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveBatchSizerTest {
+
+    private static final long TARGET = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    void shouldGrowWhileCommitsAreFastAndThroughputHolds() {
+        final var sizer = sizer(100, 10, 1000);
+
+        sizer.record(100, TimeUnit.MILLISECONDS.toNanos(20), true);
+        assertEquals(125, sizer.getAsInt());
+        sizer.record(125, TimeUnit.MILLISECONDS.toNanos(25), true);
+        assertEquals(150, sizer.getAsInt());
+    }
+
+    @Test
+    void shouldHoldWhenThroughputDrops() {
+        final var sizer = sizer(100, 10, 1000);
+
+        sizer.record(100, TimeUnit.MILLISECONDS.toNanos(20), true);
+        // a quarter more rows in twice the time
+        sizer.record(125, TimeUnit.MILLISECONDS.toNanos(40), true);
+
+        assertEquals(125, sizer.getAsInt());
+    }
+
+    @Test
+    void shouldShrinkWhenCommitIsOverTarget() {
+        final var sizer = sizer(100, 10, 1000);
+
+        sizer.record(100, TimeUnit.MILLISECONDS.toNanos(150), true);
+
+        assertEquals(50, sizer.getAsInt());
+    }
+
+    @Test
+    void shouldShrinkOnlyOnceForBatchesCutBeforeTheDecrease() {
+        final var sizer = sizer(100, 10, 1000);
+
+        sizer.record(100, TimeUnit.MILLISECONDS.toNanos(150), true);
+        // a batch of the old size that was already in flight
+        sizer.record(100, TimeUnit.MILLISECONDS.toNanos(150), true);
+
+        assertEquals(50, sizer.getAsInt());
+    }
+
+    @Test
+    void shouldStayWithinBounds() {
+        final var sizer = sizer(100, 40, 130);
+
+        sizer.record(100, 1, true);
+        sizer.record(125, 1, true);
+        assertEquals(130, sizer.getAsInt());
+
+        sizer.record(130, TARGET * 2, true);
+        sizer.record(65, TARGET * 2, true);
+        assertEquals(40, sizer.getAsInt());
+    }
+
+    @Test
+    void shouldShrinkWhenBatchHadToBeBisected() {
+        final var sizer = sizer(8, 1, 100);
+        final var progress = new ImportProgress();
+
+        sizer.write(rows(8), batch -> {
+            if (batch.stream().anyMatch(product -> product.getName().equals("P-5"))) {
+                throw new IllegalArgumentException("value too long");
+            }
+        }, progress);
+
+        assertEquals(7, progress.persisted());
+        assertEquals(1, progress.failed());
+        // one decrease for the batch, not one per failed half
+        assertEquals(4, sizer.getAsInt());
+    }
+
+    @Test
+    void shouldPublishChosenSizesPerMode() {
+        final var meterRegistry = new SimpleMeterRegistry();
+        final var sizing = new AdaptiveBatchSizing(meterRegistry);
+        ReflectionTestUtils.setField(sizing, "enabled", true);
+        ReflectionTestUtils.setField(sizing, "targetCommitMs", 60_000L);
+        ReflectionTestUtils.setField(sizing, "minBatchSize", 1);
+        ReflectionTestUtils.setField(sizing, "maxBatchSize", 1000);
+        ReflectionTestUtils.setField(sizing, "increasePercent", 50);
+        ReflectionTestUtils.setField(sizing, "decreaseFactor", 0.5);
+
+        final var sizer = sizing.start(ImportMode.JDBC_BATCH, 4);
+        sizer.write(rows(4), batch -> {
+        }, new ImportProgress());
+
+        assertEquals(6, sizer.getAsInt());
+        assertEquals(6.0, meterRegistry.get(PRODUCT_IMPORT_BATCH_SIZE).tag("mode", "JDBC_BATCH").gauge().value());
+        assertEquals(0.0, meterRegistry.get(PRODUCT_IMPORT_BATCH_SIZE).tag("mode", "COPY").gauge().value());
+        assertEquals(1, meterRegistry.get(PRODUCT_IMPORT_BATCH_SIZE_CHOSEN).tag("mode", "JDBC_BATCH").summary().count());
+        assertEquals(1, meterRegistry.get(PRODUCT_IMPORT_COMMIT_DURATION).tag("mode", "JDBC_BATCH").timer().count());
+    }
+
+    @Test
+    void shouldKeepConfiguredSizeWhenDisabled() {
+        final var sizing = new AdaptiveBatchSizing(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(sizing, "enabled", false);
+
+        final var sizer = sizing.start(ImportMode.UPSERT, 100);
+        sizer.record(100, 1, true);
+        sizer.record(100, TARGET * 100, false);
+
+        assertEquals(100, sizer.getAsInt());
+    }
+
+    private static AdaptiveBatchSizer sizer(int initial, int min, int max) {
+        return new AdaptiveBatchSizer(initial, min, max, initial / 4, 0.5, TARGET, (nanos, chosenSize) -> {
+        });
+    }
+
+    private static List<ImportRow<Product>> rows(int count) {
+        final var rows = new ArrayList<ImportRow<Product>>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new ImportRow<>(i, Product.builder().name("P-" + i).price(1.0).quantity(1).build()));
+        }
+        return rows;
+    }
+}
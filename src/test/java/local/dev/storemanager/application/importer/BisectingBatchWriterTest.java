@@ -0,0 +1,55 @@
+package local.dev.storemanager.application.importer;
+
+import local.dev.storemanager.domain.model.product.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BisectingBatchWriterTest {
+
+    @Test
+    void shouldWriteHealthyBatchInOneCall() {
+        final var progress = new ImportProgress();
+        final var calls = new ArrayList<List<Product>>();
+
+        BisectingBatchWriter.write(rows(8), calls::add, progress);
+
+        assertEquals(1, calls.size());
+        assertEquals(8, progress.persisted());
+        assertEquals(0, progress.failed());
+    }
+
+    @Test
+    void shouldRejectOnlyTheOffendingRows() {
+        final var progress = new ImportProgress();
+        final var bad = Set.of("P-3", "P-12");
+        final var calls = new ArrayList<List<Product>>();
+
+        BisectingBatchWriter.write(rows(16), batch -> {
+            calls.add(batch);
+            if (batch.stream().anyMatch(product -> bad.contains(product.getName()))) {
+                throw new IllegalArgumentException("value too long");
+            }
+        }, progress);
+
+        assertEquals(14, progress.persisted());
+        assertEquals(2, progress.failed());
+        assertEquals(List.of(3, 12), progress.rejected().stream().map(row -> row.index()).toList());
+        assertEquals("P-3", progress.rejected().get(0).name());
+        assertEquals("value too long", progress.rejected().get(0).reason());
+        // far fewer attempts than one write per row
+        assertTrue(calls.size() < 16, "took " + calls.size() + " attempts");
+    }
+
+    private static List<ImportRow<Product>> rows(int count) {
+        final var rows = new ArrayList<ImportRow<Product>>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new ImportRow<>(i, Product.builder().name("P-" + i).price(1.0).quantity(1).build()));
+        }
+        return rows;
+    }
+}
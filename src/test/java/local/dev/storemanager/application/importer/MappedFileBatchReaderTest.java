@@ -0,0 +1,114 @@
+package local.dev.storemanager.application.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import local.dev.storemanager.application.dto.ProductRequestDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedFileBatchReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private MappedFileBatchReader mappedReader;
+
+    @BeforeEach
+    void setup() {
+        mappedReader = new MappedFileBatchReader();
+        ReflectionTestUtils.setField(mappedReader, "parseThreads", 4);
+        // small chunks, so even a test file is split across the threads
+        mappedReader.minChunkBytes = 64;
+    }
+
+    @Test
+    void shouldParseNdjsonChunksInParallelKeepingRowIndices() throws Exception {
+        final var lines = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            lines.append("{\"name\":\"P").append(i).append("\",\"price\":1.0,\"quantity\":1,\"type\":\"Book\"}\n");
+            if (i % 50 == 0) {
+                lines.append("\n");
+            }
+        }
+        final var file = Files.writeString(tempDir.resolve("products.ndjson"), lines);
+        final var progress = new ImportProgress();
+        final var rows = Collections.synchronizedList(new ArrayList<ImportRow<ProductRequestDto>>());
+        final var threads = Collections.synchronizedSet(new HashSet<String>());
+
+        final int total = mappedReader.read(file, new ProductNdjsonBatchReader(new ObjectMapper()), false, () -> 16, true,
+                progress, batch -> {
+                    threads.add(Thread.currentThread().getName());
+                    rows.addAll(batch);
+                });
+
+        assertEquals(200, total);
+        assertIndexedInOrder(rows);
+        assertTrue(threads.size() > 1, "expected several parser threads, got " + threads);
+        assertEquals(Files.size(file), progress.bytesRead());
+    }
+
+    @Test
+    void shouldHandTheCsvHeaderToEveryChunk() throws Exception {
+        final var lines = new StringBuilder("name,price,quantity,type\n");
+        for (int i = 0; i < 100; i++) {
+            lines.append("P").append(i).append(",1.0,1,Book\n");
+        }
+        final var file = Files.writeString(tempDir.resolve("products.csv"), lines);
+        final var rows = Collections.synchronizedList(new ArrayList<ImportRow<ProductRequestDto>>());
+
+        final int total = mappedReader.read(file, new ProductCsvBatchReader(), true, () -> 10, true,
+                new ImportProgress(), rows::addAll);
+
+        assertEquals(100, total);
+        assertIndexedInOrder(rows);
+        assertTrue(rows.stream().allMatch(row -> row.value().price() == 1.0));
+    }
+
+    @Test
+    void shouldReadHeaderOnlyFile() throws Exception {
+        final var file = Files.writeString(tempDir.resolve("empty.csv"), "name,price,quantity,type\n");
+
+        final int total = mappedReader.read(file, new ProductCsvBatchReader(), true, () -> 10, true,
+                new ImportProgress(), batch -> fail("no batch expected"));
+
+        assertEquals(0, total);
+    }
+
+    @Test
+    void shouldPropagateParseErrors() throws Exception {
+        final var file = Files.writeString(tempDir.resolve("broken.ndjson"), "{\"name\":\"P0\"}\n{not json\n");
+
+        assertThrows(JsonProcessingException.class,
+                () -> mappedReader.read(file, new ProductNdjsonBatchReader(new ObjectMapper()), false, () -> 10, false,
+                        new ImportProgress(), batch -> {}));
+    }
+
+    @Test
+    void countRows_shouldSkipBlankLines() {
+        final var buffer = ByteBuffer.wrap("a\n\n  \r\nb\nc".getBytes());
+
+        assertEquals(3, MappedFileBatchReader.countRows(buffer));
+    }
+
+    private static void assertIndexedInOrder(List<ImportRow<ProductRequestDto>> rows) {
+        final var sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparingInt(ImportRow::index));
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(i, sorted.get(i).index());
+            assertEquals("P" + i, sorted.get(i).value().name());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package local.dev.storemanager.application.importer;
+
+import local.dev.storemanager.application.dto.ProductRequestDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCsvBatchReaderTest {
+
+    private final ProductCsvBatchReader reader = new ProductCsvBatchReader();
+
+    @Test
+    void shouldMapColumnsByHeader() throws Exception {
+        final var csv = """
+                type,name,price,quantity,author,genre,brand,warranty
+                Book,Effective Java,45.0,10,Joshua Bloch,Programming,,
+                Electronics,"MacBook Pro, 14""\",1999.99,5,,,Apple,1 year
+                """.getBytes();
+
+        final var batches = new ArrayList<List<ProductRequestDto>>();
+        final int total = reader.read(new ByteArrayInputStream(csv), 10, batches::add);
+
+        assertEquals(2, total);
+        final var book = batches.get(0).get(0);
+        assertEquals("Effective Java", book.name());
+        assertEquals(45.0, book.price());
+        assertEquals(10, book.quantity());
+        assertNull(book.brand());
+
+        final var laptop = batches.get(0).get(1);
+        assertEquals("MacBook Pro, 14\"", laptop.name());
+        assertEquals("Apple", laptop.brand());
+        assertNull(laptop.author());
+    }
+
+    @Test
+    void shouldIgnoreUnknownColumnsAndEmptyLines() throws Exception {
+        final var csv = """
+                name,price,quantity,type,sku
+
+                Hoodie,29.9,20,Clothing,H-1
+                """.getBytes();
+
+        final var batches = new ArrayList<List<ProductRequestDto>>();
+        final int total = reader.read(new ByteArrayInputStream(csv), 10, batches::add);
+
+        assertEquals(1, total);
+        assertEquals("Hoodie", batches.get(0).get(0).name());
+    }
+}
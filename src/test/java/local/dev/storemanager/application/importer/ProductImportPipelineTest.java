@@ -0,0 +1,152 @@
+package local.dev.storemanager.application.importer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import local.dev.storemanager.application.dto.ProductRequestDto;
+import local.dev.storemanager.application.dto.RejectedRow;
+import local.dev.storemanager.application.mapper.ProductMapper;
+import local.dev.storemanager.domain.model.product.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static local.dev.storemanager.config.Metrics.PRODUCT_IMPORT_STAGE_ROWS_TOTAL;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductImportPipelineTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ProductImportPipeline pipeline;
+
+    @BeforeEach
+    void setup() {
+        pipeline = new ProductImportPipeline(Validation.buildDefaultValidatorFactory().getValidator(),
+                new ProductMapper(), meterRegistry);
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", 1);
+        ReflectionTestUtils.setField(pipeline, "validateThreads", 1);
+        ReflectionTestUtils.setField(pipeline, "mapThreads", 2);
+        ReflectionTestUtils.setField(pipeline, "persistThreads", 2);
+    }
+
+    @Test
+    void shouldPersistValidRowsAndRejectInvalidOnes() throws Exception {
+        final var progress = new ImportProgress();
+        final var persisted = Collections.synchronizedList(new ArrayList<Product>());
+
+        final int total = pipeline.run(sink -> {
+            sink.accept(rows(0, product("A"), product("B"), product("")));
+            sink.accept(rows(3, product("C"), product("D")));
+            return 5;
+        }, progress, persisted::addAll);
+
+        assertEquals(5, total);
+        assertEquals(4, persisted.size());
+        assertEquals(4, progress.persisted());
+        assertEquals(1, progress.failed());
+        assertEquals(2, progress.rejected().get(0).index());
+        assertTrue(progress.rejected().get(0).reason().contains("name"));
+        assertEquals(4.0, meterRegistry.get(PRODUCT_IMPORT_STAGE_ROWS_TOTAL).tag("stage", "persist").counter().count());
+    }
+
+    @Test
+    void shouldRejectOnlyTheRowsThatFailToPersist() throws Exception {
+        final var progress = new ImportProgress();
+
+        pipeline.run(sink -> {
+            for (int i = 0; i < 10; i++) {
+                sink.accept(rows(i * 2, product("P" + i), product("Q" + i)));
+            }
+            return 20;
+        }, progress, batch -> {
+            if (batch.stream().anyMatch(product -> product.getName().equals("Q3"))) {
+                throw new IllegalStateException("bad row");
+            }
+        });
+
+        assertEquals(19, progress.persisted());
+        assertEquals(1, progress.failed());
+        assertEquals(7, progress.rejected().get(0).index());
+        assertEquals("bad row", progress.rejected().get(0).reason());
+    }
+
+    @Test
+    void shouldRejectEveryRowOfABatchAStageFailsOnByIndex() throws Exception {
+        final var progress = new ImportProgress();
+        final var persisted = Collections.synchronizedList(new ArrayList<Product>());
+
+        pipeline.run(sink -> {
+            sink.accept(rows(0, product("A"), product("B")));
+            sink.accept(rows(2, product("C"), product("D"), product("E")));
+            return 5;
+        }, progress, persisted::addAll, (batch, persist, batchProgress) -> {
+            if (batch.get(0).index() == 2) {
+                throw new IllegalStateException("connection lost");
+            }
+            BisectingBatchWriter.write(batch, persist, batchProgress);
+        });
+
+        assertEquals(2, progress.persisted());
+        assertEquals(3, progress.failed());
+        assertEquals(List.of(2, 3, 4), progress.rejected().stream().map(RejectedRow::index).toList());
+        assertEquals(List.of("C", "D", "E"), progress.rejected().stream().map(RejectedRow::name).toList());
+        assertTrue(progress.rejected().stream().allMatch(row -> row.reason().equals("connection lost")));
+    }
+
+    @Test
+    void shouldHoldBackParserWhilePersistIsBlocked() throws Exception {
+        ReflectionTestUtils.setField(pipeline, "persistThreads", 1);
+        final var progress = new ImportProgress();
+        final var release = new CountDownLatch(1);
+        final var parsed = new AtomicInteger(0);
+
+        final var importThread = new Thread(() -> {
+            try {
+                pipeline.run(sink -> {
+                    for (int i = 0; i < 50; i++) {
+                        sink.accept(rows(i, product("P" + i)));
+                        parsed.incrementAndGet();
+                    }
+                    return 50;
+                }, progress, batch -> await(release));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        importThread.start();
+
+        Thread.sleep(300);
+        // one batch being persisted plus a few waiting in the bounded queues, never the whole input
+        assertTrue(parsed.get() < 10, "parser ran ahead by " + parsed.get() + " batches");
+
+        release.countDown();
+        importThread.join(5000);
+        assertEquals(50, progress.persisted());
+    }
+
+    private static List<ImportRow<ProductRequestDto>> rows(int offset, ProductRequestDto... products) {
+        final var rows = new ArrayList<ImportRow<ProductRequestDto>>();
+        for (int i = 0; i < products.length; i++) {
+            rows.add(new ImportRow<>(offset + i, products[i]));
+        }
+        return rows;
+    }
+
+    private static ProductRequestDto product(String name) {
+        return new ProductRequestDto(name, 10.0, 1, "Book", "Author", "Fiction", null, null, null, null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
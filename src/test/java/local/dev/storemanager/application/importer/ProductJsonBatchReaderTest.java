@@ -0,0 +1,56 @@
+package local.dev.storemanager.application.importer;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import local.dev.storemanager.application.dto.ProductRequestDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductJsonBatchReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ProductJsonBatchReader reader = new ProductJsonBatchReader(objectMapper);
+
+    @Test
+    void shouldReadProductsInBatches() throws Exception {
+        final var products = new ArrayList<ProductRequestDto>();
+        for (int i = 0; i < 7; i++) {
+            products.add(new ProductRequestDto("Product-" + i, 10.0 + i, i + 1,
+                    "Book", "Author-" + i, "Fiction", null, null, null, null));
+        }
+        final var json = objectMapper.writeValueAsBytes(products);
+
+        final var batches = new ArrayList<List<ProductRequestDto>>();
+        final var total = reader.read(new ByteArrayInputStream(json), 3, batches::add);
+
+        assertEquals(7, total);
+        assertEquals(List.of(3, 3, 1), batches.stream().map(List::size).toList());
+        assertEquals("Product-0", batches.get(0).get(0).name());
+        assertEquals("Author-6", batches.get(2).get(0).author());
+    }
+
+    @Test
+    void shouldReadEmptyArray() throws Exception {
+        final var batches = new ArrayList<List<ProductRequestDto>>();
+
+        final var total = reader.read(new ByteArrayInputStream("[]".getBytes()), 10, batches::add);
+
+        assertEquals(0, total);
+        assertTrue(batches.isEmpty());
+    }
+
+    @Test
+    void shouldRejectNonArrayInput() {
+        final var json = """
+                { "name": "Book", "price": 10.0, "quantity": 1 }
+                """.getBytes();
+
+        assertThrows(JsonParseException.class,
+                () -> reader.read(new ByteArrayInputStream(json), 10, batch -> fail("no batch expected")));
+    }
+}
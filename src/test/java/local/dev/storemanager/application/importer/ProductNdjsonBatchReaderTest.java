@@ -0,0 +1,41 @@
+package local.dev.storemanager.application.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import local.dev.storemanager.application.dto.ProductRequestDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductNdjsonBatchReaderTest {
+
+    private final ProductNdjsonBatchReader reader = new ProductNdjsonBatchReader(new ObjectMapper());
+
+    @Test
+    void shouldReadOneProductPerLineInBatches() throws Exception {
+        final var ndjson = """
+                {"name":"Effective Java","price":45.0,"quantity":10,"type":"Book","author":"Joshua Bloch","genre":"Programming"}
+                {"name":"MacBook Pro","price":1999.99,"quantity":5,"type":"Electronics","brand":"Apple","warranty":"1 year"}
+
+                {"name":"Hoodie","price":29.9,"quantity":20,"type":"Clothing","size":"L","material":"Cotton"}
+                """.getBytes();
+
+        final var batches = new ArrayList<List<ProductRequestDto>>();
+        final int total = reader.read(new ByteArrayInputStream(ndjson), 2, batches::add);
+
+        assertEquals(3, total);
+        assertEquals(List.of(2, 1), batches.stream().map(List::size).toList());
+        assertEquals("Apple", batches.get(0).get(1).brand());
+        assertEquals("Cotton", batches.get(1).get(0).material());
+    }
+
+    @Test
+    void shouldReadEmptyInput() throws Exception {
+        final int total = reader.read(new ByteArrayInputStream(new byte[0]), 10, batch -> fail("no batch expected"));
+
+        assertEquals(0, total);
+    }
+}
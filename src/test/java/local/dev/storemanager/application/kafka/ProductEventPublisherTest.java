@@ -6,6 +6,8 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.springframework.kafka.core.KafkaTemplate;
 
+import java.util.List;
+
 import static local.dev.storemanager.config.KafkaTopics.PRODUCTS_TOPIC;
 import static local.dev.storemanager.config.Metrics.PRODUCT_EVENTS_PUBLISHED_TOTAL;
 import static local.dev.storemanager.constants.EventTypes.PRICE_CHANGED;
@@ -52,4 +54,26 @@ class ProductEventPublisherTest {
         assertEquals(1.0, counter.count(), 0.01);
     }
 
-}
\ No newline at end of file
+    @Test
+    void shouldPublishAllEventsWithSingleFlush() {
+        final var events = List.of(
+                new ProductEvent(PRODUCT_CREATED, "1"),
+                new ProductEvent(PRODUCT_CREATED, "2"),
+                new ProductEvent(PRODUCT_CREATED, "3")
+        );
+
+        publisher.publishAll(PRODUCTS_TOPIC, events);
+
+        verify(kafkaTemplate, times(3)).send(eq(PRODUCTS_TOPIC), any(ProductEvent.class));
+        verify(kafkaTemplate, times(1)).flush();
+
+        final var counter = meterRegistry
+                .get(PRODUCT_EVENTS_PUBLISHED_TOTAL)
+                .tag("topic", PRODUCTS_TOPIC)
+                .tag("eventType", PRODUCT_CREATED)
+                .counter();
+
+        assertEquals(3.0, counter.count(), 0.01);
+    }
+
+}
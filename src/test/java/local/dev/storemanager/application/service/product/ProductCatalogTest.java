@@ -0,0 +1,119 @@
+package local.dev.storemanager.application.service.product;
+
+import local.dev.storemanager.domain.model.product.Book;
+import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.domain.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCatalogTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductCatalog catalog;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new ProductCatalog(productRepository, 100);
+    }
+
+    @Test
+    void shouldReadTheTableOnceInIdOrder() {
+        when(productRepository.findAll()).thenReturn(List.of(product(3L, "C"), product(1L, "A")));
+
+        final var first = catalog.snapshot();
+        final var second = catalog.snapshot();
+
+        assertEquals(List.of(product(1L, "A"), product(3L, "C")), first.products());
+        assertEquals(0, first.version());
+        assertSame(first, second);
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    void shouldMergeQueuedWritesOnTheNextReadWithoutChangingEarlierSnapshots() {
+        when(productRepository.findAll()).thenReturn(List.of(product(1L, "A"), product(3L, "C"), product(5L, "E")));
+        final var before = catalog.snapshot();
+
+        catalog.putAll(List.of(product(4L, "D"), product(3L, "C2"), product(6L, "F")));
+        catalog.remove(1L);
+        catalog.remove(42L);
+        catalog.putAll(List.of(product(6L, "F2")));
+
+        final var after = catalog.snapshot();
+        assertEquals(List.of(product(3L, "C2"), product(4L, "D"), product(5L, "E"), product(6L, "F2")),
+                after.products());
+        // one merge for every write queued since the last read
+        assertEquals(1, after.version());
+        assertSame(after, catalog.snapshot());
+        assertEquals(List.of(product(1L, "A"), product(3L, "C"), product(5L, "E")), before.products());
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    void shouldMergeOnWriteOnceTooManyDeltasAreQueued() {
+        catalog = new ProductCatalog(productRepository, 2);
+        when(productRepository.findAll()).thenReturn(List.of());
+        catalog.snapshot();
+
+        catalog.putAll(List.of(product(1L, "A"), product(2L, "B")));
+        catalog.putAll(List.of(product(3L, "C")));
+
+        final var snapshot = catalog.snapshot();
+        assertEquals(List.of(product(1L, "A"), product(2L, "B"), product(3L, "C")), snapshot.products());
+        assertEquals(2, snapshot.version());
+    }
+
+    @Test
+    void shouldKeepItsOwnCopiesOfWrittenProducts() {
+        when(productRepository.findAll()).thenReturn(List.of());
+        catalog.snapshot();
+        final var written = new Product(1L, "Dune", 12.0, 3, new Book("Frank Herbert", "Sci-Fi"));
+
+        catalog.putAll(List.of(written));
+        written.setName("Changed in place");
+
+        final var products = catalog.snapshot().products();
+        assertEquals("Dune", products.get(0).getName());
+        assertNotSame(written, products.get(0));
+        assertThrows(UnsupportedOperationException.class, () -> products.add(written));
+    }
+
+    @Test
+    void shouldIgnoreWritesBeforeTheLoad() {
+        catalog.putAll(List.of(product(1L, "A")));
+        catalog.remove(1L);
+        when(productRepository.findAll()).thenReturn(List.of(product(1L, "A")));
+
+        assertEquals(List.of(product(1L, "A")), catalog.snapshot().products());
+        assertEquals(0, catalog.snapshot().version());
+    }
+
+    @Test
+    void shouldPageAfterAnId() {
+        final var snapshot = new ProductCatalog.Snapshot(0,
+                List.of(product(2L, "B"), product(4L, "D"), product(6L, "F")));
+
+        assertEquals(List.of(product(2L, "B"), product(4L, "D")), snapshot.after(0, 2));
+        assertEquals(List.of(product(4L, "D"), product(6L, "F")), snapshot.after(2, 5));
+        assertEquals(List.of(product(6L, "F")), snapshot.after(5, Integer.MAX_VALUE));
+        assertEquals(List.of(), snapshot.after(6, 2));
+    }
+
+    private static Product product(Long id, String name) {
+        return new Product(id, name, 1.0, 1, null);
+    }
+}
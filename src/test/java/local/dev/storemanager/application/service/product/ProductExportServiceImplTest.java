@@ -0,0 +1,81 @@
+package local.dev.storemanager.application.service.product;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import local.dev.storemanager.application.mapper.ProductMapper;
+import local.dev.storemanager.domain.model.product.Book;
+import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.domain.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ProductExportServiceImplTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ProductExportServiceImpl exportService;
+
+    @BeforeEach
+    void setup() {
+        exportService = new ProductExportServiceImpl(productRepository, new ProductMapper(), objectMapper);
+        when(productRepository.forEach(any())).thenAnswer(invocation -> {
+            final Consumer<Product> consumer = invocation.getArgument(0);
+            consumer.accept(new Product(1L, "Dune", 12.0, 3, new Book("Frank Herbert", "Sci-Fi")));
+            consumer.accept(new Product(2L, "Lamp", 20.0, 1, null));
+            return 2L;
+        });
+    }
+
+    @Test
+    void shouldWriteOneJsonObjectPerLine() throws Exception {
+        final var out = new ByteArrayOutputStream();
+
+        final long count = exportService.exportNdjson(out, false);
+
+        assertEquals(2, count);
+        final var lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(3, lines.length);
+        assertEquals("", lines[2]);
+        assertEquals("Dune", objectMapper.readTree(lines[0]).get("name").asText());
+        assertEquals("Frank Herbert", objectMapper.readTree(lines[0]).get("typeDetails").get("author").asText());
+        assertEquals(2, objectMapper.readTree(lines[1]).get("id").asLong());
+    }
+
+    @Test
+    void shouldGzipTheLines() throws Exception {
+        final var out = new ByteArrayOutputStream();
+
+        exportService.exportNdjson(out, true);
+
+        try (final var in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            final var lines = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+            assertEquals(List.of("Dune", "Lamp"), lines.stream()
+                    .map(line -> readName(line))
+                    .toList());
+        }
+    }
+
+    private String readName(String line) {
+        try {
+            return objectMapper.readTree(line).get("name").asText();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package local.dev.storemanager.application.service.product;
+
+import local.dev.storemanager.application.dto.BulkImportResponse;
+import local.dev.storemanager.application.dto.ImportJobResponse;
+import local.dev.storemanager.application.exception.ImportJobNotFoundException;
+import local.dev.storemanager.application.importer.ImportProgress;
+import local.dev.storemanager.application.exception.InvalidImportPathException;
+import local.dev.storemanager.domain.model.product.ImportFormat;
+import local.dev.storemanager.domain.model.product.ImportJobStatus;
+import local.dev.storemanager.domain.model.product.ImportMode;
+import local.dev.storemanager.domain.service.ProductBulkImportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductImportJobServiceImplTest {
+
+    private final ProductBulkImportService bulkImportService = mock(ProductBulkImportService.class);
+    private ProductImportJobServiceImpl jobService;
+
+    @BeforeEach
+    void setup() {
+        jobService = new ProductImportJobServiceImpl(bulkImportService);
+        ReflectionTestUtils.setField(jobService, "threads", 1);
+        ReflectionTestUtils.setField(jobService, "retentionMinutes", 60L);
+        jobService.initExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jobService.shutdownExecutor();
+    }
+
+    @Test
+    void submit_shouldReturnQueuedJobAndCompleteInBackground() throws Exception {
+        final var result = new BulkImportResponse(2, 2, 0, 5);
+        when(bulkImportService.importFromPath(any(Path.class), eq(ImportFormat.JSON), eq(ImportMode.JDBC_BATCH), any(ImportProgress.class)))
+                .thenAnswer(invocation -> {
+                    final ImportProgress progress = invocation.getArgument(3);
+                    progress.parsed(2);
+                    progress.persisted(2);
+                    return result;
+                });
+
+        final var submitted = jobService.submit(file(), ImportMode.JDBC_BATCH);
+        assertNotNull(submitted.jobId());
+
+        final var finished = awaitFinished(submitted.jobId());
+        assertEquals(ImportJobStatus.COMPLETED, finished.status());
+        assertEquals(2, finished.parsed());
+        assertEquals(2, finished.persisted());
+        assertEquals(result, finished.result());
+        assertEquals(0L, finished.etaMs());
+    }
+
+    @Test
+    void submit_shouldReportFailure() throws Exception {
+        when(bulkImportService.importFromPath(any(Path.class), any(), any(), any()))
+                .thenThrow(new IllegalStateException("broken upload"));
+
+        final var submitted = jobService.submit(file(), ImportMode.SINGLE_THREADED);
+
+        final var finished = awaitFinished(submitted.jobId());
+        assertEquals(ImportJobStatus.FAILED, finished.status());
+        assertEquals("broken upload", finished.error());
+    }
+
+    @Test
+    void cancel_shouldStopRunningJob() throws Exception {
+        final var started = new CountDownLatch(1);
+        when(bulkImportService.importFromPath(any(Path.class), any(), any(), any(ImportProgress.class)))
+                .thenAnswer(invocation -> {
+                    final ImportProgress progress = invocation.getArgument(3);
+                    started.countDown();
+                    while (true) {
+                        progress.checkNotCancelled();
+                        Thread.sleep(5);
+                    }
+                });
+
+        final var submitted = jobService.submit(file(), ImportMode.MULTI_THREADED);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        jobService.cancel(submitted.jobId());
+
+        assertEquals(ImportJobStatus.CANCELLED, awaitFinished(submitted.jobId()).status());
+    }
+
+    @Test
+    void cancel_shouldLeaveRunningJobToStopAndCleanUpItself() throws Exception {
+        final var started = new CountDownLatch(1);
+        final var cancelRequested = new CountDownLatch(1);
+        final var upload = new AtomicReference<Path>();
+        when(bulkImportService.importFromPath(any(Path.class), any(), any(), any(ImportProgress.class)))
+                .thenAnswer(invocation -> {
+                    upload.set(invocation.getArgument(0));
+                    final ImportProgress progress = invocation.getArgument(3);
+                    started.countDown();
+                    assertTrue(cancelRequested.await(5, TimeUnit.SECONDS));
+                    // the import still reads its file after the cancel request
+                    assertTrue(Files.exists(upload.get()));
+                    progress.checkNotCancelled();
+                    return fail("Cancellation not seen");
+                });
+
+        final var submitted = jobService.submit(file(), ImportMode.JDBC_BATCH);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertEquals(ImportJobStatus.RUNNING, jobService.cancel(submitted.jobId()).status());
+        assertTrue(Files.exists(upload.get()));
+        cancelRequested.countDown();
+
+        assertEquals(ImportJobStatus.CANCELLED, awaitFinished(submitted.jobId()).status());
+        assertFalse(Files.exists(upload.get()));
+    }
+
+    @Test
+    void cancel_shouldDropQueuedJobWithoutRunningIt() throws Exception {
+        final var started = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        when(bulkImportService.importFromPath(any(Path.class), any(), any(), any(ImportProgress.class)))
+                .thenAnswer(invocation -> {
+                    started.countDown();
+                    assertTrue(release.await(5, TimeUnit.SECONDS));
+                    return new BulkImportResponse(0, 0, 0, 5);
+                });
+
+        // one thread, so the second job waits behind the first
+        final var running = jobService.submit(file(), ImportMode.JDBC_BATCH);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        final var queued = jobService.submit(file(), ImportMode.JDBC_BATCH);
+
+        assertEquals(ImportJobStatus.CANCELLED, jobService.cancel(queued.jobId()).status());
+        release.countDown();
+
+        assertEquals(ImportJobStatus.COMPLETED, awaitFinished(running.jobId()).status());
+        assertEquals(ImportJobStatus.CANCELLED, awaitFinished(queued.jobId()).status());
+        verify(bulkImportService, times(1)).importFromPath(any(Path.class), any(), any(), any(ImportProgress.class));
+    }
+
+    @Test
+    void submitPath_shouldImportServerFileInPlace(@TempDir Path baseDir) throws Exception {
+        final var file = Files.writeString(baseDir.resolve("products.ndjson"), "{}\n");
+        ReflectionTestUtils.setField(jobService, "pathBaseDir", baseDir.toString());
+        when(bulkImportService.importFromPath(any(Path.class), eq(ImportFormat.NDJSON), eq(ImportMode.COPY), any(ImportProgress.class)))
+                .thenReturn(new BulkImportResponse(1, 1, 0, 5));
+
+        final var submitted = jobService.submitPath("products.ndjson", null, ImportMode.COPY);
+
+        assertEquals(ImportFormat.NDJSON, submitted.format());
+        assertEquals(ImportJobStatus.COMPLETED, awaitFinished(submitted.jobId()).status());
+        // the file belongs to the server, not to the job
+        assertTrue(Files.exists(file));
+    }
+
+    @Test
+    void submitPath_shouldRejectPathsOutsideBaseDir(@TempDir Path tempDir) throws Exception {
+        final var baseDir = Files.createDirectory(tempDir.resolve("imports"));
+        Files.writeString(tempDir.resolve("secret.csv"), "name\n");
+        ReflectionTestUtils.setField(jobService, "pathBaseDir", baseDir.toString());
+
+        assertThrows(InvalidImportPathException.class,
+                () -> jobService.submitPath("../secret.csv", null, ImportMode.COPY));
+        assertThrows(InvalidImportPathException.class,
+                () -> jobService.submitPath("missing.csv", null, ImportMode.COPY));
+    }
+
+    @Test
+    void submitPath_shouldBeDisabledWithoutBaseDir() {
+        ReflectionTestUtils.setField(jobService, "pathBaseDir", "");
+
+        assertThrows(InvalidImportPathException.class,
+                () -> jobService.submitPath("products.csv", null, ImportMode.COPY));
+    }
+
+    @Test
+    void getJob_shouldThrowForUnknownId() {
+        assertThrows(ImportJobNotFoundException.class, () -> jobService.getJob("missing"));
+    }
+
+    private static MockMultipartFile file() {
+        return new MockMultipartFile("file", "products.json", "application/json", "[]".getBytes());
+    }
+
+    private ImportJobResponse awaitFinished(String jobId) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            final var job = jobService.getJob(jobId);
+            if (job.status() != ImportJobStatus.QUEUED && job.status() != ImportJobStatus.RUNNING) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        return fail("Import job " + jobId + " did not finish in time");
+    }
+}
@@ -0,0 +1,111 @@
+package local.dev.storemanager.application.service.product;
+
+import local.dev.storemanager.domain.model.product.Book;
+import local.dev.storemanager.domain.model.product.Electronics;
+import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.domain.model.product.ProductStats;
+import local.dev.storemanager.domain.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductInventoryStatsTest {
+
+    private static final Product NOVEL = new Product(1L, "Novel", 10.0, 3, new Book("Author", "Fiction"));
+    private static final Product LAPTOP = new Product(2L, "Laptop", 1000.0, 8, new Electronics("Dell", "2 years"));
+    private static final Product MUG = new Product(3L, "Mug", 4.0, 50, null);
+    private static final List<Product> ALL = List.of(NOVEL, LAPTOP, MUG);
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductInventoryStats inventoryStats;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        inventoryStats = new ProductInventoryStats(productRepository);
+        lenient().when(productRepository.forEach(any())).thenAnswer(invocation -> {
+            ALL.forEach(invocation.<Consumer<Product>>getArgument(0));
+            return (long) ALL.size();
+        });
+    }
+
+    @Test
+    void shouldCountTheTableOnTheFirstRequestOnly() {
+        final var stats = inventoryStats.stats();
+
+        assertEquals(new ProductStats(3, Map.of("Book", 1L, "Electronics", 1L), 8230.0, 1, 5), stats);
+        assertEquals(stats, inventoryStats.stats());
+        verify(productRepository, times(1)).forEach(any());
+    }
+
+    @Test
+    void shouldMoveTheTotalsByWhatEachWriteChanged() {
+        inventoryStats.stats();
+
+        // the novel turns into low-stock electronics, a new book comes in and the laptop is deleted
+        inventoryStats.putAll(List.of(new Product(1L, "Novel", 12.0, 1, new Electronics("Acme", "1 year")),
+                new Product(4L, "Essays", 20.0, 10, new Book("Author", "Essay"))));
+        inventoryStats.remove(2L);
+        inventoryStats.remove(99L);
+
+        assertEquals(new ProductStats(3, Map.of("Book", 1L, "Electronics", 1L), 412.0, 1, 5), inventoryStats.stats());
+    }
+
+    @Test
+    void shouldIgnoreWritesBeforeTheLoad() {
+        inventoryStats.putAll(List.of(new Product(9L, "Lamp", 30.0, 1, null)));
+        inventoryStats.remove(1L);
+
+        // the load reads the table as it is now
+        assertEquals(3, inventoryStats.stats().products());
+    }
+
+    @Test
+    void shouldCorrectTheTotalsToTheTable() {
+        inventoryStats.stats();
+        when(productRepository.stats(5)).thenReturn(new ProductStats(5, Map.of("Book", 3L, "Clothing", 1L),
+                9000.0, 2, 5));
+
+        inventoryStats.reconcile();
+
+        assertEquals(new ProductStats(5, Map.of("Book", 3L, "Clothing", 1L), 9000.0, 2, 5), inventoryStats.stats());
+        // later writes still move the corrected totals
+        inventoryStats.remove(3L);
+        assertEquals(4, inventoryStats.stats().products());
+        assertEquals(8800.0, inventoryStats.stats().stockValue(), 1e-9);
+    }
+
+    @Test
+    void shouldSkipTheCorrectionWhenAWriteComesInMeanwhile() {
+        inventoryStats.stats();
+        when(productRepository.stats(5)).thenAnswer(invocation -> {
+            inventoryStats.remove(3L);
+            return new ProductStats(99, Map.of("Book", 99L), 1.0, 0, 5);
+        });
+
+        inventoryStats.reconcile();
+
+        // only the delete moved the totals
+        assertEquals(new ProductStats(2, Map.of("Book", 1L, "Electronics", 1L), 8030.0, 1, 5), inventoryStats.stats());
+    }
+
+    @Test
+    void shouldNotReconcileBeforeTheFirstRequest() {
+        inventoryStats.reconcile();
+
+        verifyNoInteractions(productRepository);
+    }
+}
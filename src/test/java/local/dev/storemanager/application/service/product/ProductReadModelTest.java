@@ -0,0 +1,131 @@
+package local.dev.storemanager.application.service.product;
+
+import local.dev.storemanager.domain.model.product.Book;
+import local.dev.storemanager.domain.model.product.Clothing;
+import local.dev.storemanager.domain.model.product.Electronics;
+import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.domain.model.product.ProductFilter;
+import local.dev.storemanager.domain.model.product.ProductSort;
+import local.dev.storemanager.domain.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductReadModelTest {
+
+    private static final Product DUNE = new Product(1L, "Dune", 12.0, 3, new Book("Frank Herbert", "Sci-Fi"));
+    private static final Product LAPTOP = new Product(2L, "Laptop", 999.0, 1, new Electronics("Dell", "2 years"));
+    private static final Product SHIRT = new Product(3L, "Shirt", 20.0, 5, new Clothing("M", "Cotton"));
+    private static final Product MUG = new Product(4L, "Mug", 5.0, 9, null);
+    private static final Product EMMA = new Product(5L, "Emma", 8.0, 2, new Book("Jane Austen", "Novel"));
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductReadModel readModel;
+
+    @BeforeEach
+    void setUp() {
+        readModel = new ProductReadModel(productRepository);
+        when(productRepository.findAll()).thenReturn(List.of(DUNE, LAPTOP, SHIRT, MUG, EMMA));
+    }
+
+    @Test
+    void shouldLoadOnceAndListInIdOrder() {
+        assertEquals(List.of(DUNE, LAPTOP, SHIRT, MUG, EMMA), readModel.findAll());
+        assertEquals(List.of(SHIRT, MUG), readModel.find(ProductFilter.none(), 2, 2));
+
+        verify(productRepository, times(1)).findAll();
+    }
+
+    @Test
+    void shouldFilterWithTheSemanticsOfProductFilter() {
+        final var filters = List.of(
+                new ProductFilter("book", null, null, null),
+                new ProductFilter("Book", "JANE AUSTEN", null, null),
+                new ProductFilter("Book", null, "Dell", null),
+                new ProductFilter(null, "Frank Herbert", null, null),
+                new ProductFilter(null, "Nobody", "dell", "xl"),
+                new ProductFilter("Toy", null, null, null));
+
+        for (final var filter : filters) {
+            final var expected = List.of(DUNE, LAPTOP, SHIRT, MUG, EMMA).stream()
+                    .filter(filter::matches)
+                    .toList();
+            assertEquals(expected, readModel.find(filter, 0, Integer.MAX_VALUE), filter.toString());
+        }
+    }
+
+    @Test
+    void shouldReindexChangedProductsAndDropDeletedOnes() {
+        readModel.findAll();
+        final var changed = new Product(1L, "Dune", 15.0, 3, new Electronics("Dell", "1 year"));
+
+        readModel.putAll(List.of(changed));
+        readModel.remove(2L);
+
+        assertEquals(List.of(), readModel.find(new ProductFilter("Book", "Frank Herbert", null, null), 0, 10));
+        assertEquals(List.of(changed), readModel.find(new ProductFilter("Electronics", null, "dell", null), 0, 10));
+        assertEquals(List.of(EMMA, changed, SHIRT), readModel.findSorted(
+                new ProductFilter(null, null, null, null, 6.0, 25.0), ProductSort.PRICE_ASC, 10));
+    }
+
+    @Test
+    void shouldIgnoreWritesBeforeTheLoad() {
+        readModel.putAll(List.of(new Product(6L, "Lamp", 30.0, 1, null)));
+
+        assertEquals(List.of(DUNE, LAPTOP, SHIRT, MUG, EMMA), readModel.findAll());
+    }
+
+    @Test
+    void shouldRangeOverPrices() {
+        assertEquals(List.of(MUG, EMMA, DUNE), readModel.findSorted(
+                new ProductFilter(null, null, null, null, null, 12.0), ProductSort.PRICE_ASC, 10));
+        assertEquals(List.of(SHIRT, LAPTOP), readModel.findSorted(
+                new ProductFilter(null, null, null, null, 20.0, null), ProductSort.PRICE_ASC, 10));
+        assertEquals(List.of(), readModel.findSorted(
+                new ProductFilter(null, null, null, null, 30.0, 10.0), ProductSort.PRICE_ASC, 10));
+    }
+
+    @Test
+    void shouldSortByPriceLikeTheComparatorOfTheSort() {
+        final var filters = List.of(
+                ProductFilter.none(),
+                new ProductFilter(null, null, null, null, 8.0, 20.0),
+                new ProductFilter("Book", null, null, null),
+                new ProductFilter(null, "Jane Austen", null, null, null, 12.0),
+                new ProductFilter(null, null, null, null, 30.0, 10.0));
+
+        for (final var filter : filters) {
+            for (final var sort : ProductSort.values()) {
+                for (final int limit : new int[]{1, 2, 10}) {
+                    final var expected = List.of(DUNE, LAPTOP, SHIRT, MUG, EMMA).stream()
+                            .filter(filter::matches)
+                            .sorted(sort.comparator())
+                            .limit(limit)
+                            .toList();
+                    assertEquals(expected, readModel.findSorted(filter, sort, limit), filter + " " + sort + " " + limit);
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldBreakPriceTiesById() {
+        readModel.findAll();
+        final var cheapMug = new Product(6L, "Cheap mug", 5.0, 1, null);
+        readModel.putAll(List.of(cheapMug));
+
+        assertEquals(List.of(MUG, cheapMug), readModel.findSorted(ProductFilter.none(), ProductSort.PRICE_ASC, 2));
+        assertEquals(List.of(cheapMug, MUG),
+                readModel.findSorted(new ProductFilter(null, null, null, null, null, 5.0), ProductSort.PRICE_DESC, 5));
+    }
+}
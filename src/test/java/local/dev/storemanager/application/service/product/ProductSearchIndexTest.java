@@ -0,0 +1,193 @@
+package local.dev.storemanager.application.service.product;
+
+import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.domain.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+    private static final Product RED_SHIRT = new Product(1L, "Red Shirt", 20.0, 5, null);
+    private static final Product SHIRT_RED_XL = new Product(2L, "Shirt, red (XL)", 25.0, 2, null);
+    private static final Product REDWOOD_SHELF = new Product(3L, "Redwood Shelf", 80.0, 1, null);
+    private static final Product BLUE_SHIRT = new Product(4L, "Blue Shirt", 20.0, 7, null);
+    private static final List<Product> ALL = List.of(RED_SHIRT, SHIRT_RED_XL, REDWOOD_SHELF, BLUE_SHIRT);
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        index = new ProductSearchIndex(productRepository);
+        lenient().when(productRepository.forEach(any())).thenAnswer(invocation -> {
+            ALL.forEach(invocation.<Consumer<Product>>getArgument(0));
+            return (long) ALL.size();
+        });
+    }
+
+    @Test
+    void shouldTokenizeOnAnythingButLettersAndDigits() {
+        assertArrayEquals(new String[]{"shirt", "red", "xl"}, ProductSearchIndex.tokenize("Shirt, red (XL) shirt"));
+        assertArrayEquals(new String[0], ProductSearchIndex.tokenize(" -- "));
+    }
+
+    @Test
+    void shouldMatchEveryTokenWholeOrAsPrefix() {
+        assertEquals(List.of(1L, 2L, 3L), index.search("red", 0, 10).ids());
+        assertEquals(List.of(1L, 2L, 3L), index.search("RED sh", 0, 10).ids());
+        assertEquals(List.of(3L), index.search("redw", 0, 10).ids());
+        assertEquals(List.of(), index.search("red blue", 0, 10).ids());
+        assertEquals(0, index.search("   ", 0, 10).total());
+        // a single letter is too short to be a prefix
+        assertEquals(0, index.search("r", 0, 10).total());
+        assertEquals(0, index.search("x", 0, 10).total());
+        assertEquals(List.of(2L), index.search("xl", 0, 10).ids());
+
+        verify(productRepository, times(1)).forEach(any());
+    }
+
+    @Test
+    void shouldRankExactMatchesThenLeadingTokenThenShorterNames() {
+        final var hits = index.search("red shirt", 0, 10);
+
+        // both exact and the name starts with "red", then both exact; "Redwood Shelf" has no "shirt"
+        assertEquals(List.of(1L, 2L), hits.ids());
+        assertEquals(2, hits.total());
+        // a prefix match comes after an exact one, even with a shorter name
+        assertEquals(List.of(1L, 2L, 3L), index.search("red", 0, 10).ids());
+        // the name starting with the query comes first, then shorter names, then lower IDs
+        assertEquals(List.of(2L, 1L, 4L), index.search("shirt", 0, 10).ids());
+    }
+
+    @Test
+    void shouldPageThroughTheRanking() {
+        final var first = index.search("red", 0, 2);
+        final var second = index.search("red", 2, 2);
+
+        assertEquals(List.of(1L, 2L), first.ids());
+        assertEquals(List.of(3L), second.ids());
+        assertEquals(3, first.total());
+        assertEquals(3, second.total());
+    }
+
+    @Test
+    void shouldReindexRenamedProductsAndDropDeletedOnes() {
+        index.search("red", 0, 10);
+
+        index.putAll(List.of(new Product(1L, "Green Shirt", 20.0, 5, null), new Product(5L, "Red Hat", 9.0, 3, null)));
+        index.remove(3L);
+
+        assertEquals(List.of(5L, 2L), index.search("red", 0, 10).ids());
+        assertEquals(List.of(1L), index.search("gree", 0, 10).ids());
+        assertEquals(0, index.search("redwood", 0, 10).total());
+    }
+
+    @Test
+    void shouldKeepFindingProductsChangedOverAndOver() {
+        index.search("red", 0, 10);
+
+        // enough changes for the index to renumber its products a few times
+        for (int round = 0; round < 6; round++) {
+            final var renamed = new ArrayList<Product>();
+            for (long id = 10; id < 1010; id++) {
+                renamed.add(new Product(id, (round % 2 == 0 ? "Lamp " : "Red Lamp ") + id, 10.0, 1, null));
+            }
+            index.putAll(renamed);
+        }
+
+        assertEquals(1000, index.search("lamp", 0, 10).total());
+        assertEquals(List.of(1L, 10L, 11L), index.search("red", 0, 3).ids());
+        assertEquals(1003, index.search("red", 0, 10).total());
+        assertEquals(List.of(500L), index.search("lamp 500", 0, 10).ids());
+    }
+
+    @Test
+    void shouldSkipDeletedProductsBeforeAndAfterTheirPostingsArePurged() {
+        index.search("desk", 0, 10);
+        final var desks = new ArrayList<Product>();
+        for (long id = 100; id < 110; id++) {
+            desks.add(new Product(id, "Desk " + id, 10.0, 1, null));
+        }
+        index.putAll(desks);
+
+        // fewer than half of the desks are gone, so the posting still holds their numbers
+        for (long id = 100; id < 104; id++) {
+            index.remove(id);
+        }
+        assertEquals(List.of(104L, 105L, 106L), index.search("desk", 0, 3).ids());
+        assertEquals(6, index.search("desk", 0, 10).total());
+        assertEquals(List.of(105L), index.search("desk 105", 0, 10).ids());
+
+        // past half, the posting is purged
+        for (long id = 104; id < 108; id++) {
+            index.remove(id);
+        }
+        assertEquals(List.of(108L, 109L), index.search("desk", 0, 10).ids());
+        assertEquals(List.of(109L), index.search("10 desk", 1, 10).ids());
+
+        index.remove(108L);
+        index.remove(109L);
+        assertEquals(0, index.search("desk", 0, 10).total());
+        assertEquals(List.of(1L, 2L, 3L), index.search("red", 0, 10).ids());
+    }
+
+    @Test
+    void shouldIgnoreWritesBeforeTheLoad() {
+        index.putAll(List.of(new Product(9L, "Red Lamp", 30.0, 1, null)));
+        index.remove(1L);
+
+        // the load reads the table as it is now
+        assertEquals(List.of(1L, 2L, 3L), index.search("red", 0, 10).ids());
+    }
+
+    @Test
+    void shouldRankWhateverPathTheQueryTakesLikeTheScan() {
+        final var products = List.of(
+                new Product(1L, "Redwood red", 1.0, 1, null),
+                new Product(2L, "Red redwood", 1.0, 1, null),
+                new Product(3L, "Reddish lamp", 1.0, 1, null),
+                new Product(4L, "Lamp, red", 1.0, 1, null),
+                new Product(5L, "Lamp", 1.0, 1, null),
+                new Product(6L, "Small smart lamp", 1.0, 1, null),
+                new Product(7L, "Smart lamp", 1.0, 1, null));
+        final var index = new ProductSearchIndex(productRepository);
+        doAnswer(invocation -> {
+            products.forEach(invocation.<Consumer<Product>>getArgument(0));
+            return (long) products.size();
+        }).when(productRepository).forEach(any());
+
+        for (final var query : List.of("red", "re", "redwood", "lamp", "la", "sm", "smart", "red lamp", "sm la")) {
+            final var expected = ProductSearchIndex.scan(products, query, 0, 10).products().stream()
+                    .map(Product::getId)
+                    .toList();
+            assertEquals(expected, index.search(query, 0, 10).ids(), query);
+        }
+        // "Redwood red" is found through "red", its second token, and still counts as starting with the query
+        assertEquals(List.of(1L, 2L, 4L, 3L), index.search("red", 0, 10).ids());
+    }
+
+    @Test
+    void scanShouldRankLikeTheIndex() {
+        final var result = ProductSearchIndex.scan(ALL, "red sh", 1, 5);
+
+        assertEquals(List.of(SHIRT_RED_XL, REDWOOD_SHELF), result.products());
+        assertEquals(3, result.total());
+        verifyNoInteractions(productRepository);
+    }
+}
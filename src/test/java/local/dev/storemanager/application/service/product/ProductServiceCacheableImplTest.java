@@ -25,6 +25,9 @@ class ProductServiceCacheableImplTest {
     @Mock
     private ProductMapper productMapper;
 
+    @Mock
+    private ProductCatalog catalog;
+
     @InjectMocks
     private ProductServiceCacheableImpl productService;
 
@@ -48,6 +51,20 @@ class ProductServiceCacheableImplTest {
         verify(productRepository).save(mapped);
     }
 
+    @Test
+    void addProducts_shouldSaveAll() {
+        final var products = List.of(Product.builder().name("Laptop").price(999.99).quantity(3).build());
+        final var saved = List.of(new Product(1L, "Laptop", 999.99, 3, null));
+
+        when(productRepository.saveAll(products)).thenReturn(saved);
+
+        final var result = productService.addProducts(products);
+
+        assertEquals(1L, result.get(0).getId());
+        verify(productRepository).saveAll(products);
+        verify(catalog).putAll(saved);
+    }
+
     @Test
     void findById_shouldReturnProduct() {
         final var product = Product.builder().id(1L).name("Tablet").price(499.99).quantity(5).build();
@@ -103,5 +120,22 @@ class ProductServiceCacheableImplTest {
         productService.deleteProduct(1L);
 
         verify(productRepository).deleteById(1L);
+        verify(catalog).remove(1L);
+    }
+
+    @Test
+    void search_shouldRankTheCatalogSnapshotWithoutReadingTheTable() {
+        final var products = List.of(
+                new Product(1L, "Gaming Laptop", 10.0, 1, null),
+                new Product(2L, "Desk", 20.0, 2, null),
+                new Product(3L, "Laptop", 30.0, 3, null)
+        );
+        when(catalog.snapshot()).thenReturn(new ProductCatalog.Snapshot(1, products));
+
+        final var result = productService.search("laptop", 0, 10);
+
+        assertEquals(2, result.total());
+        assertEquals(List.of(3L, 1L), result.products().stream().map(Product::getId).toList());
+        verify(productRepository, never()).findAll();
     }
 }
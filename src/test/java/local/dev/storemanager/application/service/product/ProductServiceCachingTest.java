@@ -17,10 +17,10 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 
 import static local.dev.storemanager.config.CacheNames.PRODUCT;
-import static local.dev.storemanager.config.CacheNames.PRODUCTS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -45,7 +45,6 @@ class ProductServiceCachingTest {
     void cleanUp() {
         productJpaRepository.deleteAll();
         cacheManager.getCache(PRODUCT).clear();
-        cacheManager.getCache(PRODUCTS).clear();
     }
 
     @Test
@@ -71,6 +70,7 @@ class ProductServiceCachingTest {
 
         // Load into cache
         productService.findById(saved.getId());
+        productService.findAll();
 
         // Update
         final var updated = new ProductRequestDto("Wireless Mouse", 25.0, 8,null, null , null,
@@ -83,8 +83,10 @@ class ProductServiceCachingTest {
         assertEquals("Wireless Mouse", fromCache.getName());
         assertEquals(25.0, fromCache.getPrice());
 
-        // "products" cache should be cleared
-        assertNull(cacheManager.getCache(PRODUCTS).get("all"));
+        // The product list should have the update applied
+        assertTrue(productService.findAll().stream()
+                .anyMatch(product -> product.getId().equals(saved.getId())
+                        && product.getName().equals("Wireless Mouse")));
     }
 
     @Test
@@ -93,6 +95,7 @@ class ProductServiceCachingTest {
 
         // Load into cache
         productService.findById(saved.getId());
+        productService.findAll();
 
         // Delete
         productService.deleteProduct(saved.getId());
@@ -100,7 +103,8 @@ class ProductServiceCachingTest {
         // Cache for individual product should be gone
         assertNull(cacheManager.getCache("product").get(saved.getId(), Product.class));
 
-        // Cache for list of products should also be evicted
-        assertNull(cacheManager.getCache(PRODUCTS).get("all"));
+        // The product list should no longer have it
+        assertTrue(productService.findAll().stream()
+                .noneMatch(product -> product.getId().equals(saved.getId())));
     }
 }
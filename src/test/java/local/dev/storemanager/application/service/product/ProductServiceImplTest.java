@@ -3,23 +3,38 @@ package local.dev.storemanager.application.service.product;
 import local.dev.storemanager.application.dto.ProductRequestDto;
 import local.dev.storemanager.application.kafka.ProductEventPublisher;
 import local.dev.storemanager.application.mapper.ProductMapper;
+import local.dev.storemanager.domain.model.product.Book;
 import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.domain.model.product.ProductFilter;
+import local.dev.storemanager.domain.model.product.ProductNaturalKey;
+import local.dev.storemanager.domain.model.product.ProductSort;
+import local.dev.storemanager.domain.model.product.ProductStats;
+import local.dev.storemanager.domain.model.product.UpsertedProduct;
 import local.dev.storemanager.domain.repository.ProductRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static local.dev.storemanager.config.CacheNames.PRODUCT;
 import static local.dev.storemanager.config.CacheNames.PRODUCTS;
+import static local.dev.storemanager.config.KafkaTopics.PRODUCTS_TOPIC;
 import static local.dev.storemanager.constants.EventTypes.PRICE_CHANGED;
+import static local.dev.storemanager.constants.EventTypes.PRODUCT_CREATED;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -41,6 +56,24 @@ class ProductServiceImplTest {
     @Mock
     private ProductEventPublisher productEventPublisher;
 
+    @Mock
+    private ProductReadModel readModel;
+
+    @Mock
+    private ProductCatalog catalog;
+
+    @Mock
+    private ProductVersions versions;
+
+    @Mock
+    private ProductSearchIndex searchIndex;
+
+    @Mock
+    private ProductInventoryStats inventoryStats;
+
+    @Spy
+    private ProductNaturalKey naturalKey = new ProductNaturalKey(new String[]{"name", "type"});
+
     @InjectMocks
     private ProductServiceImpl productService;
 
@@ -57,14 +90,155 @@ class ProductServiceImplTest {
         when(productMapper.toDomain(dto)).thenReturn(product);
         when(productRepository.save(product)).thenReturn(product);
         when(cacheManager.getCache(PRODUCT)).thenReturn(cache);
-        when(cacheManager.getCache(PRODUCTS)).thenReturn(cache);
 
         productService.addProduct(dto);
 
         verify(productRepository).save(product);
         verify(cache).put(any(), eq(product));
-        // for "products"
-        verify(cache).clear();
+        verify(searchIndex).putAll(List.of(product));
+        verify(inventoryStats).putAll(List.of(product));
+    }
+
+    @Test
+    void addProducts_shouldSaveBatchAndUpdateListOnce() {
+        final var products = List.of(
+                Product.builder().name("Laptop").price(999.0).quantity(2).build(),
+                Product.builder().name("Mouse").price(19.0).quantity(10).build()
+        );
+        final var saved = List.of(
+                new Product(1L, "Laptop", 999.0, 2, null),
+                new Product(2L, "Mouse", 19.0, 10, null)
+        );
+
+        when(productRepository.saveAll(products)).thenReturn(saved);
+        when(cacheManager.getCache(PRODUCT)).thenReturn(cache);
+
+        final var result = productService.addProducts(products);
+
+        assertEquals(saved, result);
+        verify(cache).put(1L, saved.get(0));
+        verify(cache).put(2L, saved.get(1));
+        verify(catalog, times(1)).putAll(saved);
+        verify(searchIndex, times(1)).putAll(saved);
+        // the new versions only show once the cache, the list and the search index have the products
+        final var order = inOrder(cache, catalog, searchIndex, versions);
+        order.verify(cache).put(2L, saved.get(1));
+        order.verify(catalog).putAll(saved);
+        order.verify(searchIndex).putAll(saved);
+        order.verify(versions).changed(List.of(1L, 2L));
+        verify(productEventPublisher).publishAll(eq(PRODUCTS_TOPIC), argThat(events -> events.size() == 2 &&
+                events.stream().allMatch(event -> PRODUCT_CREATED.equals(event.getType()))));
+        verify(productEventPublisher, never()).publish(any(), any());
+    }
+
+    @Test
+    void createProducts_shouldSaveAllInOneBatch() {
+        final var dtos = List.of(
+                new ProductRequestDto("Laptop", 999.0, 2, null, null, null, null, null, null, null),
+                new ProductRequestDto("Mouse", 19.0, 10, null, null, null, null, null, null, null)
+        );
+        final var laptop = Product.builder().name("Laptop").price(999.0).quantity(2).build();
+        final var mouse = Product.builder().name("Mouse").price(19.0).quantity(10).build();
+        final var saved = List.of(new Product(1L, "Laptop", 999.0, 2, null), new Product(2L, "Mouse", 19.0, 10, null));
+
+        when(productMapper.toDomain(dtos.get(0))).thenReturn(laptop);
+        when(productMapper.toDomain(dtos.get(1))).thenReturn(mouse);
+        when(productRepository.saveAll(List.of(laptop, mouse))).thenReturn(saved);
+        when(cacheManager.getCache(PRODUCT)).thenReturn(cache);
+
+        final var result = productService.createProducts(dtos);
+
+        assertEquals(saved, result);
+        verify(productRepository, never()).save(any());
+        verify(searchIndex, times(1)).putAll(saved);
+        verify(productEventPublisher).publishAll(eq(PRODUCTS_TOPIC), argThat(events -> events.size() == 2));
+    }
+
+    @Test
+    void upsertProducts_shouldPublishOnlyCreationsAndPriceChanges() {
+        final var products = List.of(
+                Product.builder().name("Laptop").price(999.0).quantity(2).build(),
+                Product.builder().name("Mouse").price(19.0).quantity(10).build(),
+                Product.builder().name("Cable").price(5.0).quantity(50).build(),
+                Product.builder().name("mouse ").price(21.0).quantity(8).build()
+        );
+        final var laptop = new Product(1L, "Laptop", 999.0, 2, null);
+        final var mouse = new Product(2L, "mouse ", 21.0, 8, null);
+        final var cable = new Product(3L, "Cable", 5.0, 50, null);
+
+        when(productRepository.upsertAll(argThat(byKey -> byKey.size() == 3))).thenReturn(List.of(
+                new UpsertedProduct(laptop, false, false),
+                new UpsertedProduct(mouse, false, true),
+                new UpsertedProduct(cable, true, false)
+        ));
+        when(cacheManager.getCache(PRODUCT)).thenReturn(cache);
+
+        final var result = productService.upsertProducts(products);
+
+        assertEquals(List.of(laptop, mouse, cable), result);
+        verify(cache).put(2L, mouse);
+        verify(searchIndex, times(1)).putAll(List.of(laptop, mouse, cable));
+        verify(productEventPublisher).publishAll(eq(PRODUCTS_TOPIC), argThat(events -> events.size() == 2
+                && events.get(0).getType().equals(PRICE_CHANGED) && events.get(0).getPayload().equals("2")
+                && events.get(1).getType().equals(PRODUCT_CREATED)));
+    }
+
+    @Test
+    void copyProducts_shouldCopyBatchAndPublishOnce() {
+        final var products = List.of(Product.builder().name("Dune").price(12.0).quantity(3).build());
+        final var copied = List.of(new Product(7L, "Dune", 12.0, 3, null));
+
+        when(productRepository.copyAll(products)).thenReturn(copied);
+        when(cacheManager.getCache(PRODUCT)).thenReturn(cache);
+
+        final var result = productService.copyProducts(products);
+
+        assertEquals(copied, result);
+        verify(productRepository, never()).saveAll(any());
+        verify(cache).put(7L, copied.get(0));
+        verify(searchIndex, times(1)).putAll(copied);
+        verify(productEventPublisher).publishAll(eq(PRODUCTS_TOPIC), argThat(events -> events.size() == 1));
+    }
+
+    @Test
+    void addProduct_insideBulkWriteScope_shouldDeferEventsUntilClose() {
+        final var dto = new ProductRequestDto("Laptop", 999.0, 2, null, null, null, null, null, null, null);
+        final var product = Product.builder().name("Laptop").price(999.0).quantity(2).build();
+
+        when(productMapper.toDomain(dto)).thenReturn(product);
+        when(productRepository.save(product)).thenReturn(new Product(1L, "Laptop", 999.0, 2, null));
+        when(cacheManager.getCache(PRODUCT)).thenReturn(cache);
+
+        try (final var scope = productService.openBulkWriteScope()) {
+            productService.addProduct(dto);
+            productService.addProduct(dto);
+            productService.addProduct(dto);
+
+            verify(searchIndex, times(3)).putAll(any());
+            verify(productEventPublisher, never()).publish(any(), any());
+            verify(productEventPublisher, never()).publishAll(any(), any());
+        }
+
+        verify(productEventPublisher, times(1)).publishAll(eq(PRODUCTS_TOPIC), argThat(events -> events.size() == 3));
+        verify(productEventPublisher, never()).publish(any(), any());
+    }
+
+    @Test
+    void addProducts_onOtherThreadJoiningScope_shouldBeDeferred() throws Exception {
+        final var products = List.of(Product.builder().name("Mouse").price(19.0).quantity(10).build());
+        when(productRepository.saveAll(products)).thenReturn(List.of(new Product(2L, "Mouse", 19.0, 10, null)));
+        when(cacheManager.getCache(PRODUCT)).thenReturn(cache);
+
+        try (final var scope = productService.openBulkWriteScope()) {
+            final var worker = new Thread(() -> scope.run(() -> productService.addProducts(products)));
+            worker.start();
+            worker.join();
+
+            verify(searchIndex).putAll(any());
+            verify(productEventPublisher, never()).publishAll(any(), any());
+        }
+
+        verify(productEventPublisher, times(1)).publishAll(eq(PRODUCTS_TOPIC), argThat(events -> events.size() == 1));
     }
 
     @Test
@@ -92,6 +266,67 @@ class ProductServiceImplTest {
         verify(productRepository, never()).findById(anyLong());
     }
 
+    @Test
+    void findByIds_shouldReadCaffeineInBulkAndLoadMissesInOneQuery() {
+        final var caffeine = new CaffeineCache(PRODUCT, Caffeine.newBuilder().build());
+        final var cached = new Product(3L, "Cached", 10.0, 1, null);
+        final var loaded = new Product(1L, "Loaded", 20.0, 2, null);
+        caffeine.put(3L, cached);
+        when(cacheManager.getCache(PRODUCT)).thenReturn(caffeine);
+        when(productRepository.findAllById(Set.of(1L, 9L))).thenReturn(List.of(loaded));
+
+        final var lookup = productService.findByIds(List.of(3L, 1L, 9L, 3L));
+
+        assertEquals(List.of(cached, loaded, cached), lookup.products());
+        assertEquals(List.of(9L), lookup.notFound());
+        assertEquals(loaded, caffeine.get(1L, Product.class));
+        verify(productRepository, times(1)).findAllById(any());
+        verify(productRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void findByIds_withOtherCache_shouldStillLoadMissesInOneQuery() {
+        final var cached = new Product(3L, "Cached", 10.0, 1, null);
+        final var loaded = new Product(1L, "Loaded", 20.0, 2, null);
+        when(cacheManager.getCache(PRODUCT)).thenReturn(cache);
+        when(cache.get(1L, Product.class)).thenReturn(null);
+        when(cache.get(3L, Product.class)).thenReturn(cached);
+        when(productRepository.findAllById(Set.of(1L))).thenReturn(List.of(loaded));
+
+        final var lookup = productService.findByIds(List.of(1L, 3L));
+
+        assertEquals(List.of(loaded, cached), lookup.products());
+        assertEquals(List.of(), lookup.notFound());
+        verify(cache).put(1L, loaded);
+    }
+
+    @Test
+    void search_shouldRankInTheIndexAndReadTheProductsThroughTheCache() {
+        final var caffeine = new CaffeineCache(PRODUCT, Caffeine.newBuilder().build());
+        final var cached = new Product(3L, "Red Shirt", 10.0, 1, null);
+        final var loaded = new Product(1L, "Red Shirt XL", 20.0, 2, null);
+        caffeine.put(3L, cached);
+        when(cacheManager.getCache(PRODUCT)).thenReturn(caffeine);
+        when(searchIndex.search("red sh", 0, 10)).thenReturn(new ProductSearchIndex.Hits(List.of(3L, 1L), 7));
+        when(productRepository.findAllById(Set.of(1L))).thenReturn(List.of(loaded));
+
+        final var result = productService.search("red sh", 0, 10);
+
+        assertEquals(List.of(cached, loaded), result.products());
+        assertEquals(7, result.total());
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    void findSorted_shouldReadTheTopOfThePriceIndexInTheDatabase() {
+        final var filter = new ProductFilter(null, null, null, null, 10.0, 50.0);
+        final var cheapest = List.of(new Product(3L, "Pen", 10.0, 1, null));
+        when(productRepository.findSorted(filter, ProductSort.PRICE_ASC, 1)).thenReturn(cheapest);
+
+        assertEquals(cheapest, productService.findSorted(filter, ProductSort.PRICE_ASC, 1));
+        verify(productRepository, never()).findAll();
+    }
+
     @Test
     void findById_shouldThrow_whenNotFound() {
         when(cacheManager.getCache("product")).thenReturn(cache);
@@ -102,41 +337,100 @@ class ProductServiceImplTest {
     }
 
     @Test
-    void findAll_shouldReturnFromRepository_andCache() {
+    void findAll_shouldReadTheCatalogSnapshot() {
         final var list = List.of(
                 new Product(1L, "One", 10.0, 1, null),
                 new Product(2L, "Two", 20.0, 2, null)
         );
-
-        when(cacheManager.getCache(PRODUCTS)).thenReturn(cache);
-        when(cache.get("all", List.class)).thenReturn(null);
-        when(productRepository.findAll()).thenReturn(list);
+        when(catalog.snapshot()).thenReturn(new ProductCatalog.Snapshot(3, list));
 
         final var result = productService.findAll();
 
-        assertEquals(2, result.size());
-        verify(cache).put("all", list);
+        assertEquals(list, result);
+        verifyNoInteractions(cacheManager, productRepository);
     }
 
     @Test
-    void shouldFilterProductsWithNullType() {
-        final var productWithNullType = Product.builder()
-                .id(1L)
-                .name("Nameless")
-                .price(0.0)
-                .quantity(0)
-                .type(null)
-                .build();
+    void findAllFiltered_shouldLetTheRepositoryFilter() {
+        final var book = new Product(1L, "Dune", 12.0, 3, new Book("Frank Herbert", "Sci-Fi"));
+        final var filter = new ProductFilter("Book", "frank herbert", null, null);
+        when(productRepository.findAll(filter)).thenReturn(List.of(book));
 
-        when(cacheManager.getCache(PRODUCTS)).thenReturn(cache);
-        when(cache.get("all", List.class)).thenReturn(null);
-        when(productRepository.findAll()).thenReturn(List.of(productWithNullType));
+        final var filtered = productService.findAllFiltered("Book", "frank herbert", null, null);
 
-        final var filtered = productService.findAllFiltered("Book", null, null, null);
+        assertEquals(List.of(book), filtered);
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    void findAllFiltered_withoutFilter_shouldReadTheCatalogSnapshot() {
+        final var list = List.of(new Product(1L, "One", 10.0, 1, null));
+        when(catalog.snapshot()).thenReturn(new ProductCatalog.Snapshot(0, list));
 
-        assertEquals(0, filtered.size(), "Expected no products to match due to null type");
+        assertEquals(list, productService.findAllFiltered(null, null, null, null));
+        verifyNoInteractions(productRepository);
     }
 
+    @Test
+    void findAllFiltered_withReadModel_shouldReadTheIndexes() {
+        final var book = new Product(1L, "Dune", 12.0, 3, new Book("Frank Herbert", "Sci-Fi"));
+        final var filter = new ProductFilter("Book", "frank herbert", null, null);
+        when(readModel.isEnabled()).thenReturn(true);
+        when(readModel.find(filter, 0, Integer.MAX_VALUE)).thenReturn(List.of(book));
+
+        assertEquals(List.of(book), productService.findAllFiltered("Book", "frank herbert", null, null));
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void findPage_shouldReadOneRowMoreThanTheLimitAndReturnNextCursor() {
+        final var filter = new ProductFilter("Book", null, null, null);
+        when(productRepository.findPage(filter, 0L, 3)).thenReturn(List.of(
+                new Product(1L, "One", 10.0, 1, null),
+                new Product(2L, "Two", 20.0, 2, null),
+                new Product(5L, "Five", 50.0, 5, null)
+        ));
+
+        final var page = productService.findPage(filter, null, 2);
+
+        assertEquals(List.of(1L, 2L), page.products().stream().map(Product::getId).toList());
+        assertEquals(2L, page.nextCursor());
+        verify(productRepository, never()).findAll();
+    }
+
+    @Test
+    void findPage_shouldHaveNoCursorOnLastPage() {
+        final var filter = new ProductFilter(null, null, null, null, 5.0, null);
+        when(productRepository.findPage(filter, 10L, 3)).thenReturn(List.of(
+                new Product(11L, "Eleven", 10.0, 1, null)
+        ));
+
+        final var page = productService.findPage(filter, 10L, 2);
+
+        assertEquals(1, page.products().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void findPage_withoutFilter_shouldPageTheCatalogSnapshot() {
+        when(catalog.snapshot()).thenReturn(new ProductCatalog.Snapshot(1, List.of(
+                new Product(1L, "One", 10.0, 1, null),
+                new Product(4L, "Four", 40.0, 4, null),
+                new Product(7L, "Seven", 70.0, 7, null),
+                new Product(9L, "Nine", 90.0, 9, null)
+        )));
+
+        final var first = productService.findPage(ProductFilter.none(), null, 2);
+        final var next = productService.findPage(ProductFilter.none(), first.nextCursor(), 2);
+        final var last = productService.findPage(ProductFilter.none(), 8L, 2);
+
+        assertEquals(List.of(1L, 4L), first.products().stream().map(Product::getId).toList());
+        assertEquals(4L, first.nextCursor());
+        assertEquals(List.of(7L, 9L), next.products().stream().map(Product::getId).toList());
+        assertEquals(List.of(9L), last.products().stream().map(Product::getId).toList());
+        assertNull(last.nextCursor());
+        verifyNoInteractions(productRepository);
+    }
 
     @Test
     void updateProduct_shouldSaveAndRefreshCache() {
@@ -147,24 +441,39 @@ class ProductServiceImplTest {
         when(cacheManager.getCache("product")).thenReturn(cache);
         when(cache.get(1L, Product.class)).thenReturn(null);
         when(productRepository.findById(1L)).thenReturn(Optional.of(existing));
-        when(productRepository.save(existing)).thenReturn(existing);
-        when(cacheManager.getCache(PRODUCTS)).thenReturn(cache);
+        when(productRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         final var updated = productService.updateProduct(1L, dto);
 
         assertEquals("New", updated.getName());
         assertEquals(99.99, updated.getPrice());
         assertEquals(10, updated.getQuantity());
+        assertEquals(1L, updated.getId());
 
         verify(cache, times(2)).put(eq(1L), any(Product.class));
 
-        verify(cache).clear();
+        verify(searchIndex).putAll(List.of(updated));
+    }
+
+    @Test
+    void updateProduct_whenSaveFails_shouldLeaveTheCachedProductAsItWas() {
+        final var cached = Product.builder().id(1L).name("Old").price(10.0).quantity(2).build();
+        final var dto = new ProductRequestDto("New", 99.99, 10, null, null, null, null, null, null, null);
+
+        when(cacheManager.getCache(PRODUCT)).thenReturn(cache);
+        when(cache.get(1L, Product.class)).thenReturn(cached);
+        when(productRepository.save(any())).thenThrow(new DataIntegrityViolationException("rejected"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> productService.updateProduct(1L, dto));
+
+        assertEquals(new Product(1L, "Old", 10.0, 2, null), cached);
+        verify(cache, never()).put(any(), any());
+        verifyNoInteractions(readModel, searchIndex, inventoryStats, versions);
     }
 
     @Test
     void updateProduct_shouldPublishPriceChangeEvent() {
         when(cacheManager.getCache(PRODUCT)).thenReturn(cache);
-        when(cacheManager.getCache(PRODUCTS)).thenReturn(cache);
 
         final var existing = Product.builder()
                 .id(1L)
@@ -189,7 +498,7 @@ class ProductServiceImplTest {
 
         productService.updateProduct(1L, dto);
 
-        verify(productRepository).save(existing);
+        verify(productRepository).save(argThat(product -> product.getPrice() == 15.0));
         verify(productEventPublisher).publish(eq(PRODUCTS), argThat(event ->
                 PRICE_CHANGED.equals(event.getType()) &&
                         String.valueOf(existing.getId()).equals(event.getPayload())
@@ -199,7 +508,6 @@ class ProductServiceImplTest {
     @Test
     void updateProduct_shouldNotPublishEventWhenPriceUnchanged() {
         when(cacheManager.getCache(PRODUCT)).thenReturn(cache);
-        when(cacheManager.getCache(PRODUCTS)).thenReturn(cache);
 
         final var existing = Product.builder()
                 .id(1L)
@@ -231,12 +539,37 @@ class ProductServiceImplTest {
     @Test
     void deleteProduct_shouldEvictFromCaches() {
         when(cacheManager.getCache(PRODUCT)).thenReturn(cache);
-        when(cacheManager.getCache(PRODUCTS)).thenReturn(cache);
 
         productService.deleteProduct(1L);
 
         verify(productRepository).deleteById(1L);
         verify(cache).evict(1L);
-        verify(cache).clear();
+        verify(catalog).remove(1L);
+        verify(searchIndex).remove(1L);
+        verify(inventoryStats).remove(1L);
+        verify(versions).removed(1L);
+    }
+
+    @Test
+    void stats_shouldReadTheRunningTotalsInsteadOfTheTable() {
+        final var stats = new ProductStats(3, Map.of("Book", 2L), 120.0, 1, 5);
+        when(inventoryStats.stats()).thenReturn(stats);
+
+        assertEquals(stats, productService.stats());
+        verify(productRepository, never()).stats(anyInt());
+    }
+
+    @Test
+    void writes_withReadModel_shouldUpdateIt() {
+        final var copied = List.of(new Product(2L, "Emma", 8.0, 1, new Book("Jane Austen", "Novel")));
+        when(readModel.isEnabled()).thenReturn(true);
+        when(cacheManager.getCache(PRODUCT)).thenReturn(cache);
+        when(productRepository.copyAll(copied)).thenReturn(copied);
+
+        productService.copyProducts(copied);
+        productService.deleteProduct(1L);
+
+        verify(readModel).putAll(copied);
+        verify(readModel).remove(1L);
     }
 }
@@ -0,0 +1,42 @@
+package local.dev.storemanager.application.service.product;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class ProductVersionsTest {
+
+    @Test
+    void shouldChangeTheCatalogAndOnlyTheWrittenProducts() {
+        final var versions = new ProductVersions(100);
+        versions.changed(List.of(2L));
+        final var catalog = versions.catalogVersion();
+        final var first = versions.productVersion(1L);
+        final var second = versions.productVersion(2L);
+
+        versions.changed(List.of(1L));
+
+        assertNotEquals(catalog, versions.catalogVersion());
+        assertNotEquals(first, versions.productVersion(1L));
+        assertEquals(second, versions.productVersion(2L));
+        assertNotEquals(versions.productVersion(1L), versions.productVersion(2L));
+    }
+
+    @Test
+    void shouldFollowTheCatalogVersionOnceAProductIsDeleted() {
+        final var versions = new ProductVersions(100);
+        versions.changed(List.of(1L));
+        final var written = versions.productVersion(1L);
+
+        versions.removed(1L);
+        final var deleted = versions.productVersion(1L);
+        versions.changed(List.of(2L));
+
+        assertNotEquals(written, deleted);
+        assertNotEquals(deleted, versions.productVersion(1L));
+        assertEquals(versions.catalogVersion().replaceFirst("-", "-1-"), versions.productVersion(1L));
+    }
+}
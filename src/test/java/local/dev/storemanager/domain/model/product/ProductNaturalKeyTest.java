@@ -0,0 +1,45 @@
+package local.dev.storemanager.domain.model.product;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductNaturalKeyTest {
+
+    private final ProductNaturalKey naturalKey = new ProductNaturalKey(new String[]{"name", "type", "author"});
+
+    @Test
+    void shouldIgnoreCaseAndSurroundingSpaces() {
+        assertEquals(naturalKey.of(book("Dune", "Frank Herbert", 10.0)),
+                naturalKey.of(book("  dune ", "FRANK HERBERT", 12.0)));
+    }
+
+    @Test
+    void shouldDifferOnKeyFieldsOnly() {
+        assertNotEquals(naturalKey.of(book("Dune", "Frank Herbert", 10.0)),
+                naturalKey.of(book("Dune", "Brian Herbert", 10.0)));
+        assertNotEquals(naturalKey.of(book("Dune", "Frank Herbert", 10.0)),
+                naturalKey.of(Product.builder().name("Dune").price(10.0).build()));
+        assertEquals(64, naturalKey.of(book("Dune", "Frank Herbert", 10.0)).length());
+    }
+
+    @Test
+    void shouldStartWithTheVersionOfTheFieldList() {
+        final var other = new ProductNaturalKey(new String[]{"name", "type"});
+        final var dune = book("Dune", "Frank Herbert", 10.0);
+
+        assertTrue(naturalKey.of(dune).startsWith(naturalKey.version()));
+        assertEquals(naturalKey.version(), new ProductNaturalKey(new String[]{" name", "type ", "author"}).version());
+        assertNotEquals(naturalKey.version(), other.version());
+        assertTrue(other.of(dune).startsWith(other.version()));
+    }
+
+    @Test
+    void shouldRejectUnknownField() {
+        assertThrows(IllegalArgumentException.class, () -> new ProductNaturalKey(new String[]{"name", "colour"}));
+    }
+
+    private static Product book(String name, String author, double price) {
+        return Product.builder().name(name).price(price).quantity(1).type(new Book(author, "Sci-Fi")).build();
+    }
+}
@@ -1,17 +1,24 @@
 package local.dev.storemanager.infrastructure.persistence;
 
+import local.dev.storemanager.domain.model.product.ProductNaturalKey;
 import local.dev.storemanager.domain.model.product.Book;
 import local.dev.storemanager.domain.model.product.Clothing;
 import local.dev.storemanager.domain.model.product.Electronics;
 import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.domain.model.product.ProductFilter;
+import local.dev.storemanager.domain.model.product.ProductSort;
 import local.dev.storemanager.domain.repository.ProductRepository;
 import local.dev.storemanager.infrastructure.persistence.config.PostgresTestContainer;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,6 +31,12 @@ class ProductRepositoryImplTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private ProductNaturalKey naturalKey;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     void shouldSaveAndFindProduct() {
         final var toSave = Product.builder()
@@ -41,6 +54,19 @@ class ProductRepositoryImplTest {
         assertTrue(found.get().getType() instanceof Book);
     }
 
+    @Test
+    void shouldFindSeveralByIdInOneQuery() {
+        final var first = productRepository.save(Product.builder().name("Pen").price(1.5).quantity(100).build());
+        final var second = productRepository.save(Product.builder().name("Ink").price(4.0).quantity(20).build());
+
+        final var found = productRepository.findAllById(List.of(second.getId(), first.getId(), Long.MAX_VALUE));
+
+        assertEquals(2, found.size());
+        assertTrue(found.stream().anyMatch(product -> product.getName().equals("Pen")));
+        assertTrue(found.stream().anyMatch(product -> product.getName().equals("Ink")));
+        assertTrue(productRepository.findAllById(List.of()).isEmpty());
+    }
+
     @Test
     void shouldReturnAllProducts() {
         productRepository.save(Product.builder()
@@ -61,6 +87,244 @@ class ProductRepositoryImplTest {
         assertTrue(products.size() >= 2);
     }
 
+    @Test
+    void shouldSaveAllInOneBatchWithGeneratedIds() {
+        final var saved = productRepository.saveAll(List.of(
+                Product.builder().name("Dune").price(12.0).quantity(3)
+                        .type(new Book("Frank Herbert", "Sci-Fi")).build(),
+                Product.builder().name("Cable").price(4.5).quantity(40).build()
+        ));
+
+        assertEquals(2, saved.size());
+        assertNotNull(saved.get(0).getId());
+        assertTrue(saved.get(1).getId() > saved.get(0).getId());
+
+        final var found = productRepository.findById(saved.get(0).getId());
+        assertTrue(found.isPresent());
+        assertInstanceOf(Book.class, found.get().getType());
+        assertEquals("Frank Herbert", ((Book) found.get().getType()).author());
+    }
+
+    @Test
+    void shouldCopyAllWithGeneratedIds() {
+        final var copied = productRepository.copyAll(List.of(
+                Product.builder().name("Quote \"Book\", vol. 1").price(9.5).quantity(1)
+                        .type(new Book("O'Brien", "Essays")).build(),
+                Product.builder().name("Plain").price(1.0).quantity(2).build()
+        ));
+
+        assertEquals(2, copied.size());
+        assertNotNull(copied.get(0).getId());
+
+        final var found = productRepository.findById(copied.get(0).getId());
+        assertTrue(found.isPresent());
+        assertEquals("Quote \"Book\", vol. 1", found.get().getName());
+        assertEquals("O'Brien", ((Book) found.get().getType()).author());
+        assertNull(productRepository.findById(copied.get(1).getId()).orElseThrow().getType());
+    }
+
+    @Test
+    void shouldUpsertByNaturalKey() {
+        final var first = productRepository.upsertAll(Map.of(
+                "upsert-key-1", Product.builder().name("Dune").price(12.0).quantity(3)
+                        .type(new Book("Frank Herbert", "Sci-Fi")).build()));
+
+        assertTrue(first.get(0).created());
+        final var id = first.get(0).product().getId();
+        assertNotNull(id);
+
+        final var second = productRepository.upsertAll(Map.of(
+                "upsert-key-1", Product.builder().name("Dune").price(14.0).quantity(5)
+                        .type(new Book("Frank Herbert", "Sci-Fi")).build()));
+
+        assertFalse(second.get(0).created());
+        assertTrue(second.get(0).priceChanged());
+        assertEquals(id, second.get(0).product().getId());
+
+        final var found = productRepository.findById(id).orElseThrow();
+        assertEquals(14.0, found.getPrice());
+        assertEquals(5, found.getQuantity());
+    }
+
+    @Test
+    void shouldKeyEveryWriteSoUpsertsMatchIt() {
+        final var posted = productRepository.save(Product.builder().name("Keyed Dune").price(12.0).quantity(3)
+                .type(new Book("Frank Herbert", "Sci-Fi")).build());
+        final var upserted = productRepository.upsertAll(Map.of(naturalKey.of(posted), Product.builder()
+                .name("Keyed Dune").price(13.0).quantity(4).type(new Book("Frank Herbert", "Sci-Fi")).build()));
+
+        assertFalse(upserted.get(0).created());
+        assertEquals(posted.getId(), upserted.get(0).product().getId());
+
+        // a rename moves the key along with the product
+        final var renamed = productRepository.save(Product.builder().id(posted.getId()).name("Keyed Dune II")
+                .price(13.0).quantity(4).type(new Book("Frank Herbert", "Sci-Fi")).build());
+        final var byNewKey = productRepository.upsertAll(Map.of(naturalKey.of(renamed), renamed));
+        assertFalse(byNewKey.get(0).created());
+        assertEquals(posted.getId(), byNewKey.get(0).product().getId());
+
+        final var copied = productRepository.copyAll(List.of(Product.builder().name("Keyed Copy").price(1.0)
+                .quantity(1).build()));
+        assertEquals(naturalKey.of(copied.get(0)), keyOf(copied.get(0).getId()));
+    }
+
+    @Test
+    void shouldAssignMissingNaturalKeysOncePerKey() {
+        final var first = insertWithoutKey("Unkeyed Twin");
+        final var second = insertWithoutKey("Unkeyed Twin");
+        final var other = insertWithoutKey("Unkeyed Single");
+
+        assertTrue(productRepository.assignMissingNaturalKeys() >= 2);
+
+        final var twin = Product.builder().name("Unkeyed Twin").build();
+        assertEquals(naturalKey.of(twin), keyOf(first));
+        // the later duplicate cannot take the same key
+        assertNull(keyOf(second));
+        assertEquals(naturalKey.of(Product.builder().name("Unkeyed Single").build()), keyOf(other));
+    }
+
+    @Test
+    void shouldSaveDuplicatesWithoutTheTakenKey() {
+        final var first = productRepository.save(Product.builder().name("Twin Pen").price(1.0).quantity(1).build());
+        final var second = productRepository.save(Product.builder().name("twin pen ").price(2.0).quantity(1).build());
+        final var batch = productRepository.saveAll(List.of(
+                Product.builder().name("Twin Pen").price(3.0).quantity(1).build(),
+                Product.builder().name("Twin Ink").price(4.0).quantity(1).build(),
+                Product.builder().name("Twin Ink").price(5.0).quantity(1).build()
+        ));
+
+        assertEquals(naturalKey.of(first), keyOf(first.getId()));
+        // the later duplicates are written all the same, only without the key
+        assertNull(keyOf(second.getId()));
+        assertNull(keyOf(batch.get(0).getId()));
+        assertEquals(naturalKey.of(batch.get(1)), keyOf(batch.get(1).getId()));
+        assertNull(keyOf(batch.get(2).getId()));
+    }
+
+    @Test
+    void shouldReplaceKeysMadeFromOtherKeyFields() {
+        final var id = insertWithoutKey("Rekeyed");
+        final var product = Product.builder().name("Rekeyed").build();
+        jdbcTemplate.update("UPDATE products SET natural_key = ? WHERE id = ?",
+                new ProductNaturalKey(new String[]{"name"}).of(product), id);
+
+        assertTrue(productRepository.assignMissingNaturalKeys() >= 1);
+        assertEquals(naturalKey.of(product), keyOf(id));
+    }
+
+    @Test
+    void shouldReadKeysetPagesInIdOrder() {
+        final var saved = productRepository.saveAll(List.of(
+                Product.builder().name("Page 1").price(1.0).quantity(1).build(),
+                Product.builder().name("Page 2").price(2.0).quantity(1).build(),
+                Product.builder().name("Page 3").price(3.0).quantity(1).build()
+        ));
+        final var ids = saved.stream().map(Product::getId).toList();
+
+        final var first = productRepository.findPage(ProductFilter.none(), ids.get(0) - 1, 2);
+        assertEquals(ids.subList(0, 2), first.stream().map(Product::getId).toList());
+
+        final var second = productRepository.findPage(ProductFilter.none(), ids.get(1), 2);
+        assertEquals(ids.subList(2, 3), second.stream().map(Product::getId).toList());
+    }
+
+    @Test
+    void shouldFilterOnTypeAttributesInTheDatabase() {
+        final var saved = productRepository.saveAll(List.of(
+                Product.builder().name("Dune").price(12.0).quantity(3)
+                        .type(new Book("Frank \"The\" Herbert", "Sci-Fi")).build(),
+                Product.builder().name("Laptop").price(999.0).quantity(1)
+                        .type(new Electronics("Filter-Brand", "2 years")).build(),
+                Product.builder().name("Shirt").price(20.0).quantity(5)
+                        .type(new Clothing("XS", "Cotton")).build(),
+                Product.builder().name("Untyped").price(1.0).quantity(1).build()
+        ));
+        final long before = saved.get(0).getId() - 1;
+
+        final var books = productRepository.findPage(
+                new ProductFilter("BOOK", "frank \"the\" herbert", null, null), before, 10);
+        assertEquals(List.of("Dune"), books.stream().map(Product::getName).toList());
+
+        final var byBrand = productRepository.findPage(new ProductFilter("electronics", null, "FILTER-BRAND", null), before, 10);
+        assertEquals(List.of("Laptop"), byBrand.stream().map(Product::getName).toList());
+
+        // an attribute filter only applies to the type having the attribute
+        final var byAuthor = productRepository.findPage(new ProductFilter(null, "nobody", null, null), before, 10);
+        assertEquals(List.of("Laptop", "Shirt"), byAuthor.stream().map(Product::getName).toList());
+
+        assertTrue(productRepository.findAll(new ProductFilter("Furniture", null, null, null)).isEmpty());
+    }
+
+    @Test
+    void shouldReadPriceRangesAndTopNInPriceOrder() {
+        final var saved = productRepository.saveAll(List.of(
+                Product.builder().name("Range A").price(70001.0).quantity(1)
+                        .type(new Electronics("Range-Brand", "1 year")).build(),
+                Product.builder().name("Range B").price(70003.0).quantity(1).build(),
+                Product.builder().name("Range C").price(70002.0).quantity(1)
+                        .type(new Electronics("Range-Brand", "2 years")).build(),
+                Product.builder().name("Range D").price(70002.0).quantity(1)
+                        .type(new Book("Range Author", "Essay")).build()
+        ));
+        final long before = saved.get(0).getId() - 1;
+        final var range = new ProductFilter(null, null, null, null, 70001.0, 70003.0);
+
+        final var cheapest = productRepository.findSorted(range, ProductSort.PRICE_ASC, 3);
+        assertEquals(List.of("Range A", "Range C", "Range D"), cheapest.stream().map(Product::getName).toList());
+
+        final var dearest = productRepository.findSorted(range, ProductSort.PRICE_DESC, 2);
+        assertEquals(List.of("Range B", "Range D"), dearest.stream().map(Product::getName).toList());
+
+        final var electronics = productRepository.findSorted(
+                new ProductFilter("Electronics", null, "range-brand", null, 70001.5, null), ProductSort.PRICE_ASC, 10);
+        assertEquals(List.of("Range C"), electronics.stream().map(Product::getName).toList());
+
+        final var page = productRepository.findPage(
+                new ProductFilter(null, null, null, null, 70002.0, 70002.0), before, 10);
+        assertEquals(List.of("Range C", "Range D"), page.stream().map(Product::getName).toList());
+    }
+
+    @Test
+    void shouldAggregateStockPerTypeInOneQuery() {
+        final var before = productRepository.stats(5);
+
+        productRepository.saveAll(List.of(
+                Product.builder().name("Stats A").price(10.0).quantity(2)
+                        .type(new Book("Stats Author", "Essay")).build(),
+                Product.builder().name("Stats B").price(2.5).quantity(4)
+                        .type(new Book("Stats Author", "Essay")).build(),
+                Product.builder().name("Stats C").price(100.0).quantity(10)
+                        .type(new Electronics("Stats-Brand", "1 year")).build(),
+                Product.builder().name("Stats D").price(1.0).quantity(5).build()
+        ));
+        final var after = productRepository.stats(5);
+
+        assertEquals(4, after.products() - before.products());
+        assertEquals(2, after.productsByType().getOrDefault("Book", 0L)
+                - before.productsByType().getOrDefault("Book", 0L));
+        assertEquals(1, after.productsByType().getOrDefault("Electronics", 0L)
+                - before.productsByType().getOrDefault("Electronics", 0L));
+        assertEquals(1035.0, after.stockValue() - before.stockValue(), 1e-6);
+        // fewer than 5 in stock: A and B
+        assertEquals(2, after.lowStock() - before.lowStock());
+        assertEquals(5, after.lowStockThreshold());
+    }
+
+    @Test
+    void shouldStreamEveryProductInIdOrder() {
+        productRepository.saveAll(List.of(
+                Product.builder().name("Stream 1").price(1.0).quantity(1).build(),
+                Product.builder().name("Stream 2").price(2.0).quantity(1)
+                        .type(new Clothing("L", "Wool")).build()
+        ));
+        final var ids = new ArrayList<Long>();
+
+        final long count = productRepository.forEach(product -> ids.add(product.getId()));
+
+        assertEquals(productRepository.findAll().size(), count);
+        assertEquals(ids.stream().sorted().toList(), ids);
+    }
+
     @Test
     void shouldDeleteProduct() {
         final var saved = productRepository.save(Product.builder()
@@ -75,4 +339,13 @@ class ProductRepositoryImplTest {
         final var found = productRepository.findById(saved.getId());
         assertFalse(found.isPresent());
     }
+
+    private long insertWithoutKey(String name) {
+        jdbcTemplate.update("INSERT INTO products (name, price, quantity) VALUES (?, 1.0, 1)", name);
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM products WHERE name = ?", Long.class, name);
+    }
+
+    private String keyOf(long id) {
+        return jdbcTemplate.queryForObject("SELECT natural_key FROM products WHERE id = ?", String.class, id);
+    }
 }
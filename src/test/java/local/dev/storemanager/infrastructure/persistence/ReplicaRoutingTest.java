@@ -0,0 +1,145 @@
+package local.dev.storemanager.infrastructure.persistence;
+
+import local.dev.storemanager.domain.model.product.Product;
+import local.dev.storemanager.domain.model.product.ProductFilter;
+import local.dev.storemanager.domain.model.product.ProductSort;
+import local.dev.storemanager.domain.repository.ProductRepository;
+import local.dev.storemanager.infrastructure.persistence.jparepository.UserJpaRepository;
+import local.dev.storemanager.infrastructure.persistence.routing.ReplicaLagMonitor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and the replica. Nothing replicates between them, so a row
+ * written to only one of them tells which database a read went to; the replica lag comes from a table the test sets.
+ */
+@SpringBootTest(properties = {
+        "datasource.replica.url=jdbc:h2:mem:replica_db;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "datasource.replica.lag-query=SELECT lag_ms FROM replica_lag",
+        "datasource.replica.max-lag-ms=1000",
+        "datasource.replica.lag-check-interval-ms=3600000",
+        "spring.kafka.bootstrap-servers=localhost:1"
+})
+@ActiveProfiles("h2")
+class ReplicaRoutingTest {
+
+    private static final ProductFilter PRICE_999 = new ProductFilter(null, null, null, null, 999.0, 999.0);
+    private static final ProductFilter PRICE_998 = new ProductFilter(null, null, null, null, 998.0, 998.0);
+    private static final ProductFilter PRICE_997 = new ProductFilter(null, null, null, null, 997.0, 997.0);
+    private static final ProductFilter PRICE_995 = new ProductFilter(null, null, null, null, 995.0, 995.0);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserJpaRepository userJpaRepository;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void createReplica() {
+        replica = new JdbcTemplate(replicaDataSource);
+        final var tables = replica.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_NAME = 'PRODUCTS'", Integer.class);
+        if (tables == 0) {
+            new ResourceDatabasePopulator(new ClassPathResource("schema-h2.sql"), new ClassPathResource("data-h2.sql"))
+                    .execute(replicaDataSource);
+        }
+        // rows only the replica has get IDs the primary does not reach
+        replica.update("DELETE FROM products");
+        replica.execute("CREATE TABLE IF NOT EXISTS replica_lag (lag_ms BIGINT)");
+        replica.update("DELETE FROM replica_lag");
+        replica.update("INSERT INTO replica_lag VALUES (0)");
+        lagMonitor.check();
+    }
+
+    @Test
+    void shouldWriteToThePrimaryAndReadFromTheReplica() {
+        productRepository.save(
+                Product.builder().name("Primary only").price(999.0).quantity(1).build());
+        replica.update("INSERT INTO products (id, name, price, quantity) VALUES (1000000, 'Replica only', 999.0, 1)");
+        replica.update("INSERT INTO users (username, password, role) VALUES ('replica-user', 'x', 'ROLE_USER')");
+
+        assertTrue(lagMonitor.isUsable());
+        assertEquals(List.of("Replica only"), names(productRepository.findAll(PRICE_999)));
+        assertTrue(userJpaRepository.findByUsernameIgnoreCase("replica-user").isPresent());
+    }
+
+    @Test
+    void shouldServeTheCachedAndETaggedReadsFromThePrimary() {
+        final var saved = productRepository.save(
+                Product.builder().name("Primary read").price(995.0).quantity(1).build());
+        replica.update("INSERT INTO products (id, name, price, quantity) VALUES (1000000, 'Replica only', 995.0, 1)");
+
+        assertTrue(lagMonitor.isUsable());
+        assertEquals("Primary read", productRepository.findById(saved.getId()).orElseThrow().getName());
+        assertTrue(productRepository.findById(1000000L).isEmpty());
+        assertEquals(List.of("Primary read"), names(productRepository.findAllById(List.of(saved.getId(), 1000000L))));
+        assertEquals(List.of("Primary read"), names(productRepository.findPage(PRICE_995, 0, 10)));
+        assertEquals(List.of("Primary read"),
+                names(productRepository.findSorted(PRICE_995, ProductSort.PRICE_ASC, 10)));
+    }
+
+    @Test
+    void shouldReadFromThePrimaryWhileTheReplicaLags() {
+        final var saved = productRepository.save(
+                Product.builder().name("Lagging").price(998.0).quantity(1).build());
+
+        replica.update("UPDATE replica_lag SET lag_ms = 5000");
+        lagMonitor.check();
+
+        assertFalse(lagMonitor.isUsable());
+        assertEquals(List.of("Lagging"), names(productRepository.findAll(PRICE_998)));
+
+        // caught up again
+        replica.update("UPDATE replica_lag SET lag_ms = 10");
+        lagMonitor.check();
+        assertTrue(productRepository.findAll(PRICE_998).isEmpty());
+    }
+
+    @Test
+    void shouldReadFromThePrimaryWhenTheLagCannotBeRead() {
+        productRepository.save(Product.builder().name("No lag").price(997.0).quantity(1).build());
+
+        replica.execute("DROP TABLE replica_lag");
+        lagMonitor.check();
+
+        assertFalse(lagMonitor.isUsable());
+        assertEquals(List.of("No lag"), names(productRepository.findAll(PRICE_997)));
+    }
+
+    @Test
+    void shouldLoadTheInMemoryViewsFromThePrimary() {
+        final var saved = productRepository.save(
+                Product.builder().name("Just written").price(996.0).quantity(1).build());
+
+        assertTrue(productRepository.findAll().stream().anyMatch(product -> product.getId().equals(saved.getId())));
+        final var streamed = new ArrayList<Long>();
+        productRepository.forEach(product -> streamed.add(product.getId()));
+        assertTrue(streamed.contains(saved.getId()));
+    }
+
+    private static List<String> names(List<Product> products) {
+        return products.stream().map(Product::getName).toList();
+    }
+}
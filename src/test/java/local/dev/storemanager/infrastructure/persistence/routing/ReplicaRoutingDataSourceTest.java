@@ -0,0 +1,58 @@
+package local.dev.storemanager.infrastructure.persistence.routing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private ReplicaLagMonitor lagMonitor;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection;
+
+    @Test
+    void shouldUseTheReplicaOnlyWhileItIsUsable() throws SQLException {
+        final var dataSource = new ReplicaRoutingDataSource(primary, replica, lagMonitor);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+
+        when(lagMonitor.isUsable()).thenReturn(true);
+        assertSame(replicaConnection, dataSource.getConnection());
+
+        when(lagMonitor.isUsable()).thenReturn(false);
+        assertSame(primaryConnection, dataSource.getConnection());
+        verify(replica, times(1)).getConnection();
+    }
+
+    @Test
+    void shouldFallBackToThePrimaryWhenTheReplicaRefusesAConnection() throws SQLException {
+        final var dataSource = new ReplicaRoutingDataSource(primary, replica, lagMonitor);
+        final var refused = new SQLException("Connection refused");
+        when(lagMonitor.isUsable()).thenReturn(true);
+        when(replica.getConnection()).thenThrow(refused);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        assertSame(primaryConnection, dataSource.getConnection());
+        verify(lagMonitor).failed(refused);
+    }
+}
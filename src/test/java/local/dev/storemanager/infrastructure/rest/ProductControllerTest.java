@@ -1,14 +1,27 @@
 package local.dev.storemanager.infrastructure.rest;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import local.dev.storemanager.application.dto.ImportJobResponse;
 import local.dev.storemanager.application.dto.ProductRequestDto;
 import local.dev.storemanager.application.dto.ProductResponseDto;
+import local.dev.storemanager.application.exception.ImportJobNotFoundException;
+import local.dev.storemanager.application.exception.InvalidImportPathException;
 import local.dev.storemanager.application.exception.ProductNotFoundException;
 import local.dev.storemanager.application.mapper.ProductMapper;
 import local.dev.storemanager.application.security.JwtRequestFilter;
 import local.dev.storemanager.domain.model.product.Book;
+import local.dev.storemanager.domain.model.product.ImportJobStatus;
+import local.dev.storemanager.domain.model.product.ImportFormat;
+import local.dev.storemanager.domain.model.product.ImportMode;
 import local.dev.storemanager.domain.model.product.Product;
-import local.dev.storemanager.domain.service.ProductBulkImportService;
+import local.dev.storemanager.domain.model.product.ProductFilter;
+import local.dev.storemanager.domain.model.product.ProductLookup;
+import local.dev.storemanager.domain.model.product.ProductPage;
+import local.dev.storemanager.domain.model.product.ProductSearchResult;
+import local.dev.storemanager.domain.model.product.ProductSort;
+import local.dev.storemanager.domain.model.product.ProductStats;
+import local.dev.storemanager.domain.service.ProductExportService;
+import local.dev.storemanager.domain.service.ProductImportJobService;
 import local.dev.storemanager.domain.service.ProductService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,6 +29,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -28,8 +42,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.FilterType;
 
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -53,11 +74,17 @@ class ProductControllerTest {
     private ProductService productService;
 
     @Autowired
-    private ProductBulkImportService bulkImportService;
+    private ProductImportJobService importJobService;
+
+    @Autowired
+    private ProductExportService exportService;
 
     @Autowired
     private ProductMapper productMapper;
 
+    @Autowired
+    private ProductJsonCache jsonCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -65,7 +92,7 @@ class ProductControllerTest {
 
     @BeforeEach
     void setup() {
-        reset(productService, bulkImportService, productMapper);
+        reset(productService, importJobService, exportService, productMapper, jsonCache);
         product = Product.builder().id(1L).name("Book").price(10.0).quantity(5).build();
         final var productResponseDto = new ProductResponseDto(12L, "Book", 10.0, 5, "Book",
                 new Book("John Doe", "Fiction"));
@@ -80,9 +107,14 @@ class ProductControllerTest {
             return mock(ProductService.class);
         }
 
-        @Bean(name = "productBulkImportServiceImpl")
-        public ProductBulkImportService productBulkImportService() {
-            return mock(ProductBulkImportService.class);
+        @Bean
+        public ProductImportJobService productImportJobService() {
+            return mock(ProductImportJobService.class);
+        }
+
+        @Bean
+        public ProductExportService productExportService() {
+            return mock(ProductExportService.class);
         }
 
         @Bean
@@ -90,6 +122,11 @@ class ProductControllerTest {
             return mock(ProductMapper.class);
         }
 
+        @Bean
+        public ProductJsonCache productJsonCache() {
+            return mock(ProductJsonCache.class);
+        }
+
         @Bean
         public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
             http.csrf(AbstractHttpConfigurer::disable)
@@ -129,15 +166,374 @@ class ProductControllerTest {
     @Test
     @WithMockUser(roles = "USER")
     void shouldGetAllProducts() throws Exception {
-        when(productService.findAllFiltered(null, null, null, null))
-                .thenReturn(List.of(product));
+        when(productService.findPage(ProductFilter.none(), null, 100))
+                .thenReturn(new ProductPage(List.of(product), null));
 
         mockMvc.perform(get("/products"))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("Book"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldPointToNextPage() throws Exception {
+        when(productService.findPage(new ProductFilter("Book", null, null, null), 7L, 1000))
+                .thenReturn(new ProductPage(List.of(product), 1L));
+
+        mockMvc.perform(get("/products?type=Book&cursor=7&limit=5000"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "1"))
+                .andExpect(header().string("Link",
+                        "<http://localhost/products?type=Book&cursor=1&limit=1000>; rel=\"next\""))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldRejectNonPositiveLimit() throws Exception {
+        mockMvc.perform(get("/products?limit=0"))
+                .andExpect(status().isBadRequest());
+
+        verify(productService, never()).findPage(any(), any(), anyInt());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldReturnTheCheapestProductsWithoutAPage() throws Exception {
+        final var filter = new ProductFilter("Electronics", null, null, null, 10.0, 50.0);
+        when(productService.findSorted(filter, ProductSort.PRICE_ASC, 5)).thenReturn(List.of(product));
+
+        mockMvc.perform(get("/products?type=Electronics&minPrice=10&maxPrice=50&sort=price&limit=5"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$.length()").value(1));
+
+        verify(productService, never()).findPage(any(), any(), anyInt());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldPageThroughAPriceRangeInIdOrder() throws Exception {
+        final var filter = new ProductFilter(null, null, null, null, null, 50.0);
+        when(productService.findPage(filter, 7L, 1)).thenReturn(new ProductPage(List.of(product), 1L));
+
+        mockMvc.perform(get("/products?maxPrice=50&cursor=7&limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Link",
+                        "<http://localhost/products?maxPrice=50&cursor=1&limit=1>; rel=\"next\""));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldRejectUnknownSortInvertedRangeAndCursorOnPriceOrder() throws Exception {
+        mockMvc.perform(get("/products?sort=name"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/products?minPrice=50&maxPrice=10"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/products?sort=-price&cursor=7"))
+                .andExpect(status().isBadRequest());
+
+        verify(productService, never()).findSorted(any(), any(), anyInt());
+        verify(productService, never()).findPage(any(), any(), anyInt());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldGetSeveralProductsByIdInOneRequest() throws Exception {
+        when(productService.findByIds(List.of(3L, 1L, 9L)))
+                .thenReturn(new ProductLookup(List.of(product, product), List.of(9L)));
+
+        mockMvc.perform(get("/products?ids=3,1,9"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products.length()").value(2))
+                .andExpect(jsonPath("$.products[0].name").value("Book"))
+                .andExpect(jsonPath("$.notFound[0]").value(9));
+
+        verify(productService, never()).findPage(any(), any(), anyInt());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldRejectTooManyIds() throws Exception {
+        final var ids = String.join(",", Collections.nCopies(1001, "1"));
+
+        mockMvc.perform(get("/products?ids=" + ids))
+                .andExpect(status().isBadRequest());
+
+        verify(productService, never()).findByIds(any());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldRejectBlankIds() throws Exception {
+        mockMvc.perform(get("/products?ids=1,,2"))
+                .andExpect(status().isBadRequest());
+
+        verify(productService, never()).findByIds(any());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldSearchByNameAndPointToNextPage() throws Exception {
+        when(productService.search("bo", 2, 1)).thenReturn(new ProductSearchResult(List.of(product), 5));
+
+        mockMvc.perform(get("/products/search?q=bo&offset=2&limit=1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "5"))
+                .andExpect(header().string("Link",
+                        "<http://localhost/products/search?q=bo&offset=3&limit=1>; rel=\"next\""))
                 .andExpect(jsonPath("$.length()").value(1))
                 .andExpect(jsonPath("$[0].name").value("Book"));
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldNotLinkPastTheLargestSearchOffset() throws Exception {
+        when(productService.search("bo", 9950, 100)).thenReturn(new ProductSearchResult(List.of(product), 20000));
+
+        mockMvc.perform(get("/products/search?q=bo&offset=9950"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Link",
+                        "<http://localhost/products/search?q=bo&offset=9951&limit=100>; rel=\"next\""));
+
+        when(productService.search("bo", 10000, 100)).thenReturn(new ProductSearchResult(List.of(product), 20000));
+
+        mockMvc.perform(get("/products/search?q=bo&offset=10000"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Link"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldNotLinkPastTheLastSearchPage() throws Exception {
+        when(productService.search("bo", 4, 100)).thenReturn(new ProductSearchResult(List.of(product), 5));
+
+        mockMvc.perform(get("/products/search?q=bo&offset=4"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "5"))
+                .andExpect(header().doesNotExist("Link"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldRejectBlankSearchOrOffsetOutOfRange() throws Exception {
+        mockMvc.perform(get("/products/search?q= "))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/products/search?q=bo&offset=-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/products/search?q=bo&offset=10001"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/products/search?q=bo&offset=2000000000&limit=1000"))
+                .andExpect(status().isBadRequest());
+
+        verify(productService, never()).search(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldReturnInventoryStats() throws Exception {
+        when(productService.stats()).thenReturn(new ProductStats(3, Map.of("Book", 2L), 120.5, 1, 5));
+
+        mockMvc.perform(get("/products/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.products").value(3))
+                .andExpect(jsonPath("$.productsByType.Book").value(2))
+                .andExpect(jsonPath("$.stockValue").value(120.5))
+                .andExpect(jsonPath("$.lowStock").value(1))
+                .andExpect(jsonPath("$.lowStockThreshold").value(5));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldSendProductETagAndAnswerNotModifiedWithoutLoading() throws Exception {
+        when(productService.productVersion(1L)).thenReturn(Optional.of("k1-1-3"));
+        when(productService.findById(1L)).thenReturn(product);
+
+        mockMvc.perform(get("/products/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"k1-1-3\""));
+
+        mockMvc.perform(get("/products/1").header("If-None-Match", "\"k1-1-3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"k1-1-3\""))
+                .andExpect(content().string(""));
+
+        verify(productService, times(1)).findById(1L);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldAnswerNotModifiedForCurrentCatalogVersion() throws Exception {
+        when(productService.catalogVersion()).thenReturn(Optional.of("k1-2a"));
+
+        mockMvc.perform(get("/products?type=Book").header("If-None-Match", "\"k1-29\", W/\"k1-2a\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"k1-2a\""));
+
+        verify(productService, never()).findPage(any(), any(), anyInt());
+        verifyNoInteractions(productMapper);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldAnswerWithBodyForStaleCatalogVersion() throws Exception {
+        when(productService.catalogVersion()).thenReturn(Optional.of("k1-2b"));
+        when(productService.findPage(ProductFilter.none(), null, 100))
+                .thenReturn(new ProductPage(List.of(product), null));
+
+        mockMvc.perform(get("/products").header("If-None-Match", "\"k1-2a\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"k1-2b\""))
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldWriteCachedProductJson() throws Exception {
+        when(productService.findById(1L)).thenReturn(product);
+        when(jsonCache.isEnabled()).thenReturn(true);
+        when(jsonCache.json(product)).thenReturn("{\"id\":1,\"name\":\"Cached\"}".getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(get("/products/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().doesNotExist("Vary"))
+                .andExpect(jsonPath("$.name").value("Cached"));
+
+        verifyNoInteractions(productMapper);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldWriteCachedProductJsonGzippedWhenAccepted() throws Exception {
+        final var gzipped = new byte[]{31, -117, 8, 0};
+        when(productService.findById(1L)).thenReturn(product);
+        when(jsonCache.isEnabled()).thenReturn(true);
+        when(jsonCache.isGzipEnabled()).thenReturn(true);
+        when(jsonCache.gzip(product)).thenReturn(gzipped);
+        when(jsonCache.json(product)).thenReturn("{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(get("/products/1").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(content().bytes(gzipped));
+
+        mockMvc.perform(get("/products/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(header().string("Vary", "Accept-Encoding"))
+                .andExpect(content().string("{\"id\":1}"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldTagTheGzipBodyApartFromTheUncompressedOne() throws Exception {
+        when(productService.productVersion(1L)).thenReturn(Optional.of("k1-1-3"));
+        when(productService.findById(1L)).thenReturn(product);
+        when(jsonCache.isEnabled()).thenReturn(true);
+        when(jsonCache.isGzipEnabled()).thenReturn(true);
+        when(jsonCache.gzip(product)).thenReturn(new byte[]{31, -117, 8, 0});
+        when(jsonCache.json(product)).thenReturn("{\"id\":1}".getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(get("/products/1").header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"k1-1-3-gz\""));
+        mockMvc.perform(get("/products/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"k1-1-3\""));
+
+        // either tag of the current version is current
+        mockMvc.perform(get("/products/1").header("Accept-Encoding", "gzip").header("If-None-Match", "\"k1-1-3-gz\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"k1-1-3-gz\""))
+                .andExpect(header().string("Vary", "Accept-Encoding"));
+        mockMvc.perform(get("/products/1").header("If-None-Match", "\"k1-1-3-gz\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"k1-1-3\""));
+        mockMvc.perform(get("/products/1").header("If-None-Match", "\"k1-1-2-gz\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldWriteCachedJsonArrayForAPage() throws Exception {
+        final var next = Product.builder().id(2L).name("Pen").price(1.0).quantity(3).build();
+        when(productService.findPage(ProductFilter.none(), null, 2))
+                .thenReturn(new ProductPage(List.of(product, next), 2L));
+        when(jsonCache.isEnabled()).thenReturn(true);
+        when(jsonCache.jsonArray(List.of(product, next)))
+                .thenReturn("[{\"id\":1},{\"id\":2}]".getBytes(StandardCharsets.UTF_8));
+
+        mockMvc.perform(get("/products?limit=2"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string("X-Next-Cursor", "2"))
+                .andExpect(jsonPath("$[1].id").value(2));
+
+        verifyNoInteractions(productMapper);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldStreamExportAsNdjson() throws Exception {
+        when(exportService.exportNdjson(any(), eq(false))).thenAnswer(invocation -> {
+            final OutputStream out = invocation.getArgument(0);
+            out.write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+
+        final var result = mockMvc.perform(get("/products/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().string("{\"id\":1}\n"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldGzipExportWhenAccepted() throws Exception {
+        final var result = mockMvc.perform(get("/products/export").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"));
+        verify(exportService).exportNdjson(any(), eq(true));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void shouldNotGzipExportWhenGzipIsRefused() throws Exception {
+        final var result = mockMvc.perform(get("/products/export").header("Accept-Encoding", "gzip;q=0, deflate"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"));
+        verify(exportService).exportNdjson(any(), eq(false));
+    }
+
+    @Test
+    void shouldReadGzipConsentFromTheCodingList() {
+        assertTrue(ProductController.acceptsGzip("gzip, deflate"));
+        assertTrue(ProductController.acceptsGzip("deflate, GZIP;q=0.5"));
+        assertTrue(ProductController.acceptsGzip("br, *"));
+        assertFalse(ProductController.acceptsGzip("gzip;q=0"));
+        assertFalse(ProductController.acceptsGzip("gzip; q=0.000, *"));
+        assertFalse(ProductController.acceptsGzip("*;q=0"));
+        assertFalse(ProductController.acceptsGzip("x-gzipped, deflate"));
+        assertFalse(ProductController.acceptsGzip(null));
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     void shouldUpdateProduct() throws Exception {
@@ -190,6 +586,25 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$.message").value("Unexpected failure"));
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldReturn409ForProductWithTakenNaturalKey() throws Exception {
+        when(productService.addProduct(any())).thenThrow(new DuplicateKeyException("natural_key"));
+
+        mockMvc.perform(post("/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                    {
+                                        "name": "Book",
+                                        "price": 10.0,
+                                        "quantity": 5
+                                    }
+                                """))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409))
+                .andExpect(jsonPath("$.message").value("A product with the same natural key already exists"));
+    }
+
     @Test
     void shouldReturn400ForInvalidProductInput() throws Exception {
         final var invalidPayload = """
@@ -252,12 +667,20 @@ class ProductControllerTest {
 
         final var json = objectMapper.writeValueAsString(products);
 
+        when(productService.createProducts(products)).thenReturn(List.of(
+                new Product(1L, "Effective Java", 45.0, 10, null),
+                new Product(2L, "MacBook Pro", 1999.99, 5, null),
+                new Product(3L, "T-Shirt", 19.99, 100, null)));
+
         mockMvc.perform(post("/products/bulk")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(json))
-                .andExpect(status().isCreated());
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created").value(3))
+                .andExpect(jsonPath("$.ids[2]").value(3));
 
-        verify(productService, times(3)).addProduct(org.mockito.ArgumentMatchers.any());
+        verify(productService).createProducts(products);
+        verify(productService, never()).addProduct(any());
     }
 
     @Test
@@ -273,17 +696,86 @@ class ProductControllerTest {
         final var json = objectMapper.writeValueAsBytes(products);
         final var file = new MockMultipartFile("file", "products.json", "application/json", json);
 
-        when(bulkImportService.importFromJson(any(), any()))
-                .thenReturn(new local.dev.storemanager.application.dto.BulkImportResponse(
-                        2, 2, 0, 200
-                ));
+        when(importJobService.submit(any(), any()))
+                .thenReturn(new ImportJobResponse("job-1", ImportMode.MULTI_THREADED, ImportFormat.JSON, ImportJobStatus.QUEUED,
+                        0, 0, 0, 0, null, null, null));
 
         mockMvc.perform(multipart("/products/bulk/import")
                         .file(file)
                         .param("mode", "MULTI_THREADED"))
-                .andExpect(status().isOk());
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/products/bulk/import/job-1"))
+                .andExpect(jsonPath("$.jobId").value("job-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"));
+
+        verify(importJobService).submit(any(), eq(ImportMode.MULTI_THREADED));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldSubmitImportFromServerPath() throws Exception {
+        when(importJobService.submitPath(any(), any(), any()))
+                .thenReturn(new ImportJobResponse("job-2", ImportMode.JDBC_BATCH, ImportFormat.NDJSON, ImportJobStatus.QUEUED,
+                        0, 0, 0, 0, null, null, null));
+
+        mockMvc.perform(post("/products/bulk/import/path")
+                        .param("path", "products.ndjson")
+                        .param("mode", "JDBC_BATCH"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/products/bulk/import/job-2"))
+                .andExpect(jsonPath("$.format").value("NDJSON"));
+
+        verify(importJobService).submitPath("products.ndjson", null, ImportMode.JDBC_BATCH);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldRejectImportPathOutsideImportDirectory() throws Exception {
+        when(importJobService.submitPath(any(), any(), any()))
+                .thenThrow(new InvalidImportPathException("Import path ../etc/passwd is outside the import directory"));
+
+        mockMvc.perform(post("/products/bulk/import/path")
+                        .param("path", "../etc/passwd"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldGetImportJobStatus() throws Exception {
+        when(importJobService.getJob("job-1"))
+                .thenReturn(new ImportJobResponse("job-1", ImportMode.JDBC_BATCH, ImportFormat.JSON, ImportJobStatus.RUNNING,
+                        500, 450, 50, 1000.0, 2000L, null, null));
+
+        mockMvc.perform(get("/products/bulk/import/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andExpect(jsonPath("$.parsed").value(500))
+                .andExpect(jsonPath("$.persisted").value(450))
+                .andExpect(jsonPath("$.failed").value(50))
+                .andExpect(jsonPath("$.etaMs").value(2000));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldReturn404ForUnknownImportJob() throws Exception {
+        when(importJobService.getJob("missing")).thenThrow(new ImportJobNotFoundException("missing"));
+
+        mockMvc.perform(get("/products/bulk/import/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void shouldCancelImportJob() throws Exception {
+        when(importJobService.cancel("job-1"))
+                .thenReturn(new ImportJobResponse("job-1", ImportMode.SINGLE_THREADED, ImportFormat.JSON, ImportJobStatus.CANCELLED,
+                        100, 100, 0, 0, 0L, null, null));
+
+        mockMvc.perform(delete("/products/bulk/import/job-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CANCELLED"));
 
-        verify(bulkImportService).importFromJson(any(), eq(local.dev.storemanager.domain.model.product.ImportMode.MULTI_THREADED));
+        verify(importJobService).cancel("job-1");
     }
 
 }
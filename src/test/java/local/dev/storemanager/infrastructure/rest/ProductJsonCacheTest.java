@@ -0,0 +1,69 @@
+package local.dev.storemanager.infrastructure.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import local.dev.storemanager.application.mapper.ProductMapper;
+import local.dev.storemanager.domain.model.product.Book;
+import local.dev.storemanager.domain.model.product.Product;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductJsonCacheTest {
+
+    private final ProductMapper productMapper = new ProductMapper();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void shouldWriteWhatTheMapperAndJacksonWould() throws IOException {
+        final var cache = new ProductJsonCache(productMapper, objectMapper, true, false, 100);
+        final var product = book(1L, "Dune");
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(productMapper.toResponseDto(product)), cache.json(product));
+    }
+
+    @Test
+    void shouldReuseTheBytesUntilTheProductChanges() {
+        final var cache = new ProductJsonCache(productMapper, objectMapper, true, false, 100);
+        final var product = book(1L, "Dune");
+
+        final var first = cache.json(product);
+        assertSame(first, cache.json(book(1L, "Dune")));
+
+        // a change to the very instance that was serialized still shows
+        product.setQuantity(0);
+        final var changed = cache.json(product);
+        assertNotSame(first, changed);
+        assertTrue(new String(changed).contains("\"quantity\":0"));
+    }
+
+    @Test
+    void shouldJoinTheProductsIntoOneArray() throws IOException {
+        final var cache = new ProductJsonCache(productMapper, objectMapper, true, false, 100);
+        final var products = List.of(book(1L, "Dune"), book(2L, "Emma"), book(3L, "Ulysses"));
+
+        final var expected = objectMapper.writeValueAsString(products.stream().map(productMapper::toResponseDto).toList());
+        assertEquals(expected, new String(cache.jsonArray(products)));
+        assertEquals("[]", new String(cache.jsonArray(List.of())));
+    }
+
+    @Test
+    void shouldKeepAGzipCopyOfTheJson() throws IOException {
+        final var cache = new ProductJsonCache(productMapper, objectMapper, true, true, 100);
+        final var product = book(1L, "Dune");
+
+        assertTrue(cache.isGzipEnabled());
+        try (final var in = new GZIPInputStream(new ByteArrayInputStream(cache.gzip(product)))) {
+            assertArrayEquals(cache.json(product), in.readAllBytes());
+        }
+        assertFalse(new ProductJsonCache(productMapper, objectMapper, false, true, 100).isGzipEnabled());
+    }
+
+    private static Product book(Long id, String name) {
+        return Product.builder().id(id).name(name).price(9.5).quantity(3).type(new Book("Someone", "Fiction")).build();
+    }
+}
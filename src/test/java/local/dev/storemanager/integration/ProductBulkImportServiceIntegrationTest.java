@@ -5,12 +5,15 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import local.dev.storemanager.application.dto.ProductRequestDto;
+import local.dev.storemanager.application.importer.ImportProgress;
+import local.dev.storemanager.domain.model.product.ImportFormat;
 import local.dev.storemanager.domain.model.product.ImportMode;
 import local.dev.storemanager.domain.service.ProductBulkImportService;
 import local.dev.storemanager.infrastructure.persistence.config.PostgresTestContainer;
 import local.dev.storemanager.infrastructure.persistence.jparepository.ProductJpaRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.kafka.test.context.EmbeddedKafka;
@@ -18,6 +21,8 @@ import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 
 @SpringBootTest
@@ -53,7 +58,7 @@ class ProductBulkImportServiceIntegrationTest {
         final var json = objectMapper.writeValueAsBytes(products);
         final var file = new MockMultipartFile("file", "products.json", "application/json", json);
 
-        final var result = bulkImportService.importFromJson(file, ImportMode.SINGLE_THREADED);
+        final var result = bulkImportService.importProducts(file, ImportMode.SINGLE_THREADED);
 
         assertEquals(500, result.total());
         assertEquals(500, result.success());
@@ -71,11 +76,150 @@ class ProductBulkImportServiceIntegrationTest {
         final var json = objectMapper.writeValueAsBytes(products);
         final var file = new MockMultipartFile("file", "products.json", "application/json", json);
 
-        final var result = bulkImportService.importFromJson(file, ImportMode.MULTI_THREADED);
+        final var result = bulkImportService.importProducts(file, ImportMode.MULTI_THREADED);
 
         assertEquals(500, result.total());
         assertEquals(500, result.success());
         assertEquals(0, result.failed());
     }
 
+    @Test
+    void shouldImportProductsInJdbcBatches() throws Exception {
+        final var products = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            products.add(new ProductRequestDto("Product-" + i, 10.0 + i, i + 1,
+                    "Book", "Author-" + i, "Fiction", null, null, null, null));
+        }
+
+        final var json = objectMapper.writeValueAsBytes(products);
+        final var file = new MockMultipartFile("file", "products.json", "application/json", json);
+
+        final var result = bulkImportService.importProducts(file, ImportMode.JDBC_BATCH);
+
+        assertEquals(500, result.total());
+        assertEquals(500, result.success());
+        assertEquals(0, result.failed());
+        assertEquals(500, productJpaRepository.count());
+    }
+
+    @Test
+    void shouldImportProductsWithCopy() throws Exception {
+        final var products = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            products.add(new ProductRequestDto("Product-" + i, 10.0 + i, i + 1,
+                    "Electronics", null, null, "Brand-" + i, "2 years", null, null));
+        }
+
+        final var json = objectMapper.writeValueAsBytes(products);
+        final var file = new MockMultipartFile("file", "products.json", "application/json", json);
+
+        final var result = bulkImportService.importProducts(file, ImportMode.COPY);
+
+        assertEquals(300, result.total());
+        assertEquals(300, result.success());
+        assertEquals(0, result.failed());
+        assertEquals(300, productJpaRepository.count());
+    }
+
+    @Test
+    void shouldImportProductsOnVirtualThreads() throws Exception {
+        final var products = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            products.add(new ProductRequestDto("Product-" + i, 10.0 + i, i + 1,
+                    "Clothing", null, null, null, null, "M", "Cotton"));
+        }
+
+        final var json = objectMapper.writeValueAsBytes(products);
+        final var file = new MockMultipartFile("file", "products.json", "application/json", json);
+
+        final var result = bulkImportService.importProducts(file, ImportMode.VIRTUAL_THREADS);
+
+        assertEquals(400, result.total());
+        assertEquals(400, result.success());
+        assertEquals(0, result.failed());
+        assertEquals(400, productJpaRepository.count());
+    }
+
+    @Test
+    void shouldRejectOnlyBadRowsOfFailingBatch() throws Exception {
+        final var products = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            // the name column is varchar(255), so this row cannot be inserted
+            final var name = i == 77 ? "X".repeat(300) : "Product-" + i;
+            products.add(new ProductRequestDto(name, 10.0 + i, i + 1,
+                    "Book", "Author-" + i, "Fiction", null, null, null, null));
+        }
+
+        final var json = objectMapper.writeValueAsBytes(products);
+        final var file = new MockMultipartFile("file", "products.json", "application/json", json);
+
+        final var result = bulkImportService.importProducts(file, ImportMode.JDBC_BATCH);
+
+        assertEquals(120, result.total());
+        assertEquals(119, result.success());
+        assertEquals(1, result.failed());
+        assertEquals(77, result.rejected().get(0).index());
+        assertEquals(119, productJpaRepository.count());
+    }
+
+    @Test
+    void shouldImportCsvUploadPickedByContentType() throws Exception {
+        final var csv = new StringBuilder("name,price,quantity,type,brand,warranty\n");
+        for (int i = 0; i < 250; i++) {
+            csv.append("Product-").append(i).append(",").append(10.0 + i).append(",").append(i + 1)
+                    .append(",Electronics,Brand-").append(i).append(",2 years\n");
+        }
+        final var file = new MockMultipartFile("file", "products", "text/csv", csv.toString().getBytes());
+
+        final var result = bulkImportService.importProducts(file, ImportMode.JDBC_BATCH);
+
+        assertEquals(250, result.total());
+        assertEquals(250, result.success());
+        assertEquals(250, productJpaRepository.count());
+    }
+
+    @Test
+    void shouldImportNdjsonFromPathInParallelChunks(@TempDir Path tempDir) throws Exception {
+        final var ndjson = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            final var name = i == 640 ? "X".repeat(300) : "Product-" + i;
+            ndjson.append(objectMapper.writeValueAsString(new ProductRequestDto(name, 10.0 + i, i + 1,
+                    "Book", "Author-" + i, "Fiction", null, null, null, null))).append('\n');
+        }
+        final var file = Files.writeString(tempDir.resolve("products.ndjson"), ndjson);
+
+        final var result = bulkImportService.importFromPath(file, ImportFormat.NDJSON, ImportMode.VIRTUAL_THREADS,
+                new ImportProgress());
+
+        assertEquals(1000, result.total());
+        assertEquals(999, result.success());
+        assertEquals(640, result.rejected().get(0).index());
+        assertEquals(999, productJpaRepository.count());
+    }
+
+    @Test
+    void shouldUpdateInsteadOfDuplicatingWhenUpsertingTwice() throws Exception {
+        final var products = new ArrayList<ProductRequestDto>();
+        for (int i = 0; i < 150; i++) {
+            products.add(new ProductRequestDto("Product-" + i, 10.0 + i, i + 1,
+                    "Book", "Author-" + i, "Fiction", null, null, null, null));
+        }
+        final var first = new MockMultipartFile("file", "products.json", "application/json",
+                objectMapper.writeValueAsBytes(products));
+
+        assertEquals(150, bulkImportService.importProducts(first, ImportMode.UPSERT).success());
+
+        products.set(3, new ProductRequestDto("Product-3", 99.0, 7, "Book", "Author-3", "Fiction",
+                null, null, null, null));
+        final var second = new MockMultipartFile("file", "products.json", "application/json",
+                objectMapper.writeValueAsBytes(products));
+
+        final var result = bulkImportService.importProducts(second, ImportMode.UPSERT);
+
+        assertEquals(150, result.success());
+        assertEquals(150, productJpaRepository.count());
+        assertTrue(productJpaRepository.findAll().stream()
+                .anyMatch(product -> product.getName().equals("Product-3") && product.getPrice() == 99.0));
+    }
+
 }
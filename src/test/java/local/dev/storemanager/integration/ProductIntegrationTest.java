@@ -1,6 +1,7 @@
 package local.dev.storemanager.integration;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import local.dev.storemanager.application.service.product.ProductCatalog;
 import local.dev.storemanager.domain.model.product.Book;
 import local.dev.storemanager.domain.model.product.Electronics;
 import local.dev.storemanager.infrastructure.persistence.config.PostgresTestContainer;
@@ -19,6 +20,7 @@ import org.springframework.kafka.test.context.EmbeddedKafka;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static org.hamcrest.Matchers.*;
@@ -44,6 +46,9 @@ class ProductIntegrationTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private ProductCatalog productCatalog;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @BeforeEach
@@ -51,6 +56,12 @@ class ProductIntegrationTest {
         productJpaRepository.deleteAll();
         userJpaRepository.deleteAll();
 
+        // the products are written behind the service's back, so the list snapshot is dropped to read them; reading
+        // it first merges the deltas still queued, which would otherwise be applied to the next load
+        productCatalog.snapshot();
+        ReflectionTestUtils.setField(productCatalog, "loading", false);
+        ReflectionTestUtils.setField(productCatalog, "snapshot", null);
+
         userJpaRepository.save(new AppUser(null, "admin", passwordEncoder.encode("admin"), "ROLE_ADMIN"));
         userJpaRepository.save(new AppUser(null, "user", passwordEncoder.encode("user"), "ROLE_USER"));
     }
@@ -122,6 +133,29 @@ class ProductIntegrationTest {
                 .andExpect(jsonPath("$[1].name").exists());
     }
 
+    @Test
+    void shouldPageThroughProductsWithCursor() throws Exception {
+        final var first = productJpaRepository.save(new ProductEntity(null, "Page A", 1.0, 1, null));
+        final var second = productJpaRepository.save(new ProductEntity(null, "Page B", 2.0, 1, null));
+        productJpaRepository.save(new ProductEntity(null, "Page C", 3.0, 1, null));
+
+        final var token = getAuthToken("user", "user");
+
+        mockMvc.perform(get("/products?limit=2")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", String.valueOf(second.getId())))
+                .andExpect(jsonPath("$.length()", is(2)))
+                .andExpect(jsonPath("$[0].id").value(first.getId()));
+
+        mockMvc.perform(get("/products?limit=2&cursor=" + second.getId())
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].name").value("Page C"));
+    }
+
     @Test
     void shouldFilterWhenSomeProductsHaveNullType() throws Exception {
         productJpaRepository.save(new ProductEntity(null, "Java Book", 25.0, 5,
@@ -12,5 +12,26 @@ CREATE TABLE products
     name     VARCHAR(100),
     price DOUBLE,
     quantity INT,
-    type     JSON
-);
\ No newline at end of file
+    type     JSON,
+    natural_key VARCHAR(64) UNIQUE,
+    -- H2 cannot read fields out of JSON, so the filterable ones are extracted from its text into indexed columns;
+    -- string values keep their JSON escapes
+    type_label VARCHAR(20) GENERATED ALWAYS AS
+        (REGEXP_SUBSTR(CAST(type AS VARCHAR), '"type":"([^"]*)"', 1, 1, NULL, 1)),
+    author_lc VARCHAR(255) GENERATED ALWAYS AS
+        (LOWER(REGEXP_SUBSTR(CAST(type AS VARCHAR), '"author":"((?:[^"\\]|\\.)*)"', 1, 1, NULL, 1))),
+    brand_lc VARCHAR(255) GENERATED ALWAYS AS
+        (LOWER(REGEXP_SUBSTR(CAST(type AS VARCHAR), '"brand":"((?:[^"\\]|\\.)*)"', 1, 1, NULL, 1))),
+    size_lc VARCHAR(255) GENERATED ALWAYS AS
+        (LOWER(REGEXP_SUBSTR(CAST(type AS VARCHAR), '"size":"((?:[^"\\]|\\.)*)"', 1, 1, NULL, 1)))
+);
+
+-- filtered keyset pages: equality on the attribute, then a range on id
+CREATE INDEX idx_products_type_label ON products (type_label, id);
+CREATE INDEX idx_products_author ON products (author_lc, id);
+CREATE INDEX idx_products_brand ON products (brand_lc, id);
+CREATE INDEX idx_products_size ON products (size_lc, id);
+
+-- top-N by price, over all products or within a type: a range scan in price order
+CREATE INDEX idx_products_price ON products (price, id);
+CREATE INDEX idx_products_type_price ON products (type_label, price, id);